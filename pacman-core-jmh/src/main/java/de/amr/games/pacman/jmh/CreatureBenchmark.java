@@ -0,0 +1,111 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.games.pacman.lib.steering.RuleBasedSteering;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.actors.Creature;
+
+/**
+ * Creature movement and steering. Each benchmark lets the creature move, so the measured calls see the changing
+ * situations of a running game (new tile entered, blocked, around corner, teleport).
+ * 
+ * @author Armin Reichert
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CreatureBenchmark {
+
+	/* Creatures are not updated by the level here, so give them their speed */
+	@Setup(Level.Trial)
+	public void setUp(PlayingLevel playing) {
+		setSpeed(playing);
+	}
+
+	private void setSpeed(PlayingLevel playing) {
+		var level = playing.level;
+		level.pac().setRelSpeed(0.8f);
+		var ghost = level.ghost(GameModel.RED_GHOST);
+		ghost.enterStateHuntingPac();
+		ghost.setRelSpeed(0.75f);
+	}
+
+	/** {@link Creature#tryMoving} of Pac-Man, turning clockwise when blocked. */
+	@Benchmark
+	public boolean pacTryMoving(PlayingLevel playing) {
+		var pac = playing.level.pac();
+		pac.tryMoving(playing.level);
+		if (!pac.moved()) {
+			pac.setWishDir(pac.moveDir().succClockwise());
+		}
+		return pac.moved();
+	}
+
+	/** {@link Creature#navigateTowardsTarget} plus move of the red ghost chasing Pac-Man. */
+	@Benchmark
+	public boolean ghostNavigateTowardsTarget(PlayingLevel playing) {
+		var level = playing.level;
+		var ghost = level.ghost(GameModel.RED_GHOST);
+		ghost.setTargetTile(level.pac().tile());
+		ghost.navigateTowardsTarget(level);
+		ghost.tryMoving(level);
+		return ghost.moved();
+	}
+
+	/**
+	 * {@link RuleBasedSteering#steer} plus move of Pac-Man. The rest of the level is not updated, Pac-Man only eats the
+	 * food such that the autopilot finds new targets.
+	 */
+	@Benchmark
+	public boolean ruleBasedSteering(PlayingLevel playing) {
+		var level = playing.level;
+		var pac = level.pac();
+		playing.autopilot.steer(level, pac);
+		pac.tryMoving(level);
+		level.world().removeFood(pac.tile());
+		if (level.world().uneatenFoodCount() == 0) {
+			playing.enterLevel();
+			setSpeed(playing);
+		}
+		return pac.moved();
+	}
+}
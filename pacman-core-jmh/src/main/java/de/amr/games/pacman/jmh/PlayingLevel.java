@@ -0,0 +1,90 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.jmh;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import de.amr.games.pacman.lib.steering.RuleBasedSteering;
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * A game level in hunting state with Pac-Man steered by the autopilot. Pac-Man is immune, so the level is only
+ * restarted when all food has been eaten.
+ * 
+ * @author Armin Reichert
+ */
+@State(Scope.Thread)
+public class PlayingLevel {
+
+	@Param({ "PACMAN", "MS_PACMAN" })
+	public GameVariant variant;
+
+	public GameModel game;
+	public GameLevel level;
+	public RuleBasedSteering autopilot;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		game = new GameModel(variant);
+		game.setHighscorePersistent(false);
+		game.setRandomSeed(42);
+		game.setImmune(true);
+		game.eventBus().setSoundEventsEnabled(false);
+		game.init();
+		game.newScore();
+		game.loadHighscore();
+		autopilot = new RuleBasedSteering();
+		enterLevel();
+	}
+
+	/**
+	 * Enters the first level and starts hunting.
+	 */
+	public void enterLevel() {
+		game.enterLevel(1);
+		level = game.level().get();
+		level.letsGetReadyToRumbleAndShowGuys(true);
+		level.startHunting(0);
+	}
+
+	/**
+	 * Simulates one tick of the hunting state like the game controller does.
+	 */
+	public void tick() {
+		autopilot.steer(level, level.pac());
+		level.update();
+		if (level.isCompleted()) {
+			level.exit();
+			enterLevel();
+		} else if (level.memo().edibleGhostsExist()) {
+			level.killEdibleGhosts();
+		}
+	}
+}
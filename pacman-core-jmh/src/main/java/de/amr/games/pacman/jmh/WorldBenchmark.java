@@ -0,0 +1,89 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.amr.games.pacman.lib.math.Vector2i;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.world.World;
+
+/**
+ * World tile queries over all tiles of the Pac-Man world, half of the food eaten.
+ * 
+ * @author Armin Reichert
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorldBenchmark {
+
+	private World world;
+	private Vector2i[] tiles;
+
+	@Setup
+	public void setUp() {
+		world = new World(GameModel.PACMAN_MAP);
+		tiles = world.tiles().toArray(Vector2i[]::new);
+		for (int i = 0; i < tiles.length; i += 2) {
+			world.removeFood(tiles[i]);
+		}
+	}
+
+	@Benchmark
+	public int containsFood() {
+		int count = 0;
+		for (var tile : tiles) {
+			if (world.containsFood(tile)) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int isIntersection() {
+		int count = 0;
+		for (var tile : tiles) {
+			if (world.isIntersection(tile)) {
+				++count;
+			}
+		}
+		return count;
+	}
+}
@@ -23,19 +23,21 @@ SOFTWARE.
 */
 package de.amr.games.pacman.controller;
 
-import static de.amr.games.pacman.event.GameEvents.publishGameEvent;
-import static de.amr.games.pacman.event.GameEvents.publishGameEventOfType;
-import static de.amr.games.pacman.event.GameEvents.publishSoundEvent;
 import static de.amr.games.pacman.lib.Globals.checkGameVariant;
 import static de.amr.games.pacman.lib.Globals.checkNotNull;
-import static java.util.function.Predicate.not;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
 
 import de.amr.games.pacman.event.GameEventType;
+import de.amr.games.pacman.event.GameEventBus;
 import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.event.GameStateChangeEvent;
 import de.amr.games.pacman.lib.fsm.Fsm;
+import de.amr.games.pacman.lib.steering.LookaheadSteering;
 import de.amr.games.pacman.lib.steering.RuleBasedSteering;
 import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameSnapshot;
 import de.amr.games.pacman.model.GameVariant;
 
 /**
@@ -57,35 +59,98 @@ import de.amr.games.pacman.model.GameVariant;
  *      behavior</a>
  * @see <a href="http://superpacman.com/mspacman/">Ms. Pac-Man</a>
  */
-public class GameController extends Fsm<GameState, GameModel> {
+public class GameController extends Fsm<GameState, GameController> {
 
+	private final GameEventBus eventBus = new GameEventBus();
 	private GameModel game;
 	private Steering autopilot = new RuleBasedSteering();
 	private Steering manualPacSteering = Steering.NONE;
 	private boolean autoControlled;
+	private SessionRecorder recorder;
+	private boolean updating;
 
 	public GameController(GameVariant variant) {
 		super(GameState.values());
 		checkGameVariant(variant);
-		for (var state : states) {
-			state.gc = this;
-		}
 		// map FSM state change events to "game state change" events
-		addStateChangeListener(
-				(oldState, newState) -> publishGameEvent(new GameStateChangeEvent(game, oldState, newState)));
-		game = new GameModel(variant);
+		addStateChangeListener((oldState, newState) -> {
+			if (eventBus.hasListeners(GameEventType.GAME_STATE_CHANGED)) {
+				eventBus.publish(new GameStateChangeEvent(game, oldState, newState));
+			}
+		});
+		game = new GameModel(variant, eventBus);
 		GameEvents.setGameController(this);
 	}
 
 	@Override
-	public GameModel context() {
-		return game;
+	public GameController context() {
+		return this;
 	}
 
 	public GameModel game() {
 		return game;
 	}
 
+	/**
+	 * @return the event bus of this controller, shared by all game models created by this controller
+	 */
+	public GameEventBus eventBus() {
+		return eventBus;
+	}
+
+	@Override
+	public void update() {
+		updating = true;
+		super.update();
+		updating = false;
+		if (recorder != null) {
+			recorder.endTick();
+		}
+	}
+
+	/**
+	 * Recorded sessions are replayed tick by tick, so no ticks are skipped while a session is recorded.
+	 */
+	@Override
+	public long skipIdleTicks(long maxTicks) {
+		return recorder != null ? 0 : super.skipIdleTicks(maxTicks);
+	}
+
+	/**
+	 * Writes the state of this controller (current state and state timers) followed by a {@link GameSnapshot snapshot}
+	 * of the game.
+	 */
+	@Override
+	public void saveState(ByteBuffer buffer) {
+		super.saveState(buffer);
+		GameSnapshot.save(game, buffer);
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}. The game variant must be the same.
+	 */
+	@Override
+	public void restoreState(ByteBuffer buffer) {
+		super.restoreState(buffer);
+		GameSnapshot.restore(game, buffer);
+	}
+
+	/**
+	 * @return the recorder of the current session if the session is recorded
+	 */
+	public Optional<SessionRecorder> recorder() {
+		return Optional.ofNullable(recorder);
+	}
+
+	void setRecorder(SessionRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/** Commands are only recorded when sent from outside, not when executed as part of an update. */
+	private boolean recording() {
+		return recorder != null && !updating;
+	}
+
 	public boolean isAutoControlled() {
 		return autoControlled;
 	}
@@ -98,8 +163,24 @@ public class GameController extends Fsm<GameState, GameModel> {
 		autoControlled = !autoControlled;
 	}
 
+	/**
+	 * @return the steering used when the game is auto-controlled
+	 */
+	public Steering autopilot() {
+		return autopilot;
+	}
+
+	/**
+	 * @param autopilot steering used when the game is auto-controlled, e.g. a {@link LookaheadSteering}
+	 */
+	public void setAutopilot(Steering autopilot) {
+		checkNotNull(autopilot);
+		this.autopilot = autopilot;
+	}
+
 	public Steering steering() {
-		return autoControlled ? autopilot : manualPacSteering;
+		var steering = autoControlled ? autopilot : manualPacSteering;
+		return recorder != null ? recorder.recording(steering) : steering;
 	}
 
 	public Steering getManualPacSteering() {
@@ -113,8 +194,25 @@ public class GameController extends Fsm<GameState, GameModel> {
 
 	// Game commands
 
+	@Override
+	public void restart(GameState state) {
+		if (recording()) {
+			recorder.restart(state);
+		}
+		super.restart(state);
+	}
+
+	@Override
+	public void terminateCurrentState() {
+		if (recording()) {
+			recorder.command(SessionRecorder.TERMINATE_STATE);
+		}
+		super.terminateCurrentState();
+	}
+
 	/**
-	 * Creates a new game as specified by the given variant and reboots. Keeps immunity and credit.
+	 * Creates a new game as specified by the given variant and reboots. Keeps immunity, credit, highscore persistence,
+	 * random seed and the state of the random generator such that a seeded run stays reproducible.
 	 * 
 	 * @param variant Pac-Man or Ms. Pac-Man
 	 */
@@ -122,10 +220,19 @@ public class GameController extends Fsm<GameState, GameModel> {
 		if (state() == GameState.INTRO) {
 			boolean immune = game.isImmune();
 			int credit = game.credit();
-			game = new GameModel(variant);
+			boolean highscorePersistent = game.isHighscorePersistent();
+			long randomSeed = game.randomSeed();
+			long randomState = game.random().state();
+			game = new GameModel(variant, eventBus);
 			game.setImmune(immune);
 			game.setCredit(credit);
-			restart(GameState.BOOT);
+			game.setHighscorePersistent(highscorePersistent);
+			game.setRandomSeed(randomSeed);
+			game.random().setState(randomState);
+			if (recording()) {
+				recorder.selectVariant(game);
+			}
+			super.restart(GameState.BOOT);
 		}
 	}
 
@@ -133,10 +240,13 @@ public class GameController extends Fsm<GameState, GameModel> {
 	 * Adds credit (simulates insertion of a coin) and switches to the credit scene.
 	 */
 	public void addCredit() {
+		if (recording()) {
+			recorder.command(SessionRecorder.ADD_CREDIT);
+		}
 		if (!game.isPlaying()) {
 			boolean added = game.changeCredit(1);
 			if (added) {
-				publishSoundEvent(GameModel.SE_CREDIT_ADDED);
+				game.publishSoundEvent(GameModel.SE_CREDIT_ADDED);
 			}
 			if (state() != GameState.CREDIT) {
 				changeState(GameState.CREDIT);
@@ -145,12 +255,18 @@ public class GameController extends Fsm<GameState, GameModel> {
 	}
 
 	public void startPlaying() {
+		if (recording()) {
+			recorder.command(SessionRecorder.START_PLAYING);
+		}
 		if ((state() == GameState.INTRO || state() == GameState.CREDIT) && game.hasCredit()) {
 			changeState(GameState.READY);
 		}
 	}
 
 	public void startCutscenesTest() {
+		if (recording()) {
+			recorder.command(SessionRecorder.START_CUTSCENES_TEST);
+		}
 		if (state() == GameState.INTRO) {
 			game.intermissionTestNumber = 1;
 			changeState(GameState.INTERMISSION_TEST);
@@ -158,11 +274,14 @@ public class GameController extends Fsm<GameState, GameModel> {
 	}
 
 	public void cheatEatAllPellets() {
+		if (recording()) {
+			recorder.command(SessionRecorder.CHEAT_EAT_ALL_PELLETS);
+		}
 		if (game.isPlaying() && state() == GameState.HUNTING) {
 			game.level().ifPresent(level -> {
 				var world = level.world();
-				world.tiles().filter(not(world::isEnergizerTile)).forEach(world::removeFood);
-				publishGameEventOfType(GameEventType.PAC_FINDS_FOOD);
+				world.removeAllPellets();
+				game.publishGameEventOfType(GameEventType.PAC_FINDS_FOOD);
 				if (world.uneatenFoodCount() == 0) {
 					changeState(GameState.LEVEL_COMPLETE);
 				}
@@ -171,6 +290,9 @@ public class GameController extends Fsm<GameState, GameModel> {
 	}
 
 	public void cheatKillAllEatableGhosts() {
+		if (recording()) {
+			recorder.command(SessionRecorder.CHEAT_KILL_ALL_EATABLE_GHOSTS);
+		}
 		if (game.isPlaying() && state() == GameState.HUNTING) {
 			game.level().ifPresent(level -> {
 				level.killAllHuntingAndFrightenedGhosts();
@@ -180,10 +302,12 @@ public class GameController extends Fsm<GameState, GameModel> {
 	}
 
 	public void cheatEnterNextLevel() {
+		if (recording()) {
+			recorder.command(SessionRecorder.CHEAT_ENTER_NEXT_LEVEL);
+		}
 		if (game.isPlaying() && state() == GameState.HUNTING) {
 			game.level().ifPresent(level -> {
-				var world = level.world();
-				world.tiles().forEach(world::removeFood);
+				level.world().removeAllFood();
 				changeState(GameState.LEVEL_COMPLETE);
 			});
 		}
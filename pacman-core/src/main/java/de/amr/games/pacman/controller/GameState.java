@@ -23,15 +23,11 @@ SOFTWARE.
  */
 package de.amr.games.pacman.controller;
 
-import static de.amr.games.pacman.event.GameEvents.publishGameEventOfType;
-import static de.amr.games.pacman.event.GameEvents.publishSoundEvent;
 
 import de.amr.games.pacman.event.GameEventType;
-import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.lib.anim.Animated;
 import de.amr.games.pacman.lib.anim.AnimationMap;
 import de.amr.games.pacman.lib.fsm.FsmState;
-import de.amr.games.pacman.lib.timer.TickTimer;
 import de.amr.games.pacman.model.GameLevel;
 import de.amr.games.pacman.model.GameModel;
 import de.amr.games.pacman.model.actors.Creature;
@@ -43,21 +39,22 @@ import de.amr.games.pacman.model.actors.GhostState;
  * 
  * @author Armin Reichert
  */
-public enum GameState implements FsmState<GameModel> {
+public enum GameState implements FsmState<GameController> {
 
 	BOOT() { // "Das muss das Boot abkönnen!"
 		@Override
-		public void onEnter(GameModel game) {
-			timer.restartIndefinitely();
+		public void onEnter(GameController gc) {
+			var game = gc.game();
+			gc.timer().restartIndefinitely();
 			game.clearLevelCounter();
 			game.newScore();
 			game.loadHighscore();
-			publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
+			game.publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
-			if (timer.hasExpired()) {
+		public void onUpdate(GameController gc) {
+			if (gc.timer().hasExpired()) {
 				gc.changeState(INTRO);
 			}
 		}
@@ -65,16 +62,17 @@ public enum GameState implements FsmState<GameModel> {
 
 	INTRO() {
 		@Override
-		public void onEnter(GameModel game) {
-			timer.restartIndefinitely();
+		public void onEnter(GameController gc) {
+			var game = gc.game();
+			gc.timer().restartIndefinitely();
 			game.setPlaying(false);
 			game.removeLevel();
-			publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
+			game.publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
-			if (timer.hasExpired()) {
+		public void onUpdate(GameController gc) {
+			if (gc.timer().hasExpired()) {
 				gc.changeState(READY);
 			}
 		}
@@ -82,20 +80,21 @@ public enum GameState implements FsmState<GameModel> {
 
 	CREDIT {
 		@Override
-		public void onUpdate(GameModel game) {
+		public void onUpdate(GameController gc) {
 			// nothing to do here
 		}
 	},
 
 	READY {
 		@Override
-		public void onEnter(GameModel game) {
+		public void onEnter(GameController gc) {
+			var game = gc.game();
 			gc.getManualPacSteering().setEnabled(false);
-			publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
+			game.publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
 			if (!game.hasCredit()) {
 				game.init();
 				game.enterDemoLevel();
-				publishGameEventOfType(GameEventType.LEVEL_STARTING);
+				game.publishGameEventOfType(GameEventType.LEVEL_STARTING);
 			} else if (game.isPlaying()) {
 				game.level().ifPresent(level -> level.letsGetReadyToRumbleAndShowGuys(true));
 			} else {
@@ -103,21 +102,23 @@ public enum GameState implements FsmState<GameModel> {
 				game.newScore();
 				game.clearLevelCounter();
 				game.enterLevel(1);
-				publishSoundEvent(GameModel.SE_READY_TO_PLAY);
-				publishGameEventOfType(GameEventType.LEVEL_STARTING);
+				game.publishSoundEvent(GameModel.SE_READY_TO_PLAY);
+				game.publishGameEventOfType(GameEventType.LEVEL_STARTING);
 			}
 		}
 
+		private static final int SHOW_GUYS_TICK = 120; // not sure
+
 		@Override
-		public void onUpdate(GameModel game) {
-			final int showGuysTick = 120; // not sure
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
 				if (game.hasCredit() && !game.isPlaying()) {
 					// start new game
-					if (timer.tick() == showGuysTick) {
+					if (gc.timer().tick() == SHOW_GUYS_TICK) {
 						level.guys().forEach(Creature::show);
 						game.setOneLessLifeDisplayed(true);
-					} else if (timer.tick() == showGuysTick + 120) {
+					} else if (gc.timer().tick() == SHOW_GUYS_TICK + 120) {
 						// start playing
 						game.setPlaying(true);
 						level.startHunting(0);
@@ -125,14 +126,14 @@ public enum GameState implements FsmState<GameModel> {
 					}
 				} else if (game.isPlaying()) {
 					// game already running
-					if (timer.tick() == 90) {
+					if (gc.timer().tick() == 90) {
 						level.guys().forEach(Creature::show);
 						level.startHunting(0);
 						gc.changeState(GameState.HUNTING);
 					}
 				} else {
 					// attract mode
-					if (timer.tick() == 130) {
+					if (gc.timer().tick() == 130) {
 						level.guys().forEach(Creature::show);
 						level.startHunting(0);
 						gc.changeState(GameState.HUNTING);
@@ -140,18 +141,31 @@ public enum GameState implements FsmState<GameModel> {
 				}
 			});
 		}
+
+		@Override
+		public long idleTicks(GameController gc) {
+			var game = gc.game();
+			if (game.level().isEmpty()) {
+				return 0;
+			}
+			if (game.hasCredit() && !game.isPlaying()) {
+				return gc.timer().ticksUntil(SHOW_GUYS_TICK, SHOW_GUYS_TICK + 120);
+			}
+			return gc.timer().ticksUntil(game.isPlaying() ? 90 : 130);
+		}
 	},
 
 	HUNTING {
 		@Override
-		public void onEnter(GameModel game) {
+		public void onEnter(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
 				gc.getManualPacSteering().setEnabled(true);
 				switch (level.huntingPhase()) {
-				case 0 -> publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_0);
-				case 2 -> publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_2);
-				case 4 -> publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_4);
-				case 6 -> publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_6);
+				case 0 -> game.publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_0);
+				case 2 -> game.publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_2);
+				case 4 -> game.publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_4);
+				case 6 -> game.publishSoundEvent(GameModel.SE_HUNTING_PHASE_STARTED_6);
 				default -> {
 					// no sound event
 				}
@@ -161,7 +175,8 @@ public enum GameState implements FsmState<GameModel> {
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
 				// TODO this looks ugly
 				var steering = level.pacSteering().orElse(gc.steering());
@@ -182,17 +197,19 @@ public enum GameState implements FsmState<GameModel> {
 
 	LEVEL_COMPLETE {
 		@Override
-		public void onEnter(GameModel game) {
+		public void onEnter(GameController gc) {
+			var game = gc.game();
 			gc.getManualPacSteering().setEnabled(false);
-			timer.restartSeconds(4);
+			gc.timer().restartSeconds(4);
 			game.level().ifPresent(GameLevel::exit);
-			publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
+			game.publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
-				if (timer.hasExpired()) {
+				if (gc.timer().hasExpired()) {
 					if (!game.hasCredit()) {
 						gc.changeState(INTRO);
 						// attract mode -> back to intro scene
@@ -202,65 +219,88 @@ public enum GameState implements FsmState<GameModel> {
 						gc.changeState(CHANGING_TO_NEXT_LEVEL); // next level
 					}
 				} else {
-					level.world().animation(GameModel.AK_MAZE_FLASHING).ifPresent(flashing -> {
-						if (timer.atSecond(1)) {
-							flashing.setRepetitions(level.numFlashes);
-							flashing.restart();
-						} else {
-							flashing.animate();
-						}
-					});
+					if (!game.isHeadless()) {
+						level.world().animation(GameModel.AK_MAZE_FLASHING).ifPresent(flashing -> {
+							if (gc.timer().atSecond(1)) {
+								flashing.setRepetitions(level.numFlashes);
+								flashing.restart();
+							} else {
+								flashing.animate();
+							}
+						});
+					}
 					level.pac().update(level);
 				}
 			});
 		}
+
+		@Override
+		public long idleTicks(GameController gc) {
+			// Pac-Man rests after leaving the level, only the maze flashing is animated. It starts after one second.
+			if (!gc.game().isHeadless()) {
+				return gc.timer().ticksUntil(gc.timer().secToTicks(1));
+			}
+			return gc.timer().ticksUntil();
+		}
 	},
 
 	CHANGING_TO_NEXT_LEVEL {
 		@Override
-		public void onEnter(GameModel game) {
+		public void onEnter(GameController gc) {
+			var game = gc.game();
 			gc.getManualPacSteering().setEnabled(false);
-			timer.restartSeconds(1);
+			gc.timer().restartSeconds(1);
 			game.nextLevel();
-			publishGameEventOfType(GameEventType.LEVEL_STARTING);
+			game.publishGameEventOfType(GameEventType.LEVEL_STARTING);
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
-			if (timer.hasExpired()) {
+		public void onUpdate(GameController gc) {
+			if (gc.timer().hasExpired()) {
 				gc.changeState(READY);
 			}
 		}
+
+		@Override
+		public long idleTicks(GameController gc) {
+			return gc.timer().ticksUntil();
+		}
 	},
 
 	GHOST_DYING {
 		@Override
-		public void onEnter(GameModel game) {
-			timer.restartSeconds(1);
+		public void onEnter(GameController gc) {
+			var game = gc.game();
+			gc.timer().restartSeconds(1);
 			game.level().ifPresent(level -> {
 				level.pac().hide();
 				level.ghosts().forEach(ghost -> ghost.stopFlashing(true));
-				publishSoundEvent(GameModel.SE_GHOST_EATEN);
+				game.publishSoundEvent(GameModel.SE_GHOST_EATEN);
 			});
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
-			if (timer.hasExpired()) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
+			if (gc.timer().hasExpired()) {
 				gc.resumePreviousState();
 			} else {
 				game.level().ifPresent(level -> {
 					var steering = level.pacSteering().orElse(gc.steering());
 					steering.steer(level, level.pac());
-					level.ghosts(GhostState.EATEN, GhostState.RETURNING_TO_HOUSE, GhostState.ENTERING_HOUSE)
-							.forEach(ghost -> ghost.update(level));
-					level.world().animation(GameModel.AK_MAZE_ENERGIZER_BLINKING).ifPresent(Animated::animate);
+					int mask = level.ghostMask(GhostState.EATEN) | level.ghostMask(GhostState.RETURNING_TO_HOUSE)
+							| level.ghostMask(GhostState.ENTERING_HOUSE);
+					level.forEachGhost(mask, ghost -> ghost.update(level));
+					if (!game.isHeadless()) {
+						level.world().animation(GameModel.AK_MAZE_ENERGIZER_BLINKING).ifPresent(Animated::animate);
+					}
 				});
 			}
 		}
 
 		@Override
-		public void onExit(GameModel game) {
+		public void onExit(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
 				level.pac().show();
 				level.ghosts(GhostState.EATEN).forEach(ghost -> ghost.enterStateReturningToHouse(level));
@@ -271,39 +311,43 @@ public enum GameState implements FsmState<GameModel> {
 
 	PACMAN_DYING {
 		@Override
-		public void onEnter(GameModel game) {
+		public void onEnter(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
 				gc.getManualPacSteering().setEnabled(false);
-				timer.restartSeconds(4);
+				gc.timer().restartSeconds(4);
 				level.onPacKilled();
-				publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
+				game.publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
 			});
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
-				if (timer.atSecond(1)) {
+				if (gc.timer().atSecond(1)) {
 					level.pac().selectAndResetAnimation(GameModel.AK_PAC_DYING);
 					level.ghosts().forEach(Ghost::hide);
-				} else if (timer.atSecond(1.4)) {
+				} else if (gc.timer().atSecond(1.4)) {
 					level.pac().startAnimation();
-					publishSoundEvent(GameModel.SE_PACMAN_DEATH);
-				} else if (timer.atSecond(3.0)) {
+					game.publishSoundEvent(GameModel.SE_PACMAN_DEATH);
+				} else if (gc.timer().atSecond(3.0)) {
 					level.pac().hide();
 					game.setLives(game.lives() - 1);
 					if (game.lives() == 0) {
 						level.world().animation(GameModel.AK_MAZE_ENERGIZER_BLINKING).ifPresent(Animated::stop);
 						game.setOneLessLifeDisplayed(false);
 					}
-				} else if (timer.hasExpired()) {
+				} else if (gc.timer().hasExpired()) {
 					if (!game.hasCredit()) {
 						// end of demo level
-						GameEvents.setSoundEventsEnabled(true);
+						game.eventBus().setSoundEventsEnabled(true);
 						gc.changeState(INTRO);
 					} else {
 						gc.changeState(game.lives() == 0 ? GAME_OVER : READY);
 					}
+				} else if (game.isHeadless()) {
+					level.pac().update(level);
 				} else {
 					level.world().animation(GameModel.AK_MAZE_ENERGIZER_BLINKING).ifPresent(Animated::animate);
 					level.pac().update(level);
@@ -313,30 +357,46 @@ public enum GameState implements FsmState<GameModel> {
 		}
 
 		@Override
-		public void onExit(GameModel context) {
+		public long idleTicks(GameController gc) {
+			// in between, the dead Pac-Man and the ghosts are only animated
+			var timer = gc.timer();
+			return timer.ticksUntil(timer.secToTicks(1), timer.secToTicks(1.4), timer.secToTicks(3.0));
+		}
+
+		@Override
+		public void onExit(GameController gc) {
+			var context = gc.game();
 			context.level().ifPresent(level -> level.bonusManagement().deactivateBonus());
 		}
 	},
 
 	GAME_OVER {
 		@Override
-		public void onEnter(GameModel game) {
+		public void onEnter(GameController gc) {
+			var game = gc.game();
 			gc.getManualPacSteering().setEnabled(false);
-			timer.restartSeconds(1.2);
+			gc.timer().restartSeconds(1.2);
 			game.changeCredit(-1);
 			game.saveNewHighscore();
-			publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
+			game.publishSoundEvent(GameModel.SE_STOP_ALL_SOUNDS);
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
-			if (timer.hasExpired()) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
+			if (gc.timer().hasExpired()) {
 				gc.changeState(game.hasCredit() ? CREDIT : INTRO);
 			}
 		}
 
 		@Override
-		public void onExit(GameModel game) {
+		public long idleTicks(GameController gc) {
+			return gc.timer().ticksUntil();
+		}
+
+		@Override
+		public void onExit(GameController gc) {
+			var game = gc.game();
 			game.setPlaying(false);
 			game.removeLevel();
 		}
@@ -344,58 +404,66 @@ public enum GameState implements FsmState<GameModel> {
 
 	INTERMISSION {
 		@Override
-		public void onEnter(GameModel game) {
-			timer.restartIndefinitely();
+		public void onEnter(GameController gc) {
+			gc.timer().restartIndefinitely();
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
-			if (timer.hasExpired()) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
+			if (gc.timer().hasExpired()) {
 				gc.changeState(!game.hasCredit() || !game.isPlaying() ? INTRO : CHANGING_TO_NEXT_LEVEL);
 			}
 		}
 	},
 
 	LEVEL_TEST {
-		private int lastTestedLevel;
-
-		@Override
-		public void onEnter(GameModel game) {
-			lastTestedLevel = switch (game.variant()) {
+		/*
+		 * Enum constants are shared by all controllers of the JVM, so they must not hold any data of a controller. The
+		 * state timers are owned by the controller, the last tested level is derived from the game.
+		 */
+		private static int lastTestedLevel(GameModel game) {
+			return switch (game.variant()) {
 			case MS_PACMAN -> 18;
 			case PACMAN -> 20;
 			};
-			timer.restartIndefinitely();
+		}
+
+		@Override
+		public void onEnter(GameController gc) {
+			var game = gc.game();
+			gc.timer().restartIndefinitely();
 			game.init();
 			game.enterLevel(1);
-			publishGameEventOfType(GameEventType.LEVEL_STARTING);
+			game.publishGameEventOfType(GameEventType.LEVEL_STARTING);
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
 			game.level().ifPresent(level -> {
-				if (level.number() <= lastTestedLevel) {
-					if (timer.atSecond(0.5)) {
+				if (level.number() <= lastTestedLevel(game)) {
+					if (gc.timer().atSecond(0.5)) {
 						level.guys().forEach(Creature::show);
-					} else if (timer.atSecond(1.5)) {
+					} else if (gc.timer().atSecond(1.5)) {
 						level.bonusManagement().handleBonusReached(0);
-					} else if (timer.atSecond(2.5)) {
-						level.bonusManagement().getBonus().get().eat();
-					} else if (timer.atSecond(3.5)) {
+					} else if (gc.timer().atSecond(2.5)) {
+						level.bonusManagement().getBonus().get().eat(level);
+					} else if (gc.timer().atSecond(3.5)) {
 						level.bonusManagement().handleBonusReached(1);
-					} else if (timer.atSecond(4.5)) {
-						level.bonusManagement().getBonus().get().eat();
+					} else if (gc.timer().atSecond(4.5)) {
+						level.bonusManagement().getBonus().get().eat(level);
 						level.guys().forEach(Creature::hide);
-					} else if (timer.atSecond(6.5)) {
+					} else if (gc.timer().atSecond(6.5)) {
 						level.world().animation(GameModel.AK_MAZE_FLASHING).ifPresent(flashing -> {
 							flashing.setRepetitions(level.numFlashes);
 							flashing.restart();
 						});
-					} else if (timer.atSecond(7.0)) {
+					} else if (gc.timer().atSecond(7.0)) {
 						level.exit();
 						game.nextLevel();
-						timer.restartIndefinitely();
-						publishGameEventOfType(GameEventType.LEVEL_STARTING);
+						gc.timer().restartIndefinitely();
+						game.publishGameEventOfType(GameEventType.LEVEL_STARTING);
 					}
 					level.world().animations().ifPresent(AnimationMap::animate);
 					level.ghosts().forEach(ghost -> ghost.update(level));
@@ -407,24 +475,26 @@ public enum GameState implements FsmState<GameModel> {
 		}
 
 		@Override
-		public void onExit(GameModel game) {
+		public void onExit(GameController gc) {
+			var game = gc.game();
 			game.clearLevelCounter();
 		}
 	},
 
 	INTERMISSION_TEST {
 		@Override
-		public void onEnter(GameModel game) {
-			timer.restartIndefinitely();
+		public void onEnter(GameController gc) {
+			gc.timer().restartIndefinitely();
 		}
 
 		@Override
-		public void onUpdate(GameModel game) {
-			if (timer.hasExpired()) {
+		public void onUpdate(GameController gc) {
+			var game = gc.game();
+			if (gc.timer().hasExpired()) {
 				if (game.intermissionTestNumber < 3) {
 					++game.intermissionTestNumber;
-					timer.restartIndefinitely();
-					publishGameEventOfType(GameEventType.UNSPECIFIED_CHANGE);
+					gc.timer().restartIndefinitely();
+					game.publishGameEventOfType(GameEventType.UNSPECIFIED_CHANGE);
 				} else {
 					game.intermissionTestNumber = 1;
 					gc.changeState(INTRO);
@@ -432,15 +502,4 @@ public enum GameState implements FsmState<GameModel> {
 			}
 		}
 	};
-
-	/** The game controller hosting this state. */
-	GameController gc;
-
-	/** The timer of this state. */
-	final TickTimer timer = new TickTimer("Timer-" + name());
-
-	@Override
-	public TickTimer timer() {
-		return timer;
-	}
 }
\ No newline at end of file
@@ -0,0 +1,277 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.games.pacman.controller;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.tinylog.Logger;
+
+import de.amr.games.pacman.lib.option.Option;
+import de.amr.games.pacman.lib.option.OptionParser;
+import de.amr.games.pacman.lib.steering.LookaheadSteering;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * Runs a game controller without user interface as fast as possible. The game is made headless, so no animations are
+ * updated, see {@link GameModel#setHeadless(boolean)}. The runner inserts coins and starts games when
+ * the controller waits for user input and lets the autopilot steer Pac-Man. States that are normally terminated by the
+ * user interface (boot screen, intermission scenes) are terminated by the runner.
+ * <p>
+ * The run ends when the tick budget or the wall-clock budget is used up, whatever comes first.
+ * <p>
+ * In fast-forward mode, the ticks in which the controller only waits (e.g. in the "ready", "Pac-Man dying" or "game
+ * over" states) are skipped, see {@link GameController#skipIdleTicks(long)}. Skipped ticks count as executed ticks, so
+ * a run with the same seed and tick budget has the same outcome, just in less time.
+ * 
+ * @author Armin Reichert
+ */
+public class HeadlessRunner {
+
+	/**
+	 * Statistics of a simulation run.
+	 * 
+	 * @param ticks           number of controller ticks
+	 * @param nanos           elapsed wall-clock time in nanoseconds
+	 * @param gamesCompleted  number of games that ended with "game over"
+	 * @param levelsCompleted number of completed levels
+	 */
+	public record Statistics(long ticks, long nanos, int gamesCompleted, int levelsCompleted) {
+
+		public double seconds() {
+			return nanos / 1e9;
+		}
+
+		public double ticksPerSecond() {
+			return nanos == 0 ? 0 : ticks * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return "%d ticks in %.2f sec (%.0f ticks/sec), %d games, %d levels completed".formatted(ticks, seconds(),
+					ticksPerSecond(), gamesCompleted, levelsCompleted);
+		}
+	}
+
+	/** The wall-clock is checked only every 2^n steps. */
+	private static final int CLOCK_CHECK_MASK = 0xFF;
+
+	private final GameController gc;
+	private long tickBudget = Long.MAX_VALUE;
+	private long nanosBudget = Long.MAX_VALUE;
+	private boolean fastForward;
+	private long ticks;
+	private int gamesCompleted;
+	private int levelsCompleted;
+
+	/**
+	 * Creates a runner for the given game controller. The controller is switched to autopilot, the game is made headless
+	 * and the highscore is not saved to or loaded from the user's home directory.
+	 * 
+	 * @param gc game controller, should not have any user interface listeners attached
+	 */
+	public HeadlessRunner(GameController gc) {
+		checkNotNull(gc);
+		this.gc = gc;
+		gc.setAutoControlled(true);
+		gc.game().setHeadless(true);
+		gc.game().setHighscorePersistent(false);
+	}
+
+	public GameController gameController() {
+		return gc;
+	}
+
+	public boolean isFastForward() {
+		return fastForward;
+	}
+
+	/**
+	 * @param fastForward if idle ticks are skipped
+	 */
+	public void setFastForward(boolean fastForward) {
+		this.fastForward = fastForward;
+	}
+
+	/**
+	 * @return number of ticks executed since the statistics were reset
+	 */
+	public long ticks() {
+		return ticks;
+	}
+
+	/**
+	 * @return number of games completed since the statistics were reset
+	 */
+	public int gamesCompleted() {
+		return gamesCompleted;
+	}
+
+	/**
+	 * @return number of levels completed since the statistics were reset
+	 */
+	public int levelsCompleted() {
+		return levelsCompleted;
+	}
+
+	public void resetStatistics() {
+		ticks = 0;
+		gamesCompleted = 0;
+		levelsCompleted = 0;
+	}
+
+	/**
+	 * @param ticks maximum number of ticks a run takes
+	 */
+	public void setTickBudget(long ticks) {
+		if (ticks < 0) {
+			throw new IllegalArgumentException("Tick budget must not be negative but is " + ticks);
+		}
+		this.tickBudget = ticks;
+	}
+
+	/**
+	 * @param duration maximum wall-clock time a run takes
+	 */
+	public void setTimeBudget(Duration duration) {
+		checkNotNull(duration);
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException("Time budget must not be negative but is " + duration);
+		}
+		this.nanosBudget = duration.toNanos();
+	}
+
+	/**
+	 * Runs the game controller until the tick or time budget is used up.
+	 * 
+	 * @return statistics of this run
+	 */
+	public Statistics run() {
+		resetStatistics();
+		long start = System.nanoTime();
+		long elapsed = 0;
+		for (long steps = 0; ticks < tickBudget; ++steps) {
+			if ((steps & CLOCK_CHECK_MASK) == 0) {
+				elapsed = System.nanoTime() - start;
+				if (elapsed >= nanosBudget) {
+					break;
+				}
+			}
+			step();
+		}
+		elapsed = System.nanoTime() - start;
+		return new Statistics(ticks, elapsed, gamesCompleted, levelsCompleted);
+	}
+
+	/**
+	 * Executes a single tick. Does what a user would do in the current state and updates the game controller. In
+	 * fast-forward mode, the idle ticks before the update are skipped first.
+	 */
+	public void step() {
+		if (gc.state() == null) {
+			gc.restart(GameState.BOOT);
+		}
+		switch (gc.state()) {
+		case BOOT, INTERMISSION, INTERMISSION_TEST -> {
+			if (!gc.timer().hasExpired()) {
+				gc.terminateCurrentState();
+			}
+		}
+		case INTRO -> gc.addCredit();
+		case CREDIT -> gc.startPlaying();
+		default -> {
+			// nothing to do
+		}
+		}
+		if (fastForward) {
+			ticks += gc.skipIdleTicks(tickBudget - ticks - 1);
+		}
+		var stateBefore = gc.state();
+		gc.update();
+		++ticks;
+		if (gc.state() != stateBefore) {
+			if (gc.state() == GameState.GAME_OVER) {
+				++gamesCompleted;
+			} else if (gc.state() == GameState.LEVEL_COMPLETE) {
+				++levelsCompleted;
+			}
+		}
+	}
+
+	/**
+	 * Runs a single game controller headless. Options: <code>-variant</code> (PACMAN, MS_PACMAN), <code>-ticks</code>
+	 * (tick budget), <code>-seconds</code> (time budget), <code>-seed</code> (random seed, 0 = random),
+	 * <code>-record</code> (file where the session is recorded, see {@link SessionRecorder}), <code>-trajectory</code>
+	 * (file where the level updates are stored, see {@link TrajectoryWriter}), <code>-lookahead</code> (autopilot
+	 * searches ahead, see {@link LookaheadSteering}), <code>-fastforward</code> (skip idle ticks).
+	 * 
+	 * @param args command-line arguments
+	 */
+	public static void main(String[] args) throws IOException {
+		var optVariant = Option.option("-variant", GameVariant.PACMAN, GameVariant::valueOf);
+		var optTicks = Option.option("-ticks", Long.MAX_VALUE, Long::valueOf);
+		var optSeconds = Option.doubleOption("-seconds", 10);
+		var optSeed = Option.option("-seed", 0L, Long::valueOf);
+		var optRecord = Option.option("-record", "", String::valueOf);
+		var optTrajectory = Option.option("-trajectory", "", String::valueOf);
+		var optLookahead = Option.booleanOption("-lookahead", false);
+		var optFastForward = Option.booleanOption("-fastforward", false);
+		new OptionParser(optVariant, optTicks, optSeconds, optSeed, optRecord, optTrajectory, optLookahead,
+				optFastForward).parse(args);
+		var gc = new GameController(optVariant.getValue());
+		if (optSeed.getValue() != 0) {
+			gc.game().setRandomSeed(optSeed.getValue());
+		}
+		if (optLookahead.getValue()) {
+			gc.setAutopilot(new LookaheadSteering());
+		}
+		var runner = new HeadlessRunner(gc);
+		runner.setTickBudget(optTicks.getValue());
+		runner.setFastForward(optFastForward.getValue());
+		runner.setTimeBudget(Duration.ofMillis(Math.round(optSeconds.getValue() * 1000)));
+		SessionRecorder recorder = null;
+		if (!optRecord.getValue().isEmpty()) {
+			recorder = new SessionRecorder(gc, new FileOutputStream(optRecord.getValue()));
+		}
+		TrajectoryWriter trajectoryWriter = null;
+		if (!optTrajectory.getValue().isEmpty()) {
+			trajectoryWriter = new TrajectoryWriter(Path.of(optTrajectory.getValue()), gc.game());
+		}
+		Logger.info("Headless run (seed {}): {}", gc.game().randomSeed(), runner.run());
+		if (recorder != null) {
+			recorder.close();
+			Logger.info("Session recorded to file {}", optRecord.getValue());
+		}
+		if (trajectoryWriter != null) {
+			trajectoryWriter.close();
+			Logger.info("{} trajectory records written to file {}", trajectoryWriter.recordCount(), optTrajectory.getValue());
+		}
+	}
+}
@@ -25,13 +25,11 @@ package de.amr.games.pacman.controller;
 
 import static de.amr.games.pacman.lib.Globals.TS;
 
-import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.lib.anim.Animated;
 import de.amr.games.pacman.lib.fsm.Fsm;
 import de.amr.games.pacman.lib.fsm.FsmState;
 import de.amr.games.pacman.lib.math.Vector2f;
 import de.amr.games.pacman.lib.steering.Direction;
-import de.amr.games.pacman.lib.timer.TickTimer;
 import de.amr.games.pacman.model.GameModel;
 import de.amr.games.pacman.model.actors.Clapperboard;
 import de.amr.games.pacman.model.actors.Entity;
@@ -53,10 +51,8 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 
 	public MsPacManIntermission1(GameController gameController) {
 		super(State.values());
-		for (var state : states) {
-			state.intermission = this;
-		}
 		context = new Context(gameController);
+		context.intermission = this;
 	}
 
 	@Override
@@ -66,6 +62,7 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 
 	public static class Context {
 		public GameController gameController;
+		MsPacManIntermission1 intermission;
 		public int upperY = TS * (12);
 		public int middleY = TS * (18);
 		public int lowerY = TS * (24);
@@ -90,8 +87,8 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 		FLAP {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.resetSeconds(2);
-				timer.start();
+				ctx.intermission.timer().resetSeconds(2);
+				ctx.intermission.timer().start();
 				ctx.clapperboard = new Clapperboard("1", "THEY MEET");
 				ctx.clapperboard.setPosition(TS * (3), TS * (10));
 				ctx.clapperboard.setVisible(true);
@@ -125,15 +122,21 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.atSecond(1)) {
-					GameEvents.publishSoundEvent(GameModel.SE_START_INTERMISSION_1);
+				if (ctx.intermission.timer().atSecond(1)) {
+					ctx.gameController.game().publishSoundEvent(GameModel.SE_START_INTERMISSION_1);
 					ctx.clapperboard.animation().ifPresent(Animated::restart);
 				}
-				if (timer.hasExpired()) {
+				if (ctx.intermission.timer().hasExpired()) {
 					ctx.clapperboard.setVisible(false);
-					intermission.changeState(State.CHASED_BY_GHOSTS);
+					ctx.intermission.changeState(State.CHASED_BY_GHOSTS);
 				}
 			}
+
+			@Override
+			public long idleTicks(Context ctx) {
+				var timer = ctx.intermission.timer();
+				return timer.ticksUntil(timer.secToTicks(1));
+			}
 		},
 
 		CHASED_BY_GHOSTS {
@@ -148,7 +151,7 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 			@Override
 			public void onUpdate(Context ctx) {
 				if (ctx.inky.position().x() > TS * (30)) {
-					intermission.changeState(State.COMING_TOGETHER);
+					ctx.intermission.changeState(State.COMING_TOGETHER);
 					return;
 				}
 				ctx.pacMan.moveAndAnimate();
@@ -178,7 +181,7 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 			public void onUpdate(Context ctx) {
 				// Pac-Man and Ms. Pac-Man reach end position?
 				if (ctx.pacMan.moveDir() == Direction.UP && ctx.pacMan.position().y() < ctx.upperY) {
-					intermission.changeState(State.IN_HEAVEN);
+					ctx.intermission.changeState(State.IN_HEAVEN);
 				}
 				// Pac-Man and Ms. Pac-Man meet?
 				else if (ctx.pacMan.moveDir() == Direction.LEFT
@@ -220,8 +223,8 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 		IN_HEAVEN {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.resetSeconds(3);
-				timer.start();
+				ctx.intermission.timer().resetSeconds(3);
+				ctx.intermission.timer().start();
 				ctx.pacMan.setPixelSpeed(0);
 				ctx.pacMan.setMoveDir(Direction.LEFT);
 				ctx.pacMan.animation(GameModel.AK_PAC_MUNCHING).ifPresent(Animated::reset);
@@ -239,19 +242,10 @@ public class MsPacManIntermission1 extends Fsm<MsPacManIntermission1.State, MsPa
 
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.hasExpired()) {
+				if (ctx.intermission.timer().hasExpired()) {
 					ctx.gameController.terminateCurrentState();
 				}
 			}
 		};
-
-		// common fields of each state
-		MsPacManIntermission1 intermission;
-		TickTimer timer = new TickTimer("Timer-" + name());
-
-		@Override
-		public TickTimer timer() {
-			return timer;
-		}
 	}
 }
\ No newline at end of file
@@ -25,12 +25,10 @@ package de.amr.games.pacman.controller;
 
 import static de.amr.games.pacman.lib.Globals.TS;
 
-import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.lib.anim.Animated;
 import de.amr.games.pacman.lib.fsm.Fsm;
 import de.amr.games.pacman.lib.fsm.FsmState;
 import de.amr.games.pacman.lib.steering.Direction;
-import de.amr.games.pacman.lib.timer.TickTimer;
 import de.amr.games.pacman.model.GameModel;
 import de.amr.games.pacman.model.actors.Clapperboard;
 import de.amr.games.pacman.model.actors.Pac;
@@ -49,10 +47,8 @@ public class MsPacManIntermission2 extends Fsm<MsPacManIntermission2.State, MsPa
 
 	public MsPacManIntermission2(GameController gameController) {
 		super(State.values());
-		for (var state : State.values()) {
-			state.intermission = this;
-		}
 		this.intermissionData = new Context(gameController);
+		intermissionData.intermission = this;
 	}
 
 	@Override
@@ -62,6 +58,7 @@ public class MsPacManIntermission2 extends Fsm<MsPacManIntermission2.State, MsPa
 
 	public static class Context {
 		public GameController gameController;
+		MsPacManIntermission2 intermission;
 		public int upperY = TS * (12);
 		public int middleY = TS * (18);
 		public int lowerY = TS * (24);
@@ -79,7 +76,7 @@ public class MsPacManIntermission2 extends Fsm<MsPacManIntermission2.State, MsPa
 		FLAP {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.restartIndefinitely();
+				ctx.intermission.timer().restartIndefinitely();
 				ctx.clapperboard = new Clapperboard("2", "THE CHASE");
 				ctx.clapperboard.setPosition(TS * (3), TS * (10));
 				ctx.clapperboard.setVisible(true);
@@ -93,26 +90,32 @@ public class MsPacManIntermission2 extends Fsm<MsPacManIntermission2.State, MsPa
 
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.atSecond(1)) {
-					GameEvents.publishSoundEvent(GameModel.SE_START_INTERMISSION_2);
+				if (ctx.intermission.timer().atSecond(1)) {
+					ctx.gameController.game().publishSoundEvent(GameModel.SE_START_INTERMISSION_2);
 					ctx.clapperboard.animation().ifPresent(Animated::restart);
-				} else if (timer.atSecond(2)) {
+				} else if (ctx.intermission.timer().atSecond(2)) {
 					ctx.clapperboard.setVisible(false);
-				} else if (timer.atSecond(3)) {
-					intermission.changeState(State.CHASING);
+				} else if (ctx.intermission.timer().atSecond(3)) {
+					ctx.intermission.changeState(State.CHASING);
 				}
 			}
+
+			@Override
+			public long idleTicks(Context ctx) {
+				var timer = ctx.intermission.timer();
+				return timer.ticksUntil(timer.secToTicks(1), timer.secToTicks(2), timer.secToTicks(3));
+			}
 		},
 
 		CHASING {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.restartIndefinitely();
+				ctx.intermission.timer().restartIndefinitely();
 			}
 
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.atSecond(2.5)) {
+				if (ctx.intermission.timer().atSecond(2.5)) {
 					ctx.pacMan.setPosition(-TS * (2), ctx.upperY);
 					ctx.pacMan.setMoveDir(Direction.RIGHT);
 					ctx.pacMan.setPixelSpeed(2.0f);
@@ -121,35 +124,35 @@ public class MsPacManIntermission2 extends Fsm<MsPacManIntermission2.State, MsPa
 					ctx.msPacMan.setMoveDir(Direction.RIGHT);
 					ctx.msPacMan.setPixelSpeed(2.0f);
 					ctx.msPacMan.show();
-				} else if (timer.atSecond(7)) {
+				} else if (ctx.intermission.timer().atSecond(7)) {
 					ctx.pacMan.setPosition(TS * (36), ctx.lowerY);
 					ctx.pacMan.setMoveDir(Direction.LEFT);
 					ctx.pacMan.setPixelSpeed(2.0f);
 					ctx.msPacMan.setPosition(TS * (30), ctx.lowerY);
 					ctx.msPacMan.setMoveDir(Direction.LEFT);
 					ctx.msPacMan.setPixelSpeed(2.0f);
-				} else if (timer.atSecond(11.5)) {
+				} else if (ctx.intermission.timer().atSecond(11.5)) {
 					ctx.pacMan.setMoveDir(Direction.RIGHT);
 					ctx.pacMan.setPixelSpeed(2.0f);
 					ctx.msPacMan.setPosition(TS * (-8), ctx.middleY);
 					ctx.msPacMan.setMoveDir(Direction.RIGHT);
 					ctx.msPacMan.setPixelSpeed(2.0f);
 					ctx.pacMan.setPosition(TS * (-2), ctx.middleY);
-				} else if (timer.atSecond(15.5)) {
+				} else if (ctx.intermission.timer().atSecond(15.5)) {
 					ctx.pacMan.setPosition(TS * (42), ctx.upperY);
 					ctx.pacMan.setMoveDir(Direction.LEFT);
 					ctx.pacMan.setPixelSpeed(4.0f);
 					ctx.msPacMan.setPosition(TS * (30), ctx.upperY);
 					ctx.msPacMan.setMoveDir(Direction.LEFT);
 					ctx.msPacMan.setPixelSpeed(4.0f);
-				} else if (timer.atSecond(16.5)) {
+				} else if (ctx.intermission.timer().atSecond(16.5)) {
 					ctx.pacMan.setPosition(TS * (-2), ctx.lowerY);
 					ctx.pacMan.setMoveDir(Direction.RIGHT);
 					ctx.pacMan.setPixelSpeed(4.0f);
 					ctx.msPacMan.setPosition(TS * (-14), ctx.lowerY);
 					ctx.msPacMan.setMoveDir(Direction.RIGHT);
 					ctx.msPacMan.setPixelSpeed(4.0f);
-				} else if (timer.atSecond(21)) {
+				} else if (ctx.intermission.timer().atSecond(21)) {
 					ctx.gameController.terminateCurrentState();
 					return;
 				}
@@ -157,13 +160,5 @@ public class MsPacManIntermission2 extends Fsm<MsPacManIntermission2.State, MsPa
 				ctx.msPacMan.moveAndAnimate();
 			}
 		};
-
-		MsPacManIntermission2 intermission;
-		final TickTimer timer = new TickTimer("Timer-" + name());
-
-		@Override
-		public TickTimer timer() {
-			return timer;
-		}
 	}
 }
\ No newline at end of file
@@ -25,13 +25,11 @@ package de.amr.games.pacman.controller;
 
 import static de.amr.games.pacman.lib.Globals.TS;
 
-import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.lib.anim.Animated;
 import de.amr.games.pacman.lib.fsm.Fsm;
 import de.amr.games.pacman.lib.fsm.FsmState;
 import de.amr.games.pacman.lib.math.Vector2f;
 import de.amr.games.pacman.lib.steering.Direction;
-import de.amr.games.pacman.lib.timer.TickTimer;
 import de.amr.games.pacman.model.GameModel;
 import de.amr.games.pacman.model.actors.Clapperboard;
 import de.amr.games.pacman.model.actors.Entity;
@@ -53,10 +51,8 @@ public class MsPacManIntermission3 extends Fsm<MsPacManIntermission3.State, MsPa
 
 	public MsPacManIntermission3(GameController gameController) {
 		super(State.values());
-		for (var state : states) {
-			state.intermission = this;
-		}
 		this.intermissionData = new Context(gameController);
+		intermissionData.intermission = this;
 	}
 
 	@Override
@@ -66,6 +62,7 @@ public class MsPacManIntermission3 extends Fsm<MsPacManIntermission3.State, MsPa
 
 	public static class Context {
 		public GameController gameController;
+		MsPacManIntermission3 intermission;
 		public int groundY = TS * (24);
 		public Clapperboard clapperboard;
 		public Pac pacMan;
@@ -85,7 +82,7 @@ public class MsPacManIntermission3 extends Fsm<MsPacManIntermission3.State, MsPa
 		FLAP {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.restartIndefinitely();
+				ctx.intermission.timer().restartIndefinitely();
 				ctx.clapperboard = new Clapperboard("3", "JUNIOR");
 				ctx.clapperboard.setPosition(TS * (3), TS * (10));
 				ctx.clapperboard.setVisible(true);
@@ -98,21 +95,27 @@ public class MsPacManIntermission3 extends Fsm<MsPacManIntermission3.State, MsPa
 
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.atSecond(1)) {
-					GameEvents.publishSoundEvent(GameModel.SE_START_INTERMISSION_3);
+				if (ctx.intermission.timer().atSecond(1)) {
+					ctx.gameController.game().publishSoundEvent(GameModel.SE_START_INTERMISSION_3);
 					ctx.clapperboard.animation().ifPresent(Animated::restart);
-				} else if (timer.atSecond(2)) {
+				} else if (ctx.intermission.timer().atSecond(2)) {
 					ctx.clapperboard.setVisible(false);
-				} else if (timer.atSecond(3)) {
-					intermission.changeState(State.ACTION);
+				} else if (ctx.intermission.timer().atSecond(3)) {
+					ctx.intermission.changeState(State.ACTION);
 				}
 			}
+
+			@Override
+			public long idleTicks(Context ctx) {
+				var timer = ctx.intermission.timer();
+				return timer.ticksUntil(timer.secToTicks(1), timer.secToTicks(2), timer.secToTicks(3));
+			}
 		},
 
 		ACTION {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.restartIndefinitely();
+				ctx.intermission.timer().restartIndefinitely();
 
 				ctx.pacMan.setMoveDir(Direction.RIGHT);
 				ctx.pacMan.setPosition(TS * (3), ctx.groundY - 4);
@@ -156,7 +159,7 @@ public class MsPacManIntermission3 extends Fsm<MsPacManIntermission3.State, MsPa
 					} else {
 						ctx.bagOpen = true;
 						ctx.bag.setVelocity(Vector2f.ZERO);
-						intermission.changeState(State.DONE);
+						ctx.intermission.changeState(State.DONE);
 					}
 				}
 			}
@@ -165,25 +168,17 @@ public class MsPacManIntermission3 extends Fsm<MsPacManIntermission3.State, MsPa
 		DONE {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.resetSeconds(3);
-				timer.start();
+				ctx.intermission.timer().resetSeconds(3);
+				ctx.intermission.timer().start();
 			}
 
 			@Override
 			public void onUpdate(Context ctx) {
 				ctx.stork.move();
-				if (timer.hasExpired()) {
+				if (ctx.intermission.timer().hasExpired()) {
 					ctx.gameController.terminateCurrentState();
 				}
 			}
 		};
-
-		protected MsPacManIntermission3 intermission;
-		protected final TickTimer timer = new TickTimer("Timer-" + name());
-
-		@Override
-		public TickTimer timer() {
-			return timer;
-		}
 	}
 }
\ No newline at end of file
@@ -55,6 +55,7 @@ public class MsPacManIntro extends Fsm<MsPacManIntro.State, MsPacManIntro.Contex
 	public static class Context {
 		//@formatter:off
 		public GameController gameController;
+		MsPacManIntro intro;
 		public float          speed                = 1.1f;
 		public int            stopY                = TS * 11 + 1;
 		public int            stopX                = TS * 6 - 4; 
@@ -121,8 +122,8 @@ public class MsPacManIntro extends Fsm<MsPacManIntro.State, MsPacManIntro.Contex
 			@Override
 			public void onUpdate(MsPacManIntro.Context ctx) {
 				ctx.marqueeTimer.advance();
-				if (timer.atSecond(1)) {
-					intro.changeState(State.GHOSTS);
+				if (ctx.intro.timer().atSecond(1)) {
+					ctx.intro.changeState(State.GHOSTS);
 				}
 			}
 		},
@@ -155,7 +156,7 @@ public class MsPacManIntro extends Fsm<MsPacManIntro.State, MsPacManIntro.Contex
 						ghost.setPixelSpeed(0);
 						ghost.animation().ifPresent(Animated::reset);
 						if (ctx.ghostIndex == 3) {
-							intro.changeState(State.MSPACMAN);
+							ctx.intro.changeState(State.MSPACMAN);
 						} else {
 							++ctx.ghostIndex;
 						}
@@ -175,7 +176,7 @@ public class MsPacManIntro extends Fsm<MsPacManIntro.State, MsPacManIntro.Contex
 				if (ctx.msPacMan.position().x() <= ctx.stopMsPacX) {
 					ctx.msPacMan.setPixelSpeed(0);
 					ctx.msPacMan.animation().ifPresent(Animated::reset);
-					intro.changeState(State.READY_TO_PLAY);
+					ctx.intro.changeState(State.READY_TO_PLAY);
 				}
 			}
 		},
@@ -184,32 +185,22 @@ public class MsPacManIntro extends Fsm<MsPacManIntro.State, MsPacManIntro.Contex
 			@Override
 			public void onUpdate(MsPacManIntro.Context ctx) {
 				ctx.marqueeTimer.advance();
-				if (timer.atSecond(2.0) && !ctx.gameController.game().hasCredit()) {
+				if (ctx.intro.timer().atSecond(2.0) && !ctx.gameController.game().hasCredit()) {
 					ctx.gameController.changeState(GameState.READY);
 					// go into demo mode
-				} else if (timer.atSecond(5)) {
+				} else if (ctx.intro.timer().atSecond(5)) {
 					ctx.gameController.changeState(GameState.CREDIT);
 				}
 			}
 		};
-
-		MsPacManIntro intro;
-		final TickTimer timer = new TickTimer("Timer-" + name());
-
-		@Override
-		public TickTimer timer() {
-			return timer;
-		}
 	}
 
 	private final Context introData;
 
 	public MsPacManIntro(GameController gameController) {
 		super(State.values());
-		for (var state : states) {
-			state.intro = this;
-		}
 		introData = new Context(gameController);
+		introData.intro = this;
 	}
 
 	@Override
@@ -32,7 +32,6 @@ import de.amr.games.pacman.lib.anim.Pulse;
 import de.amr.games.pacman.lib.fsm.Fsm;
 import de.amr.games.pacman.lib.fsm.FsmState;
 import de.amr.games.pacman.lib.steering.Direction;
-import de.amr.games.pacman.lib.timer.TickTimer;
 import de.amr.games.pacman.model.GameModel;
 import de.amr.games.pacman.model.actors.Ghost;
 import de.amr.games.pacman.model.actors.GhostState;
@@ -63,6 +62,7 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 
 	public static class Context {
 		public GameController gameController;
+		PacManIntro controller;
 		public float chaseSpeed = 1.1f;
 		public int leftTileX = 4;
 		public Pulse blinking = new Pulse(10, true);
@@ -91,33 +91,46 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 		START {
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.tick() == 2) {
+				if (ctx.controller.timer().tick() == 2) {
 					ctx.creditVisible = true;
-				} else if (timer.tick() == 3) {
+				} else if (ctx.controller.timer().tick() == 3) {
 					ctx.titleVisible = true;
-				} else if (timer.atSecond(1)) {
-					controller.changeState(State.PRESENTING_GHOSTS);
+				} else if (ctx.controller.timer().atSecond(1)) {
+					ctx.controller.changeState(State.PRESENTING_GHOSTS);
 				}
 			}
+
+			@Override
+			public long idleTicks(Context ctx) {
+				var timer = ctx.controller.timer();
+				return timer.ticksUntil(2, 3, timer.secToTicks(1));
+			}
 		},
 
 		PRESENTING_GHOSTS {
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.atSecond(0)) {
+				if (ctx.controller.timer().atSecond(0)) {
 					ctx.ghostInfo[ctx.ghostIndex].pictureVisible = true;
-				} else if (timer.atSecond(1.0)) {
+				} else if (ctx.controller.timer().atSecond(1.0)) {
 					ctx.ghostInfo[ctx.ghostIndex].characterVisible = true;
-				} else if (timer.atSecond(1.5)) {
+				} else if (ctx.controller.timer().atSecond(1.5)) {
 					ctx.ghostInfo[ctx.ghostIndex].nicknameVisible = true;
-				} else if (timer.atSecond(2.0)) {
+				} else if (ctx.controller.timer().atSecond(2.0)) {
 					if (++ctx.ghostIndex < 4) {
-						timer.resetIndefinitely();
+						ctx.controller.timer().resetIndefinitely();
 					}
-				} else if (timer.atSecond(2.5)) {
-					controller.changeState(State.SHOWING_POINTS);
+				} else if (ctx.controller.timer().atSecond(2.5)) {
+					ctx.controller.changeState(State.SHOWING_POINTS);
 				}
 			}
+
+			@Override
+			public long idleTicks(Context ctx) {
+				var timer = ctx.controller.timer();
+				return timer.ticksUntil(timer.secToTicks(0), timer.secToTicks(1), timer.secToTicks(1.5), timer.secToTicks(2),
+						timer.secToTicks(2.5));
+			}
 		},
 
 		SHOWING_POINTS {
@@ -128,16 +141,22 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.atSecond(1)) {
-					controller.changeState(State.CHASING_PAC);
+				if (ctx.controller.timer().atSecond(1)) {
+					ctx.controller.changeState(State.CHASING_PAC);
 				}
 			}
+
+			@Override
+			public long idleTicks(Context ctx) {
+				var timer = ctx.controller.timer();
+				return timer.ticksUntil(timer.secToTicks(1));
+			}
 		},
 
 		CHASING_PAC {
 			@Override
 			public void onEnter(Context ctx) {
-				timer.restartIndefinitely();
+				ctx.controller.timer().restartIndefinitely();
 				ctx.pacMan.setPosition(TS * (36), TS * (20));
 				ctx.pacMan.setMoveDir(Direction.LEFT);
 				ctx.pacMan.setPixelSpeed(ctx.chaseSpeed);
@@ -157,7 +176,7 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 			public void onUpdate(Context ctx) {
 				// Pac-Man reaches the energizer
 				if (ctx.pacMan.position().x() <= TS * (ctx.leftTileX)) {
-					controller.changeState(State.CHASING_GHOSTS);
+					ctx.controller.changeState(State.CHASING_GHOSTS);
 				}
 				// ghosts already reverse direction before Pac-man eats the energizer and turns right!
 				else if (ctx.pacMan.position().x() <= TS * (ctx.leftTileX) + 4) {
@@ -173,7 +192,7 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 				// keep moving
 				else {
 					// wait 1 sec before blinking
-					if (timer.atSecond(1)) {
+					if (ctx.controller.timer().atSecond(1)) {
 						ctx.blinking.start();
 					}
 					ctx.blinking.animate();
@@ -187,8 +206,8 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 
 			@Override
 			public void onEnter(Context ctx) {
-				timer.restartIndefinitely();
-				ctx.ghostKilledTime = timer.tick();
+				ctx.controller.timer().restartIndefinitely();
+				ctx.ghostKilledTime = ctx.controller.timer().tick();
 				ctx.pacMan.setMoveDir(Direction.RIGHT);
 				ctx.pacMan.setPixelSpeed(ctx.chaseSpeed);
 			}
@@ -197,7 +216,7 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 			public void onUpdate(Context ctx) {
 				if (ctx.ghosts().allMatch(ghost -> ghost.is(GhostState.EATEN))) {
 					ctx.pacMan.hide();
-					controller.changeState(READY_TO_PLAY);
+					ctx.controller.changeState(READY_TO_PLAY);
 					return;
 				}
 				var nextVictim = ctx.ghosts()//
@@ -206,7 +225,7 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 						.findFirst();
 				nextVictim.ifPresent(victim -> {
 					victim.setKilledIndex(victim.id());
-					ctx.ghostKilledTime = timer.tick();
+					ctx.ghostKilledTime = ctx.controller.timer().tick();
 					victim.enterStateEaten();
 					ctx.pacMan.hide();
 					ctx.pacMan.setPixelSpeed(0);
@@ -217,7 +236,7 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 				});
 
 				// After ??? sec, Pac-Man and the surviving ghosts get visible again and move on
-				if (timer.tick() - ctx.ghostKilledTime == timer.secToTicks(0.9)) {
+				if (ctx.controller.timer().tick() - ctx.ghostKilledTime == ctx.controller.timer().secToTicks(0.9)) {
 					ctx.pacMan.show();
 					ctx.pacMan.setPixelSpeed(ctx.chaseSpeed);
 					ctx.ghosts().forEach(ghost -> {
@@ -239,36 +258,32 @@ public class PacManIntro extends Fsm<PacManIntro.State, PacManIntro.Context> {
 		READY_TO_PLAY {
 			@Override
 			public void onUpdate(Context ctx) {
-				if (timer.atSecond(0.75)) {
+				if (ctx.controller.timer().atSecond(0.75)) {
 					ctx.ghostInfo[3].ghost.hide();
 					if (!ctx.gameController.game().hasCredit()) {
 						ctx.gameController.changeState(GameState.READY);
 						return;
 					}
 				}
-				if (timer.atSecond(5)) {
+				if (ctx.controller.timer().atSecond(5)) {
 					ctx.gameController.changeState(GameState.CREDIT);
 				}
 			}
-		};
 
-		PacManIntro controller;
-		final TickTimer timer = new TickTimer("Timer-" + name());
-
-		@Override
-		public TickTimer timer() {
-			return timer;
-		}
+			@Override
+			public long idleTicks(Context ctx) {
+				var timer = ctx.controller.timer();
+				return timer.ticksUntil(timer.secToTicks(0.75), timer.secToTicks(5));
+			}
+		};
 	}
 
 	private final Context introData;
 
 	public PacManIntro(GameController gameController) {
 		super(State.values());
-		for (var state : states) {
-			state.controller = this;
-		}
 		introData = new Context(gameController);
+		introData.controller = this;
 	}
 
 	@Override
@@ -0,0 +1,219 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.controller;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.Score;
+import de.amr.games.pacman.model.actors.Creature;
+
+/**
+ * Records the input of a game session such that it can be replayed by a {@link SessionReplayer}.
+ * <p>
+ * A game is deterministic given its random seed and its input. The input consists of the commands sent to the game
+ * controller between ticks (coin inserted, game started, state terminated etc.) and the changes of Pac-Man's wish
+ * direction made by the steering (user or autopilot). Only changes are recorded, so a log takes a few bytes per second
+ * of play.
+ * <p>
+ * Log format (big-endian):
+ * <ul>
+ * <li>Header: magic, version, game variant, random seed, random generator state, immunity, credit
+ * <li>Records: tick delta to the previous record (variable length), record code, payload
+ * <li>End record: number of ticks, score, level number and lives at the end of the recording
+ * </ul>
+ * Commands must be sent between ticks, not from inside a game controller update.
+ * 
+ * @author Armin Reichert
+ */
+public class SessionRecorder implements AutoCloseable {
+
+	/**
+	 * Result of a recorded or replayed session. Replaying a session must give the same outcome as recording it.
+	 * 
+	 * @param ticks       number of ticks
+	 * @param score       points scored in the current game
+	 * @param levelNumber number of the current level (0 if no level exists)
+	 * @param lives       number of lives
+	 */
+	public record Outcome(long ticks, int score, int levelNumber, int lives) {
+
+		public static Outcome of(GameController gc, long ticks) {
+			var game = gc.game();
+			return new Outcome(ticks, game.score().map(Score::points).orElse(0),
+					game.level().map(GameLevel::number).orElse(0), game.lives());
+		}
+	}
+
+	static final int MAGIC = 0x504D5243; // "PMRC"
+	static final short VERSION = 1;
+
+	// record codes 0-3 are steering changes (direction ordinal)
+	static final byte RESTART = 16;
+	static final byte TERMINATE_STATE = 17;
+	static final byte ADD_CREDIT = 18;
+	static final byte START_PLAYING = 19;
+	static final byte START_CUTSCENES_TEST = 20;
+	static final byte SELECT_VARIANT = 21;
+	static final byte CHEAT_EAT_ALL_PELLETS = 22;
+	static final byte CHEAT_KILL_ALL_EATABLE_GHOSTS = 23;
+	static final byte CHEAT_ENTER_NEXT_LEVEL = 24;
+	static final byte END = 127;
+
+	private final GameController gc;
+	private final DataOutputStream out;
+	private final Steering recordingSteering = this::steer;
+	private Steering steering = Steering.NONE;
+	private long tick;
+	private long lastRecordTick;
+	private boolean closed;
+
+	/**
+	 * Starts recording the session of the given game controller. Recording must start before the controller is updated
+	 * the first time.
+	 * 
+	 * @param gc  game controller
+	 * @param out stream where the log is written to, closed when the recording is closed
+	 */
+	public SessionRecorder(GameController gc, OutputStream out) {
+		checkNotNull(gc);
+		checkNotNull(out);
+		if (gc.state() != null) {
+			throw new IllegalStateException("Recording must start before the game controller is started");
+		}
+		this.gc = gc;
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		var game = gc.game();
+		try {
+			this.out.writeInt(MAGIC);
+			this.out.writeShort(VERSION);
+			this.out.writeByte(game.variant().ordinal());
+			this.out.writeLong(game.randomSeed());
+			this.out.writeLong(game.random().state());
+			this.out.writeBoolean(game.isImmune());
+			this.out.writeInt(game.credit());
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+		gc.setRecorder(this);
+	}
+
+	/**
+	 * @return number of ticks recorded so far
+	 */
+	public long tick() {
+		return tick;
+	}
+
+	/**
+	 * Writes the end record with the current outcome, detaches this recorder from the game controller and closes the
+	 * log.
+	 */
+	@Override
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		gc.setRecorder(null);
+		var outcome = Outcome.of(gc, tick);
+		try {
+			writeRecord(END);
+			out.writeLong(outcome.ticks());
+			out.writeInt(outcome.score());
+			out.writeInt(outcome.levelNumber());
+			out.writeInt(outcome.lives());
+			out.close();
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	void endTick() {
+		++tick;
+	}
+
+	void command(byte code) {
+		try {
+			writeRecord(code);
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	void restart(GameState state) {
+		try {
+			writeRecord(RESTART);
+			out.writeByte(state.ordinal());
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	void selectVariant(GameModel game) {
+		try {
+			writeRecord(SELECT_VARIANT);
+			out.writeByte(game.variant().ordinal());
+			out.writeLong(game.randomSeed());
+			out.writeLong(game.random().state());
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	/**
+	 * @param steering the steering currently used by the game controller
+	 * @return steering that records the changes of the wish direction made by the given steering
+	 */
+	Steering recording(Steering steering) {
+		this.steering = steering;
+		return recordingSteering;
+	}
+
+	private void steer(GameLevel level, Creature guy) {
+		var wishDirBefore = guy.wishDir();
+		steering.steer(level, guy);
+		if (guy.wishDir() != wishDirBefore) {
+			command((byte) guy.wishDir().ordinal());
+		}
+	}
+
+	private void writeRecord(byte code) throws IOException {
+		long delta = tick - lastRecordTick;
+		lastRecordTick = tick;
+		while ((delta & ~0x7FL) != 0) {
+			out.writeByte((int) (delta & 0x7F) | 0x80);
+			delta >>>= 7;
+		}
+		out.writeByte((int) delta);
+		out.writeByte(code);
+	}
+}
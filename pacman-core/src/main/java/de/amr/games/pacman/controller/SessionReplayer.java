@@ -0,0 +1,219 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.controller;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+import org.tinylog.Logger;
+
+import de.amr.games.pacman.controller.SessionRecorder.Outcome;
+import de.amr.games.pacman.lib.option.Option;
+import de.amr.games.pacman.lib.option.OptionParser;
+import de.amr.games.pacman.lib.steering.Direction;
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.GameVariant;
+import de.amr.games.pacman.model.actors.Creature;
+
+/**
+ * Replays a session recorded by a {@link SessionRecorder} on a headless game controller as fast as possible.
+ * <p>
+ * The replayer creates a game controller with the recorded variant, seed and settings, sends the recorded commands at
+ * the recorded ticks and lets Pac-Man's wish direction change as recorded. The outcome of the replay must be identical
+ * to the recorded outcome.
+ * 
+ * @author Armin Reichert
+ */
+public class SessionReplayer {
+
+	private static final GameVariant[] VARIANTS = GameVariant.values();
+	private static final GameState[] STATES = GameState.values();
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final DataInputStream in;
+	private final GameController gc;
+	private long tick;
+	private long nextRecordTick;
+	private byte nextRecordCode;
+	private Outcome recordedOutcome;
+
+	/**
+	 * Reads the log header and creates the game controller for the replay.
+	 * 
+	 * @param in stream containing the log, closed when the replay is finished
+	 */
+	public SessionReplayer(InputStream in) {
+		checkNotNull(in);
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		try {
+			if (this.in.readInt() != SessionRecorder.MAGIC) {
+				throw new IllegalArgumentException("Not a session log");
+			}
+			short version = this.in.readShort();
+			if (version != SessionRecorder.VERSION) {
+				throw new IllegalArgumentException("Unsupported session log version: %d".formatted(version));
+			}
+			gc = new GameController(VARIANTS[this.in.readByte()]);
+			var game = gc.game();
+			game.setHighscorePersistent(false);
+			game.setRandomSeed(this.in.readLong());
+			game.random().setState(this.in.readLong());
+			game.setImmune(this.in.readBoolean());
+			game.setCredit(this.in.readInt());
+			gc.setAutoControlled(false);
+			gc.setManualPacSteering(this::steer);
+			readRecordHeader();
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+	}
+
+	public GameController gameController() {
+		return gc;
+	}
+
+	/**
+	 * @return number of ticks replayed so far
+	 */
+	public long tick() {
+		return tick;
+	}
+
+	/**
+	 * @return the outcome stored in the log, available after the replay has finished
+	 */
+	public Outcome recordedOutcome() {
+		if (recordedOutcome == null) {
+			throw new IllegalStateException("Replay has not finished yet");
+		}
+		return recordedOutcome;
+	}
+
+	/**
+	 * Replays the complete session.
+	 * 
+	 * @return outcome of the replay
+	 */
+	public Outcome replay() {
+		try {
+			while (recordedOutcome == null) {
+				while (nextRecordTick == tick && isCommand(nextRecordCode)) {
+					executeCommand(nextRecordCode);
+					readRecordHeader();
+				}
+				if (nextRecordTick < tick) {
+					throw new IllegalStateException(
+							"Replay diverged at tick %d, record from tick %d not consumed".formatted(tick, nextRecordTick));
+				}
+				if (nextRecordCode == SessionRecorder.END && nextRecordTick == tick) {
+					recordedOutcome = new Outcome(in.readLong(), in.readInt(), in.readInt(), in.readInt());
+					in.close();
+				} else {
+					gc.update();
+					++tick;
+				}
+			}
+		} catch (IOException x) {
+			throw new UncheckedIOException(x);
+		}
+		return Outcome.of(gc, tick);
+	}
+
+	private void steer(GameLevel level, Creature guy) {
+		if (nextRecordTick == tick && nextRecordCode < DIRECTIONS.length) {
+			guy.setWishDir(DIRECTIONS[nextRecordCode]);
+			try {
+				readRecordHeader();
+			} catch (IOException x) {
+				throw new UncheckedIOException(x);
+			}
+		}
+	}
+
+	private void executeCommand(byte code) throws IOException {
+		switch (code) {
+		case SessionRecorder.RESTART -> gc.restart(STATES[in.readByte()]);
+		case SessionRecorder.TERMINATE_STATE -> gc.terminateCurrentState();
+		case SessionRecorder.ADD_CREDIT -> gc.addCredit();
+		case SessionRecorder.START_PLAYING -> gc.startPlaying();
+		case SessionRecorder.START_CUTSCENES_TEST -> gc.startCutscenesTest();
+		case SessionRecorder.SELECT_VARIANT -> {
+			var variant = VARIANTS[in.readByte()];
+			long seed = in.readLong();
+			long randomState = in.readLong();
+			gc.selectGameVariant(variant);
+			gc.game().setHighscorePersistent(false);
+			gc.game().setRandomSeed(seed);
+			gc.game().random().setState(randomState);
+		}
+		case SessionRecorder.CHEAT_EAT_ALL_PELLETS -> gc.cheatEatAllPellets();
+		case SessionRecorder.CHEAT_KILL_ALL_EATABLE_GHOSTS -> gc.cheatKillAllEatableGhosts();
+		case SessionRecorder.CHEAT_ENTER_NEXT_LEVEL -> gc.cheatEnterNextLevel();
+		default -> throw new IllegalStateException(
+				"Replay diverged at tick %d, unexpected record code %d".formatted(tick, code));
+		}
+	}
+
+	private static boolean isCommand(byte code) {
+		return code >= SessionRecorder.RESTART && code != SessionRecorder.END;
+	}
+
+	private void readRecordHeader() throws IOException {
+		long delta = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			delta |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		nextRecordTick += delta;
+		nextRecordCode = in.readByte();
+	}
+
+	/**
+	 * Replays a session log and compares the outcome with the recorded outcome. Option: <code>-file</code> (log file).
+	 * 
+	 * @param args command-line arguments
+	 */
+	public static void main(String[] args) throws IOException {
+		var optFile = Option.option("-file", "session.pmrc", String::valueOf);
+		new OptionParser(optFile).parse(args);
+		try (var in = new FileInputStream(optFile.getValue())) {
+			var replayer = new SessionReplayer(in);
+			long start = System.nanoTime();
+			var outcome = replayer.replay();
+			double seconds = (System.nanoTime() - start) / 1e9;
+			Logger.info("Replayed {} ticks in {} sec, outcome {}, recorded {}: {}", outcome.ticks(),
+					"%.2f".formatted(seconds), outcome, replayer.recordedOutcome(),
+					outcome.equals(replayer.recordedOutcome()) ? "identical" : "DIFFERENT");
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.games.pacman.controller;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+
+import org.tinylog.Logger;
+
+import de.amr.games.pacman.lib.option.Option;
+import de.amr.games.pacman.lib.option.OptionParser;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * Runs any number of independent games concurrently, each game with its own game controller and autopilot. The games
+ * are distributed over the worker threads of a fork-join pool. Each worker advances the games of its shard in
+ * round-robin fashion, a slice of ticks at a time, until the budget is used up.
+ * <p>
+ * For maximum throughput, the log level should be set to "warn" or higher.
+ * 
+ * @author Armin Reichert
+ */
+public class SimulationEngine {
+
+	/**
+	 * Aggregated statistics of a simulation run.
+	 * 
+	 * @param numGames        number of simulated games
+	 * @param ticks           total number of ticks over all games
+	 * @param nanos           elapsed wall-clock time in nanoseconds
+	 * @param gamesCompleted  total number of games that ended with "game over"
+	 * @param levelsCompleted total number of completed levels
+	 */
+	public record Statistics(int numGames, long ticks, long nanos, int gamesCompleted, int levelsCompleted) {
+
+		public double seconds() {
+			return nanos / 1e9;
+		}
+
+		public double ticksPerSecond() {
+			return nanos == 0 ? 0 : ticks * 1e9 / nanos;
+		}
+
+		public double gamesPerSecond() {
+			return nanos == 0 ? 0 : gamesCompleted * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return "%d games: %d ticks in %.2f sec (%.0f ticks/sec), %d games completed (%.2f games/sec), %d levels completed"
+					.formatted(numGames, ticks, seconds(), ticksPerSecond(), gamesCompleted, gamesPerSecond(), levelsCompleted);
+		}
+	}
+
+	/** Number of ticks a game is advanced before the worker continues with the next game of its shard. */
+	private static final int SLICE_TICKS = 1024;
+
+	private final List<HeadlessRunner> runners = new ArrayList<>();
+	private final int parallelism;
+	private long tickBudget = Long.MAX_VALUE;
+	private long nanosBudget = Long.MAX_VALUE;
+
+	/**
+	 * Creates an engine running the given number of games of the given variant, using all available processors.
+	 * 
+	 * @param numGames number of games
+	 * @param variant  game variant
+	 */
+	public SimulationEngine(int numGames, GameVariant variant) {
+		this(numGames, i -> new GameController(variant), Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * @param numGames    number of games
+	 * @param gcFactory   creates the game controller for the game with the given index
+	 * @param parallelism number of worker threads
+	 */
+	public SimulationEngine(int numGames, IntFunction<GameController> gcFactory, int parallelism) {
+		checkNotNull(gcFactory);
+		if (numGames <= 0) {
+			throw new IllegalArgumentException("Number of games must be positive but is " + numGames);
+		}
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("Parallelism must be positive but is " + parallelism);
+		}
+		this.parallelism = Math.min(parallelism, numGames);
+		for (int i = 0; i < numGames; ++i) {
+			runners.add(new HeadlessRunner(gcFactory.apply(i)));
+		}
+	}
+
+	/**
+	 * @return the runners of the simulated games
+	 */
+	public List<HeadlessRunner> runners() {
+		return List.copyOf(runners);
+	}
+
+	/**
+	 * @param ticks maximum number of ticks each game is advanced
+	 */
+	public void setTickBudget(long ticks) {
+		if (ticks < 0) {
+			throw new IllegalArgumentException("Tick budget must not be negative but is " + ticks);
+		}
+		this.tickBudget = ticks;
+	}
+
+	/**
+	 * @param duration maximum wall-clock time of a run
+	 */
+	public void setTimeBudget(Duration duration) {
+		checkNotNull(duration);
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException("Time budget must not be negative but is " + duration);
+		}
+		this.nanosBudget = duration.toNanos();
+	}
+
+	/**
+	 * Runs all games until each game has used up its tick budget or the time budget is used up.
+	 * 
+	 * @return aggregated statistics of this run
+	 */
+	public Statistics run() {
+		runners.forEach(HeadlessRunner::resetStatistics);
+		var shards = new ArrayList<Callable<Void>>(parallelism);
+		long start = System.nanoTime();
+		long deadline = nanosBudget == Long.MAX_VALUE ? Long.MAX_VALUE : start + nanosBudget;
+		for (int i = 0; i < parallelism; ++i) {
+			var shard = new ArrayList<HeadlessRunner>();
+			for (int j = i; j < runners.size(); j += parallelism) {
+				shard.add(runners.get(j));
+			}
+			shards.add(() -> {
+				runShard(shard, deadline);
+				return null;
+			});
+		}
+		var pool = new ForkJoinPool(parallelism);
+		try {
+			for (var future : pool.invokeAll(shards)) {
+				future.get();
+			}
+		} catch (InterruptedException x) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Simulation interrupted", x);
+		} catch (ExecutionException x) {
+			throw new IllegalStateException("Simulation failed", x.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		long elapsed = System.nanoTime() - start;
+		long ticks = 0;
+		int gamesCompleted = 0;
+		int levelsCompleted = 0;
+		for (var runner : runners) {
+			ticks += runner.ticks();
+			gamesCompleted += runner.gamesCompleted();
+			levelsCompleted += runner.levelsCompleted();
+		}
+		return new Statistics(runners.size(), ticks, elapsed, gamesCompleted, levelsCompleted);
+	}
+
+	private void runShard(List<HeadlessRunner> shard, long deadline) {
+		boolean busy = true;
+		while (busy && System.nanoTime() < deadline) {
+			busy = false;
+			for (var runner : shard) {
+				long slice = Math.min(SLICE_TICKS, tickBudget - runner.ticks());
+				for (long t = 0; t < slice; ++t) {
+					runner.step();
+				}
+				busy |= slice > 0;
+			}
+		}
+	}
+
+	/**
+	 * Runs games in parallel. Options: <code>-games</code> (number of games), <code>-threads</code> (number of worker
+	 * threads), <code>-variant</code> (PACMAN, MS_PACMAN), <code>-ticks</code> (tick budget per game),
+	 * <code>-seconds</code> (time budget), <code>-seed</code> (random seed of the first game, game i gets seed + i, 0 =
+	 * random).
+	 * 
+	 * @param args command-line arguments
+	 */
+	public static void main(String[] args) {
+		var optGames = Option.integerOption("-games", 100);
+		var optThreads = Option.integerOption("-threads", Runtime.getRuntime().availableProcessors());
+		var optVariant = Option.option("-variant", GameVariant.PACMAN, GameVariant::valueOf);
+		var optTicks = Option.option("-ticks", Long.MAX_VALUE, Long::valueOf);
+		var optSeconds = Option.doubleOption("-seconds", 10);
+		var optSeed = Option.option("-seed", 0L, Long::valueOf);
+		new OptionParser(optGames, optThreads, optVariant, optTicks, optSeconds, optSeed).parse(args);
+		var variant = optVariant.getValue();
+		long seed = optSeed.getValue();
+		var engine = new SimulationEngine(optGames.getValue(), i -> {
+			var gc = new GameController(variant);
+			if (seed != 0) {
+				gc.game().setRandomSeed(seed + i);
+			}
+			return gc;
+		}, optThreads.getValue());
+		engine.setTickBudget(optTicks.getValue());
+		engine.setTimeBudget(Duration.ofMillis(Math.round(optSeconds.getValue() * 1000)));
+		Logger.info("Simulation: {}", engine.run());
+	}
+}
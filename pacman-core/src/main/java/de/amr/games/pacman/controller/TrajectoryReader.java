@@ -0,0 +1,153 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.controller;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * Reads a trajectory file written by {@link TrajectoryWriter}. The file is mapped read-only (in segments of less than
+ * 2 GB for larger files) and the records are accessed in place through a {@link TrajectoryRecord} view, so iterating
+ * over millions of records neither copies nor allocates.
+ * 
+ * @author Armin Reichert
+ */
+public class TrajectoryReader implements AutoCloseable {
+
+	private static final int SEGMENT_RECORDS = (Integer.MAX_VALUE / TrajectoryRecord.SIZE) & ~0xFFFF;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer[] segments;
+	private final long numRecords;
+	private final GameVariant variant;
+	private final long seed;
+	private final TrajectoryRecord cursor = new TrajectoryRecord();
+
+	/**
+	 * @param file trajectory file
+	 * @throws IOException              if the file cannot be opened or mapped
+	 * @throws IllegalArgumentException if the file is not a trajectory file of a supported version
+	 */
+	public TrajectoryReader(Path file) throws IOException {
+		checkNotNull(file);
+		channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long size = channel.size();
+			if (size < TrajectoryWriter.HEADER_SIZE) {
+				throw new IllegalArgumentException("Not a trajectory file: %s".formatted(file));
+			}
+			var header = channel.map(MapMode.READ_ONLY, 0, TrajectoryWriter.HEADER_SIZE);
+			if (header.getInt() != TrajectoryWriter.MAGIC) {
+				throw new IllegalArgumentException("Not a trajectory file: %s".formatted(file));
+			}
+			int version = header.getShort();
+			if (version != TrajectoryWriter.VERSION) {
+				throw new IllegalArgumentException("Unsupported trajectory file version: %d".formatted(version));
+			}
+			int recordSize = header.getShort();
+			if (recordSize != TrajectoryRecord.SIZE) {
+				throw new IllegalArgumentException("Unsupported trajectory record size: %d".formatted(recordSize));
+			}
+			variant = GameVariant.values()[header.get()];
+			header.position(header.position() + 3);
+			seed = header.getLong();
+			numRecords = header.getLong(TrajectoryWriter.HEADER_RECORD_COUNT);
+			if (numRecords < 0 || numRecords > (size - TrajectoryWriter.HEADER_SIZE) / TrajectoryRecord.SIZE) {
+				throw new IllegalArgumentException(
+						"Trajectory file %s is too short for %d records".formatted(file, numRecords));
+			}
+			int numSegments = (int) ((numRecords + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS);
+			segments = new MappedByteBuffer[numSegments];
+			for (int i = 0; i < numSegments; ++i) {
+				long first = (long) i * SEGMENT_RECORDS;
+				long count = Math.min(SEGMENT_RECORDS, numRecords - first);
+				segments[i] = channel.map(MapMode.READ_ONLY, TrajectoryWriter.HEADER_SIZE + first * TrajectoryRecord.SIZE,
+						count * TrajectoryRecord.SIZE);
+			}
+		} catch (IOException | RuntimeException x) {
+			channel.close();
+			throw x;
+		}
+	}
+
+	public GameVariant variant() {
+		return variant;
+	}
+
+	/**
+	 * @return random seed of the recorded game
+	 */
+	public long seed() {
+		return seed;
+	}
+
+	public long numRecords() {
+		return numRecords;
+	}
+
+	/**
+	 * Returns a view of the record with the given index. The view is shared, it is moved by the next call of this method
+	 * or of {@link #forEach(Consumer)}.
+	 * 
+	 * @param index record index
+	 * @return view of the record
+	 */
+	public TrajectoryRecord record(long index) {
+		if (index < 0 || index >= numRecords) {
+			throw new IndexOutOfBoundsException("Illegal record index: %d, number of records: %d".formatted(index, numRecords));
+		}
+		cursor.moveTo(segments[(int) (index / SEGMENT_RECORDS)], (int) (index % SEGMENT_RECORDS) * TrajectoryRecord.SIZE);
+		return cursor;
+	}
+
+	/**
+	 * Passes a view of each record in file order to the given consumer. The view is shared and must not be stored.
+	 * 
+	 * @param consumer record consumer
+	 */
+	public void forEach(Consumer<TrajectoryRecord> consumer) {
+		checkNotNull(consumer);
+		for (var segment : segments) {
+			int end = segment.capacity();
+			for (int offset = 0; offset < end; offset += TrajectoryRecord.SIZE) {
+				cursor.moveTo(segment, offset);
+				consumer.accept(cursor);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,209 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.controller;
+
+import java.nio.ByteBuffer;
+
+import de.amr.games.pacman.lib.steering.Direction;
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.actors.Ghost;
+import de.amr.games.pacman.model.actors.GhostState;
+
+/**
+ * View of a single fixed-width trajectory record inside a buffer. A record describes the state of a level after an
+ * update. The view is a flyweight: it is moved over the records of a buffer and reads its values directly from the
+ * buffer, nothing is deserialized.
+ * <p>
+ * Layout (32 bytes, big-endian):
+ * 
+ * <pre>
+ *  0 int   score
+ *  4 short level number
+ *  6 short uneaten food count
+ *  8 byte  Pac tile x, tile y, move direction, flags (1=dead, 2=powered, 4=visible)
+ * 12 byte  ghost tile x [4]
+ * 16 byte  ghost tile y [4]
+ * 20 byte  ghost state [4]
+ * 24 byte  lives
+ * 25 byte  hunting phase
+ * 26 short remaining Pac power ticks
+ * 28 int   level tick (number of updates of the level, see {@link GameLevel#tick()})
+ * </pre>
+ * 
+ * @author Armin Reichert
+ */
+public class TrajectoryRecord {
+
+	public static final int SIZE = 32;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final GhostState[] GHOST_STATES = GhostState.values();
+
+	private static final int SCORE = 0;
+	private static final int LEVEL_NUMBER = 4;
+	private static final int UNEATEN_FOOD = 6;
+	private static final int PAC_X = 8;
+	private static final int PAC_Y = 9;
+	private static final int PAC_MOVE_DIR = 10;
+	private static final int PAC_FLAGS = 11;
+	private static final int GHOST_X = 12;
+	private static final int GHOST_Y = 16;
+	private static final int GHOST_STATE = 20;
+	private static final int LIVES = 24;
+	private static final int HUNTING_PHASE = 25;
+	private static final int PAC_POWER = 26;
+	private static final int LEVEL_TICK = 28;
+
+	private static final int FLAG_DEAD = 1;
+	private static final int FLAG_POWERED = 2;
+	private static final int FLAG_VISIBLE = 4;
+
+	/**
+	 * Writes the record for the given level.
+	 * 
+	 * @param buffer target buffer
+	 * @param offset offset of the record in the buffer
+	 * @param level  game level
+	 */
+	static void write(ByteBuffer buffer, int offset, GameLevel level) {
+		var game = level.game();
+		var pac = level.pac();
+		buffer.putInt(offset + SCORE, game.score().isPresent() ? game.score().get().points() : 0);
+		buffer.putShort(offset + LEVEL_NUMBER, (short) level.number());
+		buffer.putShort(offset + UNEATEN_FOOD, (short) level.world().uneatenFoodCount());
+		buffer.put(offset + PAC_X, (byte) pac.tileX());
+		buffer.put(offset + PAC_Y, (byte) pac.tileY());
+		buffer.put(offset + PAC_MOVE_DIR, (byte) pac.moveDir().ordinal());
+		int flags = 0;
+		flags |= pac.isDead() ? FLAG_DEAD : 0;
+		flags |= pac.powerTimer().isRunning() ? FLAG_POWERED : 0;
+		flags |= pac.isVisible() ? FLAG_VISIBLE : 0;
+		buffer.put(offset + PAC_FLAGS, (byte) flags);
+		for (byte id = 0; id < 4; ++id) {
+			Ghost ghost = level.ghost(id);
+			buffer.put(offset + GHOST_X + id, (byte) ghost.tileX());
+			buffer.put(offset + GHOST_Y + id, (byte) ghost.tileY());
+			buffer.put(offset + GHOST_STATE + id, (byte) (ghost.state() != null ? ghost.state().ordinal() : -1));
+		}
+		buffer.put(offset + LIVES, (byte) game.lives());
+		buffer.put(offset + HUNTING_PHASE, (byte) level.huntingPhase());
+		long power = pac.powerTimer().isRunning() ? pac.powerTimer().remaining() : 0;
+		buffer.putShort(offset + PAC_POWER, (short) Math.min(power, Short.MAX_VALUE));
+		buffer.putInt(offset + LEVEL_TICK, (int) level.tick());
+	}
+
+	private ByteBuffer buffer;
+	private int offset;
+
+	TrajectoryRecord() {
+	}
+
+	void moveTo(ByteBuffer buffer, int offset) {
+		this.buffer = buffer;
+		this.offset = offset;
+	}
+
+	public int score() {
+		return buffer.getInt(offset + SCORE);
+	}
+
+	public int levelNumber() {
+		return buffer.getShort(offset + LEVEL_NUMBER);
+	}
+
+	public int uneatenFoodCount() {
+		return buffer.getShort(offset + UNEATEN_FOOD);
+	}
+
+	public int pacX() {
+		return buffer.get(offset + PAC_X);
+	}
+
+	public int pacY() {
+		return buffer.get(offset + PAC_Y);
+	}
+
+	public Direction pacMoveDir() {
+		return DIRECTIONS[buffer.get(offset + PAC_MOVE_DIR)];
+	}
+
+	public boolean isPacDead() {
+		return (buffer.get(offset + PAC_FLAGS) & FLAG_DEAD) != 0;
+	}
+
+	public boolean isPacPowered() {
+		return (buffer.get(offset + PAC_FLAGS) & FLAG_POWERED) != 0;
+	}
+
+	public boolean isPacVisible() {
+		return (buffer.get(offset + PAC_FLAGS) & FLAG_VISIBLE) != 0;
+	}
+
+	/**
+	 * @param id ghost ID
+	 * @return tile x-coordinate of the ghost
+	 */
+	public int ghostX(int id) {
+		return buffer.get(offset + GHOST_X + id);
+	}
+
+	/**
+	 * @param id ghost ID
+	 * @return tile y-coordinate of the ghost
+	 */
+	public int ghostY(int id) {
+		return buffer.get(offset + GHOST_Y + id);
+	}
+
+	/**
+	 * @param id ghost ID
+	 * @return state of the ghost or {@code null}
+	 */
+	public GhostState ghostState(int id) {
+		byte ordinal = buffer.get(offset + GHOST_STATE + id);
+		return ordinal != -1 ? GHOST_STATES[ordinal] : null;
+	}
+
+	public int lives() {
+		return buffer.get(offset + LIVES);
+	}
+
+	public int huntingPhase() {
+		return buffer.get(offset + HUNTING_PHASE);
+	}
+
+	public int pacPowerRemaining() {
+		return buffer.getShort(offset + PAC_POWER);
+	}
+
+	public int levelTick() {
+		return buffer.getInt(offset + LEVEL_TICK);
+	}
+
+	@Override
+	public String toString() {
+		return "[TrajectoryRecord level=%d tick=%d score=%d food=%d pac=(%d,%d)]".formatted(levelNumber(), levelTick(),
+				score(), uneatenFoodCount(), pacX(), pacY());
+	}
+}
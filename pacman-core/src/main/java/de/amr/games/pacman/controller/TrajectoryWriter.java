@@ -0,0 +1,185 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.controller;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.tinylog.Logger;
+
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.LevelUpdateObserver;
+
+/**
+ * Writes one fixed-width {@link TrajectoryRecord} per level update into a memory-mapped file. The file is mapped in
+ * segments of a fixed number of records, writing a record is a handful of absolute puts into the mapped segment, no
+ * objects are created and no system call is made except when a new segment is mapped.
+ * <p>
+ * The writer observes the level updates of the game it is created for, closing the writer stops the observation and
+ * truncates the file to the records actually written. The number of records is also stored in the header, it is
+ * updated whenever a new segment is mapped and when the writer is closed.
+ * <p>
+ * A mapped region is only released when its buffer is garbage collected. The writer drops its buffer references
+ * before truncating, but on Windows the truncation fails while a region is still mapped. The file then keeps the size
+ * of the last mapped segment, {@link TrajectoryReader} reads only the number of records given in the header.
+ * <p>
+ * Use {@link TrajectoryReader} to read the file.
+ * 
+ * @author Armin Reichert
+ */
+public class TrajectoryWriter implements LevelUpdateObserver, AutoCloseable {
+
+	public static final int MAGIC = 0x504D5452; // "PMTR"
+	public static final int VERSION = 2;
+
+	/** The header has the size of a record such that records are aligned in the file. */
+	public static final int HEADER_SIZE = TrajectoryRecord.SIZE;
+
+	/** Offset of the number of records (long) in the header. */
+	static final int HEADER_RECORD_COUNT = 20;
+
+	/** Default number of records per mapped segment (32 MB). */
+	public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+
+	private final GameModel game;
+	private final FileChannel channel;
+	private final int segmentRecords;
+	private MappedByteBuffer header;
+	private MappedByteBuffer segment;
+	private long segmentStart;
+	private int segmentCount;
+	private long recordCount;
+
+	/**
+	 * Creates a writer with the default segment size and starts observing the level updates of the given game.
+	 * 
+	 * @param file file to write, an existing file is overwritten
+	 * @param game the game
+	 * @throws IOException           if the file cannot be created or mapped
+	 * @throws IllegalStateException if the level updates of the game are already observed
+	 */
+	public TrajectoryWriter(Path file, GameModel game) throws IOException {
+		this(file, game, DEFAULT_SEGMENT_RECORDS);
+	}
+
+	/**
+	 * Creates a writer and starts observing the level updates of the given game.
+	 * 
+	 * @param file           file to write, an existing file is overwritten
+	 * @param game           the game
+	 * @param segmentRecords number of records per mapped segment
+	 * @throws IOException           if the file cannot be created or mapped
+	 * @throws IllegalStateException if the level updates of the game are already observed
+	 */
+	public TrajectoryWriter(Path file, GameModel game, int segmentRecords) throws IOException {
+		checkNotNull(file);
+		checkNotNull(game);
+		if (segmentRecords < 1 || segmentRecords > Integer.MAX_VALUE / TrajectoryRecord.SIZE) {
+			throw new IllegalArgumentException("Illegal number of records per segment: %d".formatted(segmentRecords));
+		}
+		if (game.levelUpdateObserver() != null) {
+			throw new IllegalStateException("Level updates of game are already observed by %s".formatted(
+					game.levelUpdateObserver()));
+		}
+		this.game = game;
+		this.segmentRecords = segmentRecords;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		header = channel.map(MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putShort((short) VERSION);
+		header.putShort((short) TrajectoryRecord.SIZE);
+		header.put((byte) game.variant().ordinal());
+		header.put(new byte[3]);
+		header.putLong(game.randomSeed());
+		header.putLong(HEADER_RECORD_COUNT, 0);
+		mapSegment(HEADER_SIZE);
+		game.setLevelUpdateObserver(this);
+	}
+
+	private void mapSegment(long start) throws IOException {
+		segment = channel.map(MapMode.READ_WRITE, start, (long) segmentRecords * TrajectoryRecord.SIZE);
+		segmentStart = start;
+		segmentCount = 0;
+	}
+
+	/**
+	 * @return number of records written
+	 */
+	public long recordCount() {
+		return recordCount;
+	}
+
+	@Override
+	public void onLevelUpdated(GameLevel level) {
+		if (segment == null) {
+			throw new IllegalStateException("Trajectory writer is closed");
+		}
+		if (segmentCount == segmentRecords) {
+			header.putLong(HEADER_RECORD_COUNT, recordCount);
+			try {
+				mapSegment(segmentStart + (long) segmentRecords * TrajectoryRecord.SIZE);
+			} catch (IOException x) {
+				throw new IllegalStateException("Could not map trajectory segment", x);
+			}
+		}
+		TrajectoryRecord.write(segment, segmentCount * TrajectoryRecord.SIZE, level);
+		++segmentCount;
+		++recordCount;
+	}
+
+	/**
+	 * Stops observing the game, writes the number of records into the header and truncates the file to the records
+	 * written. If the file cannot be truncated, it is left at its mapped size.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (segment == null) {
+			return;
+		}
+		if (game.levelUpdateObserver() == this) {
+			game.setLevelUpdateObserver(null);
+		}
+		segment.force();
+		header.putLong(HEADER_RECORD_COUNT, recordCount);
+		header.force();
+		// drop the mapped buffers such that the regions can be unmapped before truncating
+		segment = null;
+		header = null;
+		try {
+			channel.truncate(HEADER_SIZE + recordCount * TrajectoryRecord.SIZE);
+		} catch (IOException x) {
+			Logger.warn("Could not truncate trajectory file, it keeps its mapped size: {}", x.getMessage());
+		} finally {
+			channel.close();
+		}
+	}
+}
@@ -0,0 +1,282 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.event;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.tinylog.Logger;
+
+import de.amr.games.pacman.lib.SpscRingBuffer;
+
+/**
+ * Delivers game events to a listener on a separate consumer thread such that slow listeners (I/O, logging) do not stall
+ * the simulation thread.
+ * <p>
+ * The simulation thread appends the events published during a tick to a lock-free ring buffer, the consumer thread
+ * drains the buffer in batches and calls the wrapped listener. Events must be published from a single thread (the
+ * simulation thread), which is the case for all events published by the game model and the game controller.
+ * <p>
+ * The wrapped listener runs while the simulation thread keeps changing the game. It may only read the immutable fields
+ * of the events, reading the game model (for example via {@link GameEvent#game}) is not safe on the consumer thread.
+ * Events are reused by the game model and carry no state of the time they were published. Therefore the level tick and
+ * the score are captured on the publishing thread into a {@link PublishedEvent}, a consumer created with
+ * {@link #withPayload(Consumer, int, BackPressure)} receives them.
+ * <p>
+ * If the consumer does not keep up and the buffer is full, the {@link BackPressure back-pressure policy} decides what
+ * happens.
+ * 
+ * @author Armin Reichert
+ */
+public class AsyncGameEventListener implements GameEventListener, AutoCloseable {
+
+	public enum BackPressure {
+		/** Events that do not fit into the buffer are dropped. */
+		DROP,
+		/** The publishing thread waits until the buffer has space again. */
+		BLOCK,
+		/**
+		 * Events that do not fit into the buffer are kept per event type, a newer event replaces an older event of the same
+		 * type. The kept events are delivered after the buffered events.
+		 */
+		COALESCE;
+	}
+
+	/**
+	 * An event together with the state of the game at the time it was published.
+	 * 
+	 * @param event     the published event
+	 * @param levelTick number of updates of the current level when the event was published, 0 if there is no level
+	 * @param score     score points when the event was published, 0 if there is no score
+	 */
+	public record PublishedEvent(GameEvent event, long levelTick, int score) {
+
+		static PublishedEvent of(GameEvent event) {
+			var game = event.game;
+			return new PublishedEvent(event, game.level().isPresent() ? game.level().get().tick() : 0,
+					game.score().isPresent() ? game.score().get().points() : 0);
+		}
+	}
+
+	private static final GameEventType[] TYPES = GameEventType.values();
+	private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final Consumer<PublishedEvent> delegate;
+	private final BackPressure backPressure;
+	private final SpscRingBuffer<PublishedEvent> buffer;
+	private final AtomicReferenceArray<PublishedEvent> overflow = new AtomicReferenceArray<>(TYPES.length);
+	private final Thread consumer;
+	private volatile boolean overflowing;
+	private volatile boolean consumerWaiting;
+	private volatile boolean closed;
+	private volatile long publishedCount; // only written by the publishing thread
+	private final AtomicLong droppedCount = new AtomicLong();
+	private final AtomicLong coalescedCount = new AtomicLong();
+	private final AtomicLong deliveredCount = new AtomicLong();
+
+	/**
+	 * Creates an asynchronous listener and starts its consumer thread.
+	 * 
+	 * @param delegate     listener called on the consumer thread
+	 * @param capacity     buffer capacity (rounded up to a power of two)
+	 * @param backPressure what happens if the buffer is full
+	 */
+	public AsyncGameEventListener(GameEventListener delegate, int capacity, BackPressure backPressure) {
+		this(eventConsumer(delegate), delegate.getClass().getSimpleName(), capacity, backPressure);
+	}
+
+	/**
+	 * Creates an asynchronous listener whose consumer also receives the level tick and score of each event.
+	 * 
+	 * @param consumer     consumer called on the consumer thread
+	 * @param capacity     buffer capacity (rounded up to a power of two)
+	 * @param backPressure what happens if the buffer is full
+	 * @return new listener with a running consumer thread
+	 */
+	public static AsyncGameEventListener withPayload(Consumer<PublishedEvent> consumer, int capacity,
+			BackPressure backPressure) {
+		checkNotNull(consumer);
+		return new AsyncGameEventListener(consumer, consumer.getClass().getSimpleName(), capacity, backPressure);
+	}
+
+	private static Consumer<PublishedEvent> eventConsumer(GameEventListener listener) {
+		checkNotNull(listener);
+		return published -> listener.onGameEvent(published.event());
+	}
+
+	private AsyncGameEventListener(Consumer<PublishedEvent> delegate, String name, int capacity,
+			BackPressure backPressure) {
+		checkNotNull(backPressure);
+		this.delegate = delegate;
+		this.backPressure = backPressure;
+		buffer = new SpscRingBuffer<>(capacity);
+		consumer = new Thread(this::consume, "GameEventConsumer-" + name);
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	public BackPressure backPressure() {
+		return backPressure;
+	}
+
+	/** @return number of events dropped because the buffer was full */
+	public long droppedCount() {
+		return droppedCount.get();
+	}
+
+	/** @return number of events replaced by a newer event of the same type because the buffer was full */
+	public long coalescedCount() {
+		return coalescedCount.get();
+	}
+
+	/** @return number of events handed to the wrapped listener */
+	public long deliveredCount() {
+		return deliveredCount.get();
+	}
+
+	@Override
+	public void onGameEvent(GameEvent event) {
+		if (closed) {
+			return;
+		}
+		++publishedCount;
+		var published = PublishedEvent.of(event);
+		switch (backPressure) {
+		case DROP -> {
+			if (!buffer.offer(published)) {
+				droppedCount.incrementAndGet();
+			}
+		}
+		case BLOCK -> {
+			while (!buffer.offer(published)) {
+				wakeUpConsumer();
+				if (closed) {
+					droppedCount.incrementAndGet();
+					return;
+				}
+				Thread.onSpinWait();
+			}
+		}
+		case COALESCE -> {
+			// once overflowing, keep order by coalescing until the consumer has taken over the kept events
+			if (overflowing || !buffer.offer(published)) {
+				if (overflow.getAndSet(event.type.ordinal(), published) != null) {
+					coalescedCount.incrementAndGet();
+				}
+				overflowing = true;
+			}
+		}
+		}
+		wakeUpConsumer();
+	}
+
+	/**
+	 * Waits until all events published so far have been delivered.
+	 * 
+	 * @param timeoutMillis maximum time to wait
+	 * @return {@code true} if all events have been delivered in time
+	 */
+	public boolean awaitDelivery(long timeoutMillis) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		while (deliveredCount.get() + droppedCount.get() + coalescedCount.get() < publishedCount) {
+			if (System.nanoTime() > deadline) {
+				return false;
+			}
+			wakeUpConsumer();
+			LockSupport.parkNanos(PARK_NANOS / 10);
+		}
+		return true;
+	}
+
+	/**
+	 * Stops accepting events, delivers the already buffered events and stops the consumer thread.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(consumer);
+		try {
+			consumer.join();
+		} catch (InterruptedException x) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void wakeUpConsumer() {
+		if (consumerWaiting) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	private void consume() {
+		while (true) {
+			boolean wasClosed = closed;
+			int n = drain();
+			if (n == 0) {
+				if (wasClosed) {
+					return;
+				}
+				consumerWaiting = true;
+				if (buffer.isEmpty() && !overflowing && !closed) {
+					LockSupport.parkNanos(this, PARK_NANOS);
+				}
+				consumerWaiting = false;
+			}
+		}
+	}
+
+	private int drain() {
+		int n = 0;
+		PublishedEvent event;
+		while ((event = buffer.poll()) != null) {
+			deliver(event);
+			++n;
+		}
+		if (overflowing) {
+			overflowing = false;
+			for (int i = 0; i < TYPES.length; ++i) {
+				event = overflow.getAndSet(i, null);
+				if (event != null) {
+					deliver(event);
+					++n;
+				}
+			}
+		}
+		return n;
+	}
+
+	private void deliver(PublishedEvent published) {
+		try {
+			delegate.accept(published);
+		} catch (RuntimeException x) {
+			Logger.error(x, "Game event listener failed on event {}", published.event());
+		}
+		deliveredCount.incrementAndGet();
+	}
+}
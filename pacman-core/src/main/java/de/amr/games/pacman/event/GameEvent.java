@@ -34,6 +34,10 @@ import de.amr.games.pacman.model.GameModel;
 /**
  * Base class for events fired during game play. This class is a kind of compromise between separate subclasses for each
  * event type and a fat base class.
+ * <p>
+ * Events must be immutable and must not carry state of the time they are published (level tick, score etc.): the game
+ * model creates the frequently published events only once and publishes the same instance again and again. State of
+ * the publish time has to be captured by the listener, see {@link AsyncGameEventListener.PublishedEvent}.
  * 
  * @author Armin Reichert
  */
@@ -0,0 +1,162 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.games.pacman.event;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.tinylog.Logger;
+
+/**
+ * Distributes the events of a single game to its listeners. Each game controller owns its own event bus, so any number
+ * of games can run in the same JVM without seeing each other's events.
+ * <p>
+ * Listeners are indexed by event type. A listener can subscribe to all event types or only to the types it is
+ * interested in. Publishers can ask {@link #hasListeners(GameEventType)} before creating an event, so events nobody
+ * listens to cost nothing. The listener arrays are copied on (rare) subscription changes, publishing does not allocate.
+ * 
+ * @author Armin Reichert
+ */
+public class GameEventBus {
+
+	private static final GameEventType[] TYPES = GameEventType.values();
+	private static final GameEventListener[] NO_LISTENERS = {};
+
+	private final AtomicReferenceArray<GameEventListener[]> listenersByType = new AtomicReferenceArray<>(TYPES.length);
+	private volatile boolean soundEventsEnabled = true;
+
+	public GameEventBus() {
+		for (int i = 0; i < TYPES.length; ++i) {
+			listenersByType.set(i, NO_LISTENERS);
+		}
+	}
+
+	public boolean isSoundEventsEnabled() {
+		return soundEventsEnabled;
+	}
+
+	public void setSoundEventsEnabled(boolean enabled) {
+		soundEventsEnabled = enabled;
+		Logger.info("Sound events {}", enabled ? "enabled" : "disabled");
+	}
+
+	/**
+	 * Subscribes the given listener to all event types.
+	 * 
+	 * @param subscriber game event listener
+	 */
+	public void addListener(GameEventListener subscriber) {
+		checkNotNull(subscriber);
+		for (var type : TYPES) {
+			addListener(type, subscriber);
+		}
+	}
+
+	/**
+	 * Subscribes the given listener to events of the given type. Subscribing twice has no effect.
+	 * 
+	 * @param type       event type
+	 * @param subscriber game event listener
+	 */
+	public synchronized void addListener(GameEventType type, GameEventListener subscriber) {
+		checkNotNull(type);
+		checkNotNull(subscriber);
+		var listeners = listenersByType.get(type.ordinal());
+		for (var listener : listeners) {
+			if (listener == subscriber) {
+				return;
+			}
+		}
+		var copy = Arrays.copyOf(listeners, listeners.length + 1);
+		copy[listeners.length] = subscriber;
+		listenersByType.set(type.ordinal(), copy);
+	}
+
+	/**
+	 * Unsubscribes the given listener from all event types.
+	 * 
+	 * @param subscriber game event listener
+	 */
+	public void removeListener(GameEventListener subscriber) {
+		checkNotNull(subscriber);
+		for (var type : TYPES) {
+			removeListener(type, subscriber);
+		}
+	}
+
+	/**
+	 * Unsubscribes the given listener from events of the given type.
+	 * 
+	 * @param type       event type
+	 * @param subscriber game event listener
+	 */
+	public synchronized void removeListener(GameEventType type, GameEventListener subscriber) {
+		checkNotNull(type);
+		checkNotNull(subscriber);
+		var listeners = listenersByType.get(type.ordinal());
+		for (int i = 0; i < listeners.length; ++i) {
+			if (listeners[i] == subscriber) {
+				var copy = new GameEventListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, copy, 0, i);
+				System.arraycopy(listeners, i + 1, copy, i, listeners.length - i - 1);
+				listenersByType.set(type.ordinal(), listeners.length == 1 ? NO_LISTENERS : copy);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param type event type
+	 * @return if an event of the given type would reach at least one listener. Sound events only reach listeners if
+	 *         sound events are enabled.
+	 */
+	public boolean hasListeners(GameEventType type) {
+		if (type == GameEventType.SOUND_EVENT && !soundEventsEnabled) {
+			return false;
+		}
+		return listenersByType.get(type.ordinal()).length > 0;
+	}
+
+	/**
+	 * Publishes the given event to all listeners subscribed to its type. Sound events are only published if sound events
+	 * are enabled.
+	 * 
+	 * @param event game event
+	 */
+	public void publish(GameEvent event) {
+		checkNotNull(event);
+		if (!hasListeners(event.type)) {
+			return;
+		}
+		if (Logger.isTraceEnabled()) {
+			Logger.trace("Publish game event: {}", event);
+		}
+		for (var listener : listenersByType.get(event.type.ordinal())) {
+			listener.onGameEvent(event);
+		}
+	}
+}
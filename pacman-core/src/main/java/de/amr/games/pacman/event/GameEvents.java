@@ -20,27 +20,28 @@ AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
 LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
 OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
 SOFTWARE.
- */
+*/
+
 package de.amr.games.pacman.event;
 
 import static de.amr.games.pacman.lib.Globals.checkNotNull;
 
-import java.util.Collection;
-import java.util.concurrent.ConcurrentLinkedQueue;
-
-import org.tinylog.Logger;
-
 import de.amr.games.pacman.controller.GameController;
 import de.amr.games.pacman.lib.math.Vector2i;
 
 /**
+ * Static facade to the event bus of a single game controller. This class only exists for compatibility with user
+ * interfaces that run exactly one game per JVM. Each new game controller registers itself, so the facade uses the most
+ * recently created controller. Another controller can be registered using {@link #setGameController(GameController)}.
+ * <p>
+ * New code should use the event bus of the game controller ({@link GameController#eventBus()}) or the publishing
+ * methods of the game model.
+ * 
  * @author Armin Reichert
  */
 public class GameEvents {
 
-	private static GameController gameController;
-	private static Collection<GameEventListener> subscribers = new ConcurrentLinkedQueue<>();
-	private static boolean soundEventsEnabled = true;
+	private static volatile GameController gameController;
 
 	private GameEvents() {
 	}
@@ -50,41 +51,38 @@ public class GameEvents {
 		GameEvents.gameController = gameController;
 	}
 
+	private static GameController gc() {
+		if (gameController == null) {
+			throw new IllegalStateException("No game controller has been set");
+		}
+		return gameController;
+	}
+
 	public static void setSoundEventsEnabled(boolean enabled) {
-		GameEvents.soundEventsEnabled = enabled;
-		Logger.info("Sound events {}", enabled ? "enabled" : "disabled");
+		gc().eventBus().setSoundEventsEnabled(enabled);
 	}
 
 	public static void addListener(GameEventListener subscriber) {
-		checkNotNull(subscriber);
-		GameEvents.subscribers.add(subscriber);
+		gc().eventBus().addListener(subscriber);
 	}
 
 	public static void removeListener(GameEventListener subscriber) {
-		checkNotNull(subscriber);
-		GameEvents.subscribers.remove(subscriber);
+		gc().eventBus().removeListener(subscriber);
 	}
 
 	public static void publishGameEvent(GameEvent event) {
-		checkNotNull(event);
-		Logger.trace("Publish game event: {}", event);
-		GameEvents.subscribers.forEach(subscriber -> subscriber.onGameEvent(event));
+		gc().eventBus().publish(event);
 	}
 
 	public static void publishGameEvent(GameEventType type, Vector2i tile) {
-		checkNotNull(type);
-		checkNotNull(tile);
-		publishGameEvent(new GameEvent(gameController.game(), type, tile));
+		gc().game().publishGameEvent(type, tile);
 	}
 
 	public static void publishGameEventOfType(GameEventType type) {
-		publishGameEvent(new GameEvent(gameController.game(), type, null));
+		gc().game().publishGameEventOfType(type);
 	}
 
 	public static void publishSoundEvent(String soundCommand) {
-		checkNotNull(soundCommand);
-		if (GameEvents.soundEventsEnabled) {
-			publishGameEvent(new SoundEvent(gameController.game(), soundCommand));
-		}
+		gc().game().publishSoundEvent(soundCommand);
 	}
-}
\ No newline at end of file
+}
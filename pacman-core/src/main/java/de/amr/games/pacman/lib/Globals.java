@@ -27,6 +27,7 @@ package de.amr.games.pacman.lib;
 import java.util.Arrays;
 import java.util.Objects;
 import java.util.Random;
+import java.util.random.RandomGenerator;
 import java.util.stream.Stream;
 
 import de.amr.games.pacman.lib.math.Vector2f;
@@ -57,7 +58,32 @@ public class Globals {
 	private static final String MSG_TILE_NULL = "Tile must not be null";
 	private static final String MSG_DIR_NULL = "Direction must not be null";
 
+	/*
+	 * Interned vectors covering the tile grid of the Arcade worlds (28x36) with a margin, e.g. for portal tiles. Tile
+	 * computations inside this range don't allocate.
+	 */
+	private static final int V2I_CACHE_MIN = -8;
+	private static final int V2I_CACHE_SIZE = 56;
+	private static final Vector2i[] V2I_CACHE = new Vector2i[V2I_CACHE_SIZE * V2I_CACHE_SIZE];
+	static {
+		for (int y = 0; y < V2I_CACHE_SIZE; ++y) {
+			for (int x = 0; x < V2I_CACHE_SIZE; ++x) {
+				V2I_CACHE[y * V2I_CACHE_SIZE + x] = new Vector2i(x + V2I_CACHE_MIN, y + V2I_CACHE_MIN);
+			}
+		}
+	}
+
+	/**
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @return vector with given coordinates, interned if inside the cached range
+	 */
 	public static Vector2i v2i(int x, int y) {
+		int cx = x - V2I_CACHE_MIN;
+		int cy = y - V2I_CACHE_MIN;
+		if (0 <= cx && cx < V2I_CACHE_SIZE && 0 <= cy && cy < V2I_CACHE_SIZE) {
+			return V2I_CACHE[cy * V2I_CACHE_SIZE + cx];
+		}
 		return new Vector2i(x, y);
 	}
 
@@ -130,12 +156,23 @@ public class Globals {
 	 *         guarantee <code>a<=b</code>
 	 */
 	public static int randomInt(int a, int b) {
+		return randomInt(RND, a, b);
+	}
+
+	/**
+	 * @param rnd random generator
+	 * @param a   left interval bound
+	 * @param b   right interval bound
+	 * @return Random integer number from right-open interval <code>[a; b[</code>. Interval bounds are rearranged to
+	 *         guarantee <code>a<=b</code>
+	 */
+	public static int randomInt(RandomGenerator rnd, int a, int b) {
 		if (a > b) {
 			var tmp = a;
 			a = b;
 			b = tmp;
 		}
-		return a + RND.nextInt(b - a);
+		return a + rnd.nextInt(b - a);
 	}
 
 	/**
@@ -169,6 +206,10 @@ public class Globals {
 	}
 
 	public static boolean inPercentOfCases(int percent) {
+		return inPercentOfCases(RND, percent);
+	}
+
+	public static boolean inPercentOfCases(RandomGenerator rnd, int percent) {
 		if (percent < 0 || percent > 100) {
 			throw new IllegalArgumentException("Percent value must be in range [0, 100] but is %d".formatted(percent));
 		}
@@ -178,7 +219,7 @@ public class Globals {
 		if (percent == 100) {
 			return true;
 		}
-		return randomInt(0, 100) < percent;
+		return randomInt(rnd, 0, 100) < percent;
 	}
 
 	public static boolean isEven(int n) {
@@ -0,0 +1,85 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.games.pacman.lib;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Fast, non-synchronized and seedable pseudo-random number generator implementing the SplitMix64 algorithm. Its state
+ * is a single <code>long</code> value which can be read and restored, so game runs can be reproduced exactly.
+ * <p>
+ * Not thread-safe: each game uses its own instance.
+ * 
+ * @author Armin Reichert
+ * 
+ * @see <a href="https://prng.di.unimi.it/splitmix64.c">SplitMix64</a>
+ */
+public class SplitMix64Random implements RandomGenerator {
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private long state;
+
+	/**
+	 * Creates a generator with a random seed.
+	 */
+	public SplitMix64Random() {
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * @param seed the seed
+	 */
+	public SplitMix64Random(long seed) {
+		this.state = seed;
+	}
+
+	/**
+	 * @return the internal state, can be used to continue the sequence later via {@link #setState(long)}
+	 */
+	public long state() {
+		return state;
+	}
+
+	public void setState(long state) {
+		this.state = state;
+	}
+
+	/**
+	 * @return a new generator, seeded from this generator, producing a statistically independent sequence
+	 */
+	public SplitMix64Random split() {
+		return new SplitMix64Random(nextLong());
+	}
+
+	@Override
+	public long nextLong() {
+		long z = (state += GOLDEN_GAMMA);
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,110 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.lib;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * <p>
+ * The producer only writes the tail index, the consumer only writes the head index. Slots are published by an ordered
+ * write of the index, so neither side needs a lock or a compare-and-set.
+ * 
+ * @param <T> element type
+ * @author Armin Reichert
+ */
+public class SpscRingBuffer<T> {
+
+	private final Object[] slots;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong(); // next slot to read, written by consumer
+	private final AtomicLong tail = new AtomicLong(); // next slot to write, written by producer
+
+	/**
+	 * @param capacity minimum capacity, rounded up to the next power of two
+	 */
+	public SpscRingBuffer(int capacity) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Illegal ring buffer capacity: %d".formatted(capacity));
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		slots = new Object[size];
+		mask = size - 1;
+	}
+
+	public int capacity() {
+		return slots.length;
+	}
+
+	/**
+	 * @return number of elements currently in the buffer (a snapshot if called concurrently)
+	 */
+	public int size() {
+		return (int) (tail.get() - head.get());
+	}
+
+	public boolean isEmpty() {
+		return tail.get() == head.get();
+	}
+
+	/**
+	 * Called by the producer thread.
+	 * 
+	 * @param element element to add
+	 * @return {@code true} if the element has been added, {@code false} if the buffer is full
+	 */
+	public boolean offer(T element) {
+		checkNotNull(element);
+		long t = tail.get();
+		if (t - head.get() == slots.length) {
+			return false;
+		}
+		slots[(int) t & mask] = element;
+		tail.lazySet(t + 1);
+		return true;
+	}
+
+	/**
+	 * Called by the consumer thread.
+	 * 
+	 * @return oldest element or {@code null} if the buffer is empty
+	 */
+	@SuppressWarnings("unchecked")
+	public T poll() {
+		long h = head.get();
+		if (h == tail.get()) {
+			return null;
+		}
+		int index = (int) h & mask;
+		var element = (T) slots[index];
+		slots[index] = null;
+		head.lazySet(h + 1);
+		return element;
+	}
+}
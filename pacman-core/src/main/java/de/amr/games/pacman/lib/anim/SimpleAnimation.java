@@ -162,6 +162,32 @@ public class SimpleAnimation<T> implements Animated {
 		frameTick = 0;
 	}
 
+	/**
+	 * Computes the frame index without running the animation, for example when the animation is driven by a tick
+	 * counter instead of calling {@link #animate()} on each tick.
+	 * 
+	 * @param ticks number of ticks the animation has been running since it was (re)started
+	 * @return index of the frame shown after the given number of ticks
+	 */
+	public int frameIndexAt(long ticks) {
+		if (ticks < 0) {
+			throw new IllegalArgumentException("Number of ticks must not be negative but is " + ticks);
+		}
+		long frameNumber = ticks / frameDurationTicks;
+		if (repetitions != INDEFINITE && frameNumber >= (long) repetitions * frames.length) {
+			return frames.length - 1; // complete
+		}
+		return (int) (frameNumber % frames.length);
+	}
+
+	/**
+	 * @param ticks number of ticks the animation has been running since it was (re)started
+	 * @return frame shown after the given number of ticks, see {@link #frameIndexAt(long)}
+	 */
+	public T frameAt(long ticks) {
+		return frames[frameIndexAt(ticks)];
+	}
+
 	public long getFrameDuration() {
 		return frameDurationTicks;
 	}
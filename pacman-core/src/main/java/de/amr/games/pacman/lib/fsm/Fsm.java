@@ -23,6 +23,7 @@ SOFTWARE.
  */
 package de.amr.games.pacman.lib.fsm;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -39,6 +40,9 @@ import de.amr.games.pacman.lib.timer.TickTimer.State;
  * <p>
  * State transitions are defined dynamically via the {@link #changeState} method calls. Each state change triggers an
  * event.
+ * <p>
+ * The state timers are owned by the FSM instance, not by the (enum) states, so several instances of the same FSM type
+ * can run independently of each other.
  * 
  * @param <S> Enumeration type providing the states of this FSM
  * @param <C> Type of the data provided to the state lifecycle methods {@link FsmState#onEnter},
@@ -50,12 +54,17 @@ public abstract class Fsm<S extends FsmState<C>, C> {
 
 	private final List<FsmStateChangeListener<S>> subscribers = new ArrayList<>();
 	protected final S[] states;
+	private final TickTimer[] timers;
 	protected S currentState;
 	protected S prevState;
 	protected String name = getClass().getSimpleName();
 
 	protected Fsm(S[] states) {
 		this.states = states;
+		timers = new TickTimer[states.length];
+		for (var state : states) {
+			timers[state.ordinal()] = new TickTimer("Timer-" + state.name());
+		}
 	}
 
 	public void setName(String name) {
@@ -79,6 +88,21 @@ public abstract class Fsm<S extends FsmState<C>, C> {
 		return currentState;
 	}
 
+	/**
+	 * @return the timer of the current state
+	 */
+	public TickTimer timer() {
+		return timers[currentState.ordinal()];
+	}
+
+	/**
+	 * @param state a state of this FSM
+	 * @return the timer of the given state
+	 */
+	public TickTimer timer(S state) {
+		return timers[state.ordinal()];
+	}
+
 	/**
 	 * @return the previous state (may be null)
 	 */
@@ -104,12 +128,42 @@ public abstract class Fsm<S extends FsmState<C>, C> {
 		subscribers.remove(listener);
 	}
 
+	/**
+	 * Writes current state, previous state and the state timers. No state hooks are executed and no listeners are
+	 * notified.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		buffer.put((byte) (currentState != null ? currentState.ordinal() : -1));
+		buffer.put((byte) (prevState != null ? prevState.ordinal() : -1));
+		for (var timer : timers) {
+			timer.saveState(buffer);
+		}
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}. No state hooks are executed and no listeners are
+	 * notified.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		byte current = buffer.get();
+		byte prev = buffer.get();
+		currentState = current != -1 ? states[current] : null;
+		prevState = prev != -1 ? states[prev] : null;
+		for (var timer : timers) {
+			timer.restoreState(buffer);
+		}
+	}
+
 	/**
 	 * Resets the timer of each state to {@link TickTimer#INDEFINITE}.
 	 */
 	public void resetTimers() {
-		for (S state : states) {
-			state.timer().resetIndefinitely();
+		for (var timer : timers) {
+			timer.resetIndefinitely();
 		}
 	}
 
@@ -129,7 +183,7 @@ public abstract class Fsm<S extends FsmState<C>, C> {
 	 * Lets the timer of the current game state expire.
 	 */
 	public void terminateCurrentState() {
-		state().timer().expire();
+		timer().expire();
 	}
 
 	/**
@@ -148,14 +202,14 @@ public abstract class Fsm<S extends FsmState<C>, C> {
 		C context = context();
 		if (currentState != null) {
 			currentState.onExit(context);
-			Logger.trace("Exit  state {} timer={}", currentState, currentState.timer());
+			Logger.trace("Exit  state {} timer={}", currentState, timer());
 		}
 		prevState = currentState;
 		currentState = newState;
-		currentState.timer().resetIndefinitely();
-		Logger.trace("Enter state {} timer={}", currentState, currentState.timer());
+		timer().resetIndefinitely();
+		Logger.trace("Enter state {} timer={}", currentState, timer());
 		currentState.onEnter(context);
-		Logger.trace("After Enter state {} timer={}", currentState, currentState.timer());
+		Logger.trace("After Enter state {} timer={}", currentState, timer());
 		subscribers.forEach(listener -> listener.onStateChange(prevState, currentState));
 	}
 
@@ -166,10 +220,27 @@ public abstract class Fsm<S extends FsmState<C>, C> {
 		if (prevState == null) {
 			throw new IllegalStateException("State machine cannot resume previous state because there is none");
 		}
-		Logger.trace("Resume state {}, timer= {}", prevState, prevState.timer());
+		Logger.trace("Resume state {}, timer= {}", prevState, timer(prevState));
 		changeState(prevState);
 	}
 
+	/**
+	 * Fast-forwards the current state: advances its timer over the following updates that would be idle, see
+	 * {@link FsmState#idleTicks}. No hook methods are executed. The update at which the state reacts again (or at which
+	 * its timer expires) is left to the next {@link #update()} call, so the resulting state is the same as after the
+	 * corresponding number of updates (except for animations).
+	 * 
+	 * @param maxTicks maximum number of ticks to skip
+	 * @return number of skipped ticks
+	 */
+	public long skipIdleTicks(long maxTicks) {
+		if (currentState == null || maxTicks <= 0 || !timer().isRunning()) {
+			return 0;
+		}
+		long idleTicks = currentState.idleTicks(context());
+		return idleTicks > 0 ? timer().skip(Math.min(idleTicks, maxTicks)) : 0;
+	}
+
 	/**
 	 * Updates this FSM's current state.
 	 * <p>
@@ -179,13 +250,14 @@ public abstract class Fsm<S extends FsmState<C>, C> {
 		try {
 			currentState.onUpdate(context());
 		} catch (Exception x) {
-			Logger.trace("Error updating state {}, timer={}", currentState, currentState.timer());
+			Logger.trace("Error updating state {}, timer={}", currentState, timer());
 			x.printStackTrace();
 		}
-		if (currentState.timer().state() == State.READY) {
-			currentState.timer().start();
+		var timer = timer();
+		if (timer.state() == State.READY) {
+			timer.start();
 		} else {
-			currentState.timer().advance();
+			timer.advance();
 		}
 	}
 }
\ No newline at end of file
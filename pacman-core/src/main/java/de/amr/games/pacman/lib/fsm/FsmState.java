@@ -24,10 +24,9 @@ SOFTWARE.
 
 package de.amr.games.pacman.lib.fsm;
 
-import de.amr.games.pacman.lib.timer.TickTimer;
-
 /**
- * Interface implemented by all states (enums) of a FSM. Each state has a timer and a reference to its FSM.
+ * Interface implemented by all states (enums) of a FSM. The state timers are provided by the FSM, see
+ * {@link Fsm#timer()}.
  *
  * @param <C> the (context) type that the hook methods {@link #onEnter(C)}, {@link #onUpdate(C)}, {@link #onExit(C)} get
  *            passed as parameter
@@ -59,7 +58,24 @@ public interface FsmState<C> {
 	}
 
 	/**
-	 * @return the timer of this state
+	 * Supports fast-forwarding, see {@link Fsm#skipIdleTicks(long)}. A state that only waits for certain ticks of its
+	 * (running) timer returns the number of ticks until the next of these ticks. The update hook must not change
+	 * anything but animations in the skipped ticks.
+	 * 
+	 * @param context the "context" (data type provided to the state)
+	 * @return number of following updates that can be skipped, 0 if the next update must be executed
+	 */
+	default long idleTicks(C context) {
+		return 0;
+	}
+
+	/**
+	 * @return the state name (implemented by enum)
+	 */
+	String name();
+
+	/**
+	 * @return the state index (implemented by enum)
 	 */
-	TickTimer timer();
+	int ordinal();
 }
\ No newline at end of file
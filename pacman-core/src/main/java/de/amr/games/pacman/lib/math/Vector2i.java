@@ -23,6 +23,8 @@ SOFTWARE.
  */
 package de.amr.games.pacman.lib.math;
 
+import static de.amr.games.pacman.lib.Globals.v2i;
+
 import java.util.stream.Stream;
 
 import de.amr.games.pacman.lib.steering.Direction;
@@ -37,23 +39,23 @@ public record Vector2i(int x, int y) {
 	public static final Vector2i ZERO = new Vector2i(0, 0);
 
 	public Vector2i scaled(int s) {
-		return new Vector2i(s * x, s * y);
+		return v2i(s * x, s * y);
 	}
 
 	public Vector2i plus(Vector2i v) {
-		return new Vector2i(x + v.x, y + v.y);
+		return v2i(x + v.x, y + v.y);
 	}
 
 	public Vector2i plus(int dx, int dy) {
-		return new Vector2i(x + dx, y + dy);
+		return v2i(x + dx, y + dy);
 	}
 
 	public Vector2i minus(Vector2i v) {
-		return new Vector2i(x - v.x, y - v.y);
+		return v2i(x - v.x, y - v.y);
 	}
 
 	public Vector2i minus(int dx, int dy) {
-		return new Vector2i(x - dx, y - dy);
+		return v2i(x - dx, y - dy);
 	}
 
 	public float euclideanDistance(Vector2i v) {
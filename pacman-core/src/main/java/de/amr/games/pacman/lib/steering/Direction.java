@@ -26,6 +26,7 @@ package de.amr.games.pacman.lib.steering;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.random.RandomGenerator;
 import java.util.stream.Stream;
 
 import de.amr.games.pacman.lib.math.Vector2i;
@@ -51,6 +52,21 @@ public enum Direction {
 		return dirs;
 	}
 
+	/**
+	 * @param rnd random generator
+	 * @return the directions in random order as defined by the given random generator
+	 */
+	public static List<Direction> shuffled(RandomGenerator rnd) {
+		Direction[] dirs = values();
+		for (int i = dirs.length - 1; i > 0; --i) {
+			int j = rnd.nextInt(i + 1);
+			var tmp = dirs[i];
+			dirs[i] = dirs[j];
+			dirs[j] = tmp;
+		}
+		return Arrays.asList(dirs);
+	}
+
 	private final Vector2i vector;
 
 	private Direction(int x, int y) {
@@ -0,0 +1,402 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.lib.steering;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import de.amr.games.pacman.controller.Steering;
+import de.amr.games.pacman.lib.SplitMix64Random;
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameSnapshot;
+import de.amr.games.pacman.model.actors.Creature;
+import de.amr.games.pacman.model.actors.Ghost;
+import de.amr.games.pacman.model.actors.GhostState;
+import de.amr.games.pacman.model.actors.Pac;
+import de.amr.games.pacman.model.world.DistanceTable;
+
+/**
+ * Pac-Man steering that looks ahead by simulating the game.
+ * <p>
+ * At each decision point (an intersection, a dead end or any tile when a hunting ghost is close), the current game is
+ * forked via a {@link GameSnapshot} into scratch games, one per possible direction. For each direction, a number of
+ * rollouts simulate the level for a fixed horizon of ticks, Pac-Man taking the direction first and then following a
+ * cheap randomized policy that prefers food. The ghosts move by their own rules. A rollout is rated by the points
+ * scored, whether Pac-Man gets killed (and how early) and how far the nearest food is at the end. The direction with the
+ * best average rating is taken.
+ * <p>
+ * The search effort per decision is limited by a node budget (number of simulated ticks) and optionally by a time
+ * budget. Rollouts only depend on the game state, so with a node budget alone the decisions are deterministic. With a
+ * time budget, decisions can depend on the speed of the machine; recorded sessions replay anyway because the recorder
+ * stores the decisions, not the steering. The directions can be evaluated in parallel using the common fork-join pool.
+ * 
+ * @author Armin Reichert
+ */
+public class LookaheadSteering implements Steering {
+
+	/** Default number of simulated ticks per rollout (about 12 tiles at normal speed). */
+	public static final int DEFAULT_HORIZON = 96;
+
+	/** Default number of simulated ticks per decision. */
+	public static final int DEFAULT_NODE_BUDGET = 4 * 4 * DEFAULT_HORIZON;
+
+	/** Decisions are also taken inside corridors if a hunting ghost is at most this number of tiles away. */
+	static final int DANGER_DIST = 6;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final float DEATH_PENALTY = 5000;
+	private static final float LEVEL_COMPLETED_REWARD = 5000;
+	private static final float FOOD_DISTANCE_WEIGHT = 2;
+
+	/**
+	 * Scratch game and buffers of one direction. Each direction is evaluated by one thread at a time.
+	 */
+	private static class Rollout {
+
+		final SplitMix64Random random = new SplitMix64Random(0);
+		final ByteBuffer snapshot;
+		GameModel game;
+		float ratingSum;
+		int numRollouts;
+		long ticks;
+
+		Rollout(byte[] snapshotBytes) {
+			snapshot = ByteBuffer.wrap(snapshotBytes);
+		}
+	}
+
+	private final byte[] snapshotBytes = new byte[GameSnapshot.MAX_SIZE];
+	private final ByteBuffer snapshot = ByteBuffer.wrap(snapshotBytes);
+	private final Rollout[] rollouts = new Rollout[DIRECTIONS.length];
+	private final List<Callable<Void>> tasks = new ArrayList<>(DIRECTIONS.length);
+	private int horizon = DEFAULT_HORIZON;
+	private int nodeBudget = DEFAULT_NODE_BUDGET;
+	private long nanosBudget = Long.MAX_VALUE;
+	private boolean parallel;
+	private long decisions;
+	private long simulatedTicks;
+
+	public LookaheadSteering() {
+		for (int i = 0; i < rollouts.length; ++i) {
+			rollouts[i] = new Rollout(snapshotBytes);
+		}
+	}
+
+	/**
+	 * @param ticks number of simulated ticks per rollout
+	 */
+	public void setHorizon(int ticks) {
+		if (ticks <= 0) {
+			throw new IllegalArgumentException("Horizon must be positive but is " + ticks);
+		}
+		this.horizon = ticks;
+	}
+
+	public int horizon() {
+		return horizon;
+	}
+
+	/**
+	 * @param ticks number of simulated ticks per decision, shared equally by the possible directions
+	 */
+	public void setNodeBudget(int ticks) {
+		if (ticks <= 0) {
+			throw new IllegalArgumentException("Node budget must be positive but is " + ticks);
+		}
+		this.nodeBudget = ticks;
+	}
+
+	public int nodeBudget() {
+		return nodeBudget;
+	}
+
+	/**
+	 * Limits the wall-clock time per decision. Each direction gets at least one rollout.
+	 * 
+	 * @param duration time budget per decision
+	 */
+	public void setTimeBudget(Duration duration) {
+		checkNotNull(duration);
+		if (duration.isNegative() || duration.isZero()) {
+			throw new IllegalArgumentException("Time budget must be positive but is " + duration);
+		}
+		this.nanosBudget = duration.toNanos();
+	}
+
+	/**
+	 * @param parallel if the directions are evaluated in parallel using the common fork-join pool
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * @return number of decisions taken so far
+	 */
+	public long decisions() {
+		return decisions;
+	}
+
+	/**
+	 * @return number of ticks simulated so far
+	 */
+	public long simulatedTicks() {
+		return simulatedTicks;
+	}
+
+	@Override
+	public void init() {
+		// nothing to do
+	}
+
+	@Override
+	public void steer(GameLevel level, Creature guy) {
+		var pac = level.pac();
+		if (pac.moved() && !pac.isNewTileEntered()) {
+			return;
+		}
+		if (level.world().belongsToPortal(pac.tileX(), pac.tileY())) {
+			return;
+		}
+		if (!isDecisionPoint(level, pac)) {
+			return;
+		}
+		var best = decide(level);
+		if (best != null) {
+			pac.setWishDir(best);
+		}
+	}
+
+	private boolean isDecisionPoint(GameLevel level, Pac pac) {
+		if (!pac.moved() || level.world().isIntersection(pac.tileX(), pac.tileY())) {
+			return true;
+		}
+		int x = pac.tileX();
+		int y = pac.tileY();
+		var ahead = pac.moveDir().vector();
+		if (!pac.canAccessTile(x + ahead.x(), y + ahead.y(), level)) {
+			return true; // corner or dead end
+		}
+		var distances = level.world().distances();
+		for (byte id = 0; id < 4; ++id) {
+			Ghost ghost = level.ghost(id);
+			if (ghost.is(GhostState.HUNTING_PAC)) {
+				int dist = distances.distance(x, y, ghost.tileX(), ghost.tileY());
+				if (dist != DistanceTable.UNREACHABLE && dist <= DANGER_DIST) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private Direction decide(GameLevel level) {
+		var pac = level.pac();
+		int x = pac.tileX();
+		int y = pac.tileY();
+		long seed = level.game().randomSeed()
+				^ (((level.number() * 1009L + level.world().eatenFoodCount()) * 64 + x) * 64 + y) * 0x9e3779b97f4a7c15L;
+
+		snapshot.clear();
+		GameSnapshot.save(level.game(), snapshot);
+
+		// candidates: the move direction first such that ties keep Pac-Man going
+		tasks.clear();
+		var candidates = new Direction[DIRECTIONS.length];
+		int numCandidates = 0;
+		if (pac.canAccessTile(x + pac.moveDir().vector().x(), y + pac.moveDir().vector().y(), level)) {
+			candidates[numCandidates++] = pac.moveDir();
+		}
+		for (var dir : DIRECTIONS) {
+			if (dir != pac.moveDir() && pac.canAccessTile(x + dir.vector().x(), y + dir.vector().y(), level)) {
+				candidates[numCandidates++] = dir;
+			}
+		}
+		if (numCandidates < 2) {
+			return numCandidates == 1 ? candidates[0] : null;
+		}
+
+		long deadline = nanosBudget == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + nanosBudget;
+		int ticksPerCandidate = Math.max(horizon, nodeBudget / numCandidates);
+		for (int i = 0; i < numCandidates; ++i) {
+			var rollout = rollouts[i];
+			var dir = candidates[i];
+			tasks.add(() -> {
+				evaluate(level, rollout, dir, seed ^ dir.ordinal(), ticksPerCandidate, deadline);
+				return null;
+			});
+		}
+		if (parallel) {
+			try {
+				for (var future : ForkJoinPool.commonPool().invokeAll(tasks)) {
+					future.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Lookahead interrupted", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Lookahead failed", e.getCause());
+			}
+		} else {
+			for (int i = 0; i < numCandidates; ++i) {
+				var dir = candidates[i];
+				evaluate(level, rollouts[i], dir, seed ^ dir.ordinal(), ticksPerCandidate, deadline);
+			}
+		}
+
+		Direction best = null;
+		float bestRating = Float.NEGATIVE_INFINITY;
+		for (int i = 0; i < numCandidates; ++i) {
+			var rollout = rollouts[i];
+			simulatedTicks += rollout.ticks;
+			float rating = rollout.ratingSum / rollout.numRollouts;
+			if (rating > bestRating) {
+				bestRating = rating;
+				best = candidates[i];
+			}
+		}
+		++decisions;
+		return best;
+	}
+
+	private void evaluate(GameLevel level, Rollout rollout, Direction dir, long seed, int ticksBudget, long deadline) {
+		if (rollout.game == null || rollout.game.variant() != level.game().variant()) {
+			rollout.game = new GameModel(level.game().variant());
+			rollout.game.setSilent(true);
+			rollout.game.setHeadless(true);
+			rollout.game.setHighscorePersistent(false);
+		}
+		rollout.random.setState(seed);
+		rollout.ratingSum = 0;
+		rollout.numRollouts = 0;
+		rollout.ticks = 0;
+		do {
+			rollout.snapshot.clear();
+			GameSnapshot.restore(rollout.game, rollout.snapshot);
+			if (rollout.numRollouts > 0) {
+				// vary the random decisions of the frightened ghosts and the bonus between rollouts
+				rollout.game.random().setState(rollout.random.nextLong());
+			}
+			rollout.ratingSum += simulate(rollout, dir);
+			rollout.numRollouts += 1;
+		} while (rollout.ticks + horizon <= ticksBudget && System.nanoTime() < deadline);
+	}
+
+	/*
+	 * Simulates the level like the HUNTING state does, without the pauses of the other game states.
+	 */
+	private float simulate(Rollout rollout, Direction firstDir) {
+		var game = rollout.game;
+		var level = game.level().get();
+		var pac = level.pac();
+		int startScore = score(game);
+		pac.setWishDir(firstDir);
+		for (int t = 0; t < horizon; ++t) {
+			if (t > 0) {
+				rolloutPolicy(level, pac, rollout.random);
+			}
+			level.update();
+			rollout.ticks += 1;
+			if (level.isCompleted()) {
+				return score(game) - startScore + LEVEL_COMPLETED_REWARD;
+			}
+			if (level.pacKilled()) {
+				return score(game) - startScore - DEATH_PENALTY * (2 * horizon - t) / horizon;
+			}
+			if (level.memo().edibleGhostsExist()) {
+				level.killEdibleGhosts();
+				level.ghosts(GhostState.EATEN).forEach(ghost -> ghost.enterStateReturningToHouse(level));
+			}
+		}
+		return score(game) - startScore - FOOD_DISTANCE_WEIGHT * nearestFoodDistance(level, pac);
+	}
+
+	private static int score(GameModel game) {
+		return game.score().isPresent() ? game.score().get().points() : 0;
+	}
+
+	/*
+	 * At intersections and dead ends, takes a random direction that does not reverse, preferring directions with food.
+	 */
+	private static void rolloutPolicy(GameLevel level, Pac pac, SplitMix64Random random) {
+		if (pac.moved() && !pac.isNewTileEntered()) {
+			return;
+		}
+		int x = pac.tileX();
+		int y = pac.tileY();
+		var world = level.world();
+		if (world.belongsToPortal(x, y)) {
+			return;
+		}
+		var ahead = pac.moveDir().vector();
+		if (pac.moved() && !world.isIntersection(x, y) && pac.canAccessTile(x + ahead.x(), y + ahead.y(), level)) {
+			return;
+		}
+		int numChoices = 0;
+		int numFoodChoices = 0;
+		Direction choice = null;
+		Direction foodChoice = null;
+		for (var dir : DIRECTIONS) {
+			if (dir == pac.moveDir().opposite()) {
+				continue;
+			}
+			int nx = x + dir.vector().x();
+			int ny = y + dir.vector().y();
+			if (!pac.canAccessTile(nx, ny, level)) {
+				continue;
+			}
+			// reservoir sampling: each candidate is chosen with equal probability
+			if (random.nextInt(++numChoices) == 0) {
+				choice = dir;
+			}
+			if (world.containsFood(nx, ny) && random.nextInt(++numFoodChoices) == 0) {
+				foodChoice = dir;
+			}
+		}
+		if (foodChoice != null) {
+			pac.setWishDir(foodChoice);
+		} else if (choice != null) {
+			pac.setWishDir(choice);
+		} else {
+			pac.setWishDir(pac.moveDir().opposite());
+		}
+	}
+
+	private static int nearestFoodDistance(GameLevel level, Pac pac) {
+		int dist = level.world().findNearestFoodTiles(pac.tileX(), pac.tileY(), false, null);
+		return dist != DistanceTable.UNREACHABLE ? dist : 0;
+	}
+}
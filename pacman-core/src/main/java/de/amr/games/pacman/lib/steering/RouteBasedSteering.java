@@ -24,6 +24,7 @@ SOFTWARE.
 
 package de.amr.games.pacman.lib.steering;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.tinylog.Logger;
@@ -80,6 +81,61 @@ public class RouteBasedSteering implements Steering {
 		return complete;
 	}
 
+	/**
+	 * Writes route and progress of this steering.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		buffer.putShort((short) route.size());
+		for (var np : route) {
+			buffer.putShort((short) np.x()).putShort((short) np.y());
+			buffer.put((byte) (np.dir() != null ? np.dir().ordinal() : -1));
+		}
+		buffer.put((byte) targetIndex);
+		buffer.put((byte) (complete ? 1 : 0));
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		int size = buffer.getShort();
+		int start = buffer.position();
+		// the route is only recreated if it differs from the current route
+		if (!readSameRoute(buffer, size)) {
+			buffer.position(start);
+			var points = new NavigationPoint[size];
+			for (int i = 0; i < size; ++i) {
+				int x = buffer.getShort();
+				int y = buffer.getShort();
+				byte dir = buffer.get();
+				points[i] = NavigationPoint.np(x, y, dir != -1 ? Direction.values()[dir] : null);
+			}
+			route = List.of(points);
+		}
+		targetIndex = buffer.get();
+		complete = buffer.get() != 0;
+	}
+
+	private boolean readSameRoute(ByteBuffer buffer, int size) {
+		if (size != route.size()) {
+			return false;
+		}
+		for (int i = 0; i < size; ++i) {
+			var np = route.get(i);
+			int x = buffer.getShort();
+			int y = buffer.getShort();
+			byte dir = buffer.get();
+			if (x != np.x() || y != np.y() || dir != (np.dir() != null ? np.dir().ordinal() : -1)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private void nextTarget(GameLevel level, Creature guy) {
 		++targetIndex;
 		if (targetIndex < route.size()) {
@@ -23,6 +23,8 @@ SOFTWARE.
  */
 package de.amr.games.pacman.lib.steering;
 
+import static de.amr.games.pacman.lib.Globals.v2i;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
@@ -31,6 +33,7 @@ import java.util.List;
 import org.tinylog.Logger;
 
 import de.amr.games.pacman.controller.Steering;
+import de.amr.games.pacman.lib.SplitMix64Random;
 import de.amr.games.pacman.lib.math.Vector2i;
 import de.amr.games.pacman.model.GameLevel;
 import de.amr.games.pacman.model.actors.Bonus;
@@ -38,10 +41,16 @@ import de.amr.games.pacman.model.actors.Creature;
 import de.amr.games.pacman.model.actors.Ghost;
 import de.amr.games.pacman.model.actors.GhostState;
 import de.amr.games.pacman.model.actors.Pac;
+import de.amr.games.pacman.model.world.DistanceTable;
 import de.amr.games.pacman.model.world.World;
 
 /**
  * Pac-Man steering based on a set of rules.
+ * <p>
+ * Random decisions use a generator of its own, seeded from the game's random seed and the current game situation, such
+ * that steering does not consume random numbers of the game itself and its decisions only depend on the game state.
+ * Like user input, the decisions of the autopilot can be recorded and replayed without running the autopilot again, and
+ * a game restored from a snapshot is steered exactly like the original game.
  * 
  * @author Armin Reichert
  */
@@ -86,6 +95,8 @@ public class RuleBasedSteering implements Steering {
 		}
 	}
 
+	private final SplitMix64Random random = new SplitMix64Random(0);
+
 	@Override
 	public void init() {
 		// nothing to do
@@ -117,9 +128,9 @@ public class RuleBasedSteering implements Steering {
 			data.hunterBehindDistance = pac.tile().manhattanDistance(hunterBehind.tile());
 		}
 		data.frightenedGhosts = level.ghosts(GhostState.FRIGHTENED)
-				.filter(ghost -> ghost.tile().manhattanDistance(pac.tile()) <= CollectedData.MAX_GHOST_CHASE_DIST).toList();
+				.filter(ghost -> mazeDistance(level, ghost.tile(), pac.tile()) <= CollectedData.MAX_GHOST_CHASE_DIST).toList();
 		data.frightenedGhostsDistance = data.frightenedGhosts.stream()
-				.map(ghost -> ghost.tile().manhattanDistance(pac.tile())).toList();
+				.map(ghost -> mazeDistance(level, ghost.tile(), pac.tile())).toList();
 		return data;
 	}
 
@@ -147,7 +158,7 @@ public class RuleBasedSteering implements Steering {
 		if (!data.frightenedGhosts.isEmpty() && pac.powerTimer().remaining() >= 1 * 60) {
 			Ghost prey = data.frightenedGhosts.get(0);
 			Logger.trace("Detected frightened ghost {} {} tiles away", prey.name(),
-					prey.tile().manhattanDistance(pac.tile()));
+					mazeDistance(level, prey.tile(), pac.tile()));
 			pac.setTargetTile(prey.tile());
 		} else if (isEdibleBonusNearPac(level, pac)) {
 			Logger.trace("Detected active bonus");
@@ -167,7 +178,7 @@ public class RuleBasedSteering implements Steering {
 			var bonus = optBonus.get();
 			var tile = World.tileAt(bonus.entity().position());
 			return bonus.state() == Bonus.STATE_EDIBLE
-					&& tile.manhattanDistance(pac.tile()) <= CollectedData.MAX_BONUS_HARVEST_DIST;
+					&& mazeDistance(level, tile, pac.tile()) <= CollectedData.MAX_BONUS_HARVEST_DIST;
 		}
 		return false;
 	}
@@ -186,14 +197,15 @@ public class RuleBasedSteering implements Steering {
 			}
 			Vector2i aheadLeft = ahead.plus(pac.moveDir().succAntiClockwise().vector());
 			Vector2i aheadRight = ahead.plus(pac.moveDir().succClockwise().vector());
-			for (Ghost ghost : level.ghosts(GhostState.HUNTING_PAC).toArray(Ghost[]::new)) {
-				if (ghost.tile().equals(ahead) || ghost.tile().equals(aheadLeft) || ghost.tile().equals(aheadRight)) {
-					if (energizerFound) {
-						Logger.trace("Ignore hunting ghost ahead, energizer comes first!");
-						return null;
-					}
-					return ghost;
+			int hunters = level.ghostMask(GhostState.HUNTING_PAC) & (level.ghostsAt(ahead.x(), ahead.y())
+					| level.ghostsAt(aheadLeft.x(), aheadLeft.y()) | level.ghostsAt(aheadRight.x(), aheadRight.y()));
+			Ghost ghost = level.firstGhost(hunters);
+			if (ghost != null) {
+				if (energizerFound) {
+					Logger.trace("Ignore hunting ghost ahead, energizer comes first!");
+					return null;
 				}
+				return ghost;
 			}
 		}
 		return null;
@@ -207,10 +219,9 @@ public class RuleBasedSteering implements Steering {
 			if (!pac.canAccessTile(behind, level)) {
 				break;
 			}
-			for (Ghost ghost : level.ghosts().toArray(Ghost[]::new)) {
-				if (ghost.is(GhostState.HUNTING_PAC) && ghost.tile().equals(behind)) {
-					return ghost;
-				}
+			int hunters = level.ghostMask(GhostState.HUNTING_PAC) & level.ghostsAt(behind.x(), behind.y());
+			if (hunters != 0) {
+				return level.firstGhost(hunters);
 			}
 		}
 		return null;
@@ -220,7 +231,9 @@ public class RuleBasedSteering implements Steering {
 		var pac = level.pac();
 		Vector2i pacManTile = pac.tile();
 		List<Direction> escapes = new ArrayList<>(4);
-		for (Direction dir : Direction.shuffled()) {
+		long situation = ((level.number() * 1009L + level.world().eatenFoodCount()) * 64 + pac.tileX()) * 64 + pac.tileY();
+		random.setState(level.game().randomSeed() ^ situation * 0x9e3779b97f4a7c15L);
+		for (Direction dir : Direction.shuffled(random)) {
 			if (forbidden.contains(dir)) {
 				continue;
 			}
@@ -239,22 +252,35 @@ public class RuleBasedSteering implements Steering {
 	}
 
 	private List<Vector2i> findNearestFoodTiles(GameLevel level) {
-		long time = System.nanoTime();
+		var pac = level.pac();
+		var world = level.world();
+		boolean skipEnergizers = pac.powerTimer().remaining() > 2 * 60 && world.uneatenFoodCount() > 1;
+		List<Vector2i> foodTiles = new ArrayList<>(4);
+		int dist = world.findNearestFoodTiles(pac.tileX(), pac.tileY(), skipEnergizers, foodTiles);
+		if (dist == DistanceTable.UNREACHABLE) {
+			// Pac-Man is not on an accessible tile inside the world (e.g. inside a portal)
+			return scanNearestFoodTiles(level);
+		}
+		Logger.trace("Nearest food tiles from Pac-Man location {}: {} ({} tiles away)", pac.tile(), foodTiles, dist);
+		return foodTiles;
+	}
+
+	private List<Vector2i> scanNearestFoodTiles(GameLevel level) {
 		var pac = level.pac();
 		List<Vector2i> foodTiles = new ArrayList<>();
 		Vector2i pacManTile = pac.tile();
 		float minDist = Float.MAX_VALUE;
 		for (int x = 0; x < level.world().numCols(); ++x) {
 			for (int y = 0; y < level.world().numRows(); ++y) {
-				Vector2i tile = new Vector2i(x, y);
-				if (!level.world().isFoodTile(tile) || level.world().containsEatenFood(tile)) {
+				if (!level.world().containsFood(x, y)) {
 					continue;
 				}
-				if (level.world().isEnergizerTile(tile) && pac.powerTimer().remaining() > 2 * 60
+				if (level.world().isEnergizerTile(x, y) && pac.powerTimer().remaining() > 2 * 60
 						&& level.world().uneatenFoodCount() > 1) {
 					continue;
 				}
-				float dist = pacManTile.manhattanDistance(tile);
+				Vector2i tile = v2i(x, y);
+				float dist = mazeDistance(level, pacManTile, tile);
 				if (dist < minDist) {
 					minDist = dist;
 					foodTiles.clear();
@@ -264,12 +290,6 @@ public class RuleBasedSteering implements Steering {
 				}
 			}
 		}
-		time = System.nanoTime() - time;
-		Logger.trace("Nearest food tiles from Pac-Man location {}: (time {} millis)", pacManTile, time / 1_000_000f);
-		for (Vector2i t : foodTiles) {
-			Logger.trace("\t{} ({} tiles away from Pac-Man, {} tiles away from ghosts)", t, t.manhattanDistance(pacManTile),
-					minDistanceFromGhosts(level));
-		}
 		return foodTiles;
 	}
 
@@ -277,7 +297,7 @@ public class RuleBasedSteering implements Steering {
 		Vector2i farestTile = null;
 		float maxDist = -1;
 		for (Vector2i tile : tiles) {
-			float dist = minDistanceFromGhosts(level);
+			float dist = minDistanceFromGhosts(level, tile);
 			if (dist > maxDist) {
 				maxDist = dist;
 				farestTile = tile;
@@ -286,8 +306,20 @@ public class RuleBasedSteering implements Steering {
 		return farestTile;
 	}
 
-	private float minDistanceFromGhosts(GameLevel level) {
-		var pac = level.pac();
-		return (float) level.ghosts().map(Ghost::tile).mapToDouble(pac.tile()::manhattanDistance).min().getAsDouble();
+	private float minDistanceFromGhosts(GameLevel level, Vector2i tile) {
+		float minDist = Float.MAX_VALUE;
+		for (byte id = 0; id < 4; ++id) {
+			minDist = Math.min(minDist, mazeDistance(level, tile, level.ghost(id).tile()));
+		}
+		return minDist;
+	}
+
+	/*
+	 * Distance along the maze paths if both tiles are accessible maze tiles, Manhattan distance otherwise (e.g. for tiles
+	 * inside the ghost house or inside a portal).
+	 */
+	private static float mazeDistance(GameLevel level, Vector2i from, Vector2i to) {
+		int dist = level.world().distances().distance(from, to);
+		return dist != DistanceTable.UNREACHABLE ? dist : from.manhattanDistance(to);
 	}
 }
\ No newline at end of file
@@ -28,6 +28,7 @@ import static de.amr.games.pacman.lib.timer.TickTimer.State.READY;
 import static de.amr.games.pacman.lib.timer.TickTimer.State.RUNNING;
 import static de.amr.games.pacman.lib.timer.TickTimer.State.STOPPED;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Consumer;
@@ -60,6 +61,8 @@ public class TickTimer {
 		return ticks == INDEFINITE ? "indefinite" : "%d".formatted(ticks);
 	}
 
+	private static final State[] STATES = State.values();
+
 	private final String name;
 	private State state;
 	private long duration;
@@ -207,6 +210,25 @@ public class TickTimer {
 		}
 	}
 
+	/**
+	 * Advances the timer by the given number of steps at once, if it is running. The timer stops at its duration and
+	 * does not expire, so the step reaching the expiration is always a regular {@link #advance()}.
+	 * 
+	 * @param ticks number of steps to advance
+	 * @return number of steps actually advanced
+	 */
+	public long skip(long ticks) {
+		if (ticks < 0) {
+			throw new IllegalArgumentException("Number of ticks to skip must not be negative but is " + ticks);
+		}
+		if (state != RUNNING) {
+			return 0;
+		}
+		long n = Math.min(ticks, duration - tick);
+		tick += n;
+		return n;
+	}
+
 	/**
 	 * Forces the timer to expire.
 	 */
@@ -253,4 +275,41 @@ public class TickTimer {
 	public long remaining() {
 		return duration == INDEFINITE ? INDEFINITE : duration - tick;
 	}
+
+	/**
+	 * @param eventTicks ticks at which a client of this timer reacts, in any order
+	 * @return number of ticks until the next of the given ticks or until the timer reaches its duration, whatever comes
+	 *         first
+	 */
+	public long ticksUntil(long... eventTicks) {
+		long result = remaining();
+		for (long eventTick : eventTicks) {
+			if (eventTick >= tick && eventTick - tick < result) {
+				result = eventTick - tick;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Writes state, duration and current tick of this timer. Listeners are not part of the state.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		buffer.put((byte) state.ordinal());
+		buffer.putLong(duration);
+		buffer.putLong(tick);
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}. No events are fired.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		state = STATES[buffer.get()];
+		duration = buffer.getLong();
+		tick = buffer.getLong();
+	}
 }
\ No newline at end of file
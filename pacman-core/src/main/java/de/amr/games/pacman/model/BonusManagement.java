@@ -24,17 +24,14 @@ SOFTWARE.
 
 package de.amr.games.pacman.model;
 
-import static de.amr.games.pacman.lib.Globals.RND;
 import static de.amr.games.pacman.lib.steering.NavigationPoint.np;
 import static de.amr.games.pacman.model.world.World.halfTileRightOf;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Optional;
 
-import org.tinylog.Logger;
-
 import de.amr.games.pacman.event.GameEventType;
-import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.lib.Globals;
 import de.amr.games.pacman.lib.steering.Direction;
 import de.amr.games.pacman.lib.steering.NavigationPoint;
@@ -131,7 +128,7 @@ public class BonusManagement {
 			case 6 -> GameModel.MS_PACMAN_PEAR;
 			case 7 -> GameModel.MS_PACMAN_BANANA;
 			default -> {
-				int random = Globals.randomInt(0, 320);
+				int random = Globals.randomInt(level.game().random(), 0, 320);
 				if (random < 50)  yield GameModel.MS_PACMAN_CHERRIES;
 				if (random < 100) yield GameModel.MS_PACMAN_STRAWBERRY;
 				if (random < 150) yield GameModel.MS_PACMAN_PEACH_ORANGE;
@@ -144,6 +141,56 @@ public class BonusManagement {
 		};
 	}
 
+	/**
+	 * Writes the bonus symbols of the level and the state of the current bonus.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		for (var info : bonusInfo) {
+			buffer.put(info.symbol());
+			buffer.putInt(info.points());
+		}
+		buffer.put((byte) (bonus != null ? bonusIndex(bonus) : -1));
+		if (bonus != null) {
+			bonus.saveState(buffer);
+		}
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}. The current bonus is recreated if needed.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		for (int i = 0; i < bonusInfo.length; ++i) {
+			byte symbol = buffer.get();
+			int points = buffer.getInt();
+			if (bonusInfo[i] == null || bonusInfo[i].symbol() != symbol || bonusInfo[i].points() != points) {
+				bonusInfo[i] = new BonusInfo(symbol, points);
+			}
+		}
+		byte index = buffer.get();
+		if (index == -1) {
+			bonus = null;
+			return;
+		}
+		var info = bonusInfo[index];
+		if (bonus == null || bonus.symbol() != info.symbol() || bonus.points() != info.points()) {
+			bonus = switch (level.game().variant()) {
+			case MS_PACMAN -> new MovingBonus(info);
+			case PACMAN -> new StaticBonus(info);
+			default -> throw new IllegalGameVariantException(level.game().variant());
+			};
+		}
+		bonus.restoreState(buffer);
+	}
+
+	private int bonusIndex(Bonus bonus) {
+		var info = bonusInfo[0];
+		return bonus.symbol() == info.symbol() && bonus.points() == info.points() ? 0 : 1;
+	}
+
 	public boolean isFirstBonusReached() {
 		return switch (level.game().variant()) {
 		case MS_PACMAN -> level.world().eatenFoodCount() == 64;
@@ -189,19 +236,19 @@ public class BonusManagement {
 		switch (level.game().variant()) {
 		case MS_PACMAN -> {
 			if (bonusIndex == 1 && bonus != null && bonus.state() != Bonus.STATE_INACTIVE) {
-				Logger.info("First bonus still active, skip second one");
+				level.game().log("First bonus still active, skip second one");
 				return;
 			}
 			bonus = createMovingBonus(bonusIndex);
 			bonus.setEdible(TickTimer.INDEFINITE);
-			Logger.info("Moving bonus activated");
-			GameEvents.publishGameEvent(GameEventType.BONUS_GETS_ACTIVE, bonus.entity().tile());
+			level.game().log("Moving bonus activated");
+			level.game().publishGameEvent(GameEventType.BONUS_GETS_ACTIVE, bonus.entity().tile());
 		}
 		case PACMAN -> {
 			bonus = createStaticBonus(bonusIndex);
-			int ticks = 10 * GameModel.FPS - RND.nextInt(GameModel.FPS); // between 9 and 10 seconds
+			int ticks = 10 * GameModel.FPS - level.game().random().nextInt(GameModel.FPS); // between 9 and 10 seconds
 			bonus.setEdible(ticks);
-			GameEvents.publishGameEvent(GameEventType.BONUS_GETS_ACTIVE, bonus.entity().tile());
+			level.game().publishGameEvent(GameEventType.BONUS_GETS_ACTIVE, bonus.entity().tile());
 		}
 		default -> throw new IllegalGameVariantException(level.game().variant());
 		}
@@ -221,9 +268,9 @@ public class BonusManagement {
 	 **/
 	private Bonus createMovingBonus(int bonusIndex) {
 		var portals = level.world().portals();
-		var leftToRight = RND.nextBoolean();
-		var entryPortal = portals.get(RND.nextInt(portals.size()));
-		var exitPortal = portals.get(RND.nextInt(portals.size()));
+		var leftToRight = level.game().random().nextBoolean();
+		var entryPortal = portals.get(level.game().random().nextInt(portals.size()));
+		var exitPortal = portals.get(level.game().random().nextInt(portals.size()));
 		var startPoint = leftToRight ? np(entryPortal.leftTunnelEnd()) : np(entryPortal.rightTunnelEnd());
 		var exitPoint = leftToRight ? np(exitPortal.rightTunnelEnd().plus(1, 0))
 				: np(exitPortal.leftTunnelEnd().minus(1, 0));
@@ -241,7 +288,7 @@ public class BonusManagement {
 		movingBonus.setRoute(route);
 		movingBonus.entity().placeAtTile(startPoint.tile(), 0, 0);
 		movingBonus.entity().setMoveAndWishDir(leftToRight ? Direction.RIGHT : Direction.LEFT);
-		Logger.info("Moving bonus created, route: {} ({})", route, (leftToRight ? "left to right" : "right to left"));
+		level.game().log("Moving bonus created, route: {} ({})", route, (leftToRight ? "left to right" : "right to left"));
 
 		return movingBonus;
 	}
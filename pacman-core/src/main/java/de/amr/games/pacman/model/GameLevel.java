@@ -42,24 +42,30 @@ import static de.amr.games.pacman.model.actors.GhostState.LEAVING_HOUSE;
 import static de.amr.games.pacman.model.actors.GhostState.LOCKED;
 import static de.amr.games.pacman.model.world.World.halfTileRightOf;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import org.tinylog.Logger;
 
 import de.amr.games.pacman.controller.Steering;
 import de.amr.games.pacman.event.GameEventType;
-import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.lib.anim.Animated;
 import de.amr.games.pacman.lib.math.Vector2i;
 import de.amr.games.pacman.lib.steering.Direction;
+import de.amr.games.pacman.lib.steering.RouteBasedSteering;
 import de.amr.games.pacman.lib.timer.TickTimer;
 import de.amr.games.pacman.model.actors.Creature;
 import de.amr.games.pacman.model.actors.Ghost;
 import de.amr.games.pacman.model.actors.GhostState;
+import de.amr.games.pacman.model.actors.GhostStateIndex;
+import de.amr.games.pacman.model.actors.OccupancyGrid;
 import de.amr.games.pacman.model.actors.Pac;
 import de.amr.games.pacman.model.world.World;
 
@@ -117,6 +123,9 @@ public class GameLevel {
 
 	private final TickTimer huntingTimer = new TickTimer("HuntingTimer");
 
+	/** Number of updates of this level. */
+	private long tick;
+
 	/** Memorizes what happens during a frame. */
 	private final Memory memo = new Memory();
 
@@ -126,6 +135,10 @@ public class GameLevel {
 
 	private final Ghost[] ghosts;
 
+	private final GhostStateIndex ghostStateIndex = new GhostStateIndex();
+
+	private final OccupancyGrid ghostOccupancy;
+
 	private Steering pacSteering;
 
 	private int huntingPhase;
@@ -167,6 +180,11 @@ public class GameLevel {
 				new Ghost(CYAN_GHOST, "Inky"), //
 				new Ghost(ORANGE_GHOST, game.variant() == GameVariant.MS_PACMAN ? "Sue" : "Clyde") //
 		};
+		ghostOccupancy = new OccupancyGrid(world.numCols(), world.numRows(), ghosts.length);
+		for (var ghost : ghosts) {
+			ghost.setStateIndex(ghostStateIndex);
+			ghost.setOccupancyGrid(ghostOccupancy);
+		}
 
 		// Blinky: attacks Pac-Man directly
 		ghosts[RED_GHOST].setInitialDirection(Direction.LEFT);
@@ -228,6 +246,13 @@ public class GameLevel {
 		return bonusManagement;
 	}
 
+	/**
+	 * @return number of updates of this level, can be used to derive animation frames in headless games
+	 */
+	public long tick() {
+		return tick;
+	}
+
 	public TickTimer huntingTimer() {
 		return huntingTimer;
 	}
@@ -273,12 +298,69 @@ public class GameLevel {
 	 */
 	public Stream<Ghost> ghosts(GhostState... states) {
 		if (states.length > 0) {
-			return Stream.of(ghosts).filter(ghost -> ghost.is(states));
+			int mask = ghostStateIndex.mask(states);
+			if (mask == 0) {
+				return Stream.empty();
+			}
+			return Stream.of(ghosts).filter(ghost -> (mask & GhostStateIndex.bit(ghost.id())) != 0);
 		}
-		// when no states are given, return *all* ghosts (ghost.is() would return *no* ghosts!)
+		// when no states are given, return *all* ghosts
 		return Stream.of(ghosts);
 	}
 
+	/**
+	 * @param state ghost state
+	 * @return bit mask of the IDs of the ghosts in the given state, see {@link GhostStateIndex}
+	 */
+	public int ghostMask(GhostState state) {
+		return ghostStateIndex.mask(state);
+	}
+
+	/**
+	 * Executes the given action for each ghost in the given mask, in order of the ghost IDs. Ghosts changing their state
+	 * during the iteration do not affect which ghosts are visited.
+	 * 
+	 * @param mask   bit mask of ghost IDs, e.g. {@link #ghostMask(GhostState)}
+	 * @param action action to execute
+	 */
+	public void forEachGhost(int mask, Consumer<Ghost> action) {
+		for (int m = mask; m != 0; m &= m - 1) {
+			action.accept(ghosts[Integer.numberOfTrailingZeros(m)]);
+		}
+	}
+
+	/**
+	 * @param tileX tile x-coordinate
+	 * @param tileY tile y-coordinate
+	 * @return bit mask of the IDs of the ghosts at the given tile, see {@link OccupancyGrid}
+	 */
+	public int ghostsAt(int tileX, int tileY) {
+		return ghostOccupancy.actorsAt(tileX, tileY);
+	}
+
+	/**
+	 * @param mask bit mask of ghost IDs
+	 * @return ghost with the lowest ID in the given mask or <code>null</code> if the mask is empty
+	 */
+	public Ghost firstGhost(int mask) {
+		return mask != 0 ? ghosts[Integer.numberOfTrailingZeros(mask)] : null;
+	}
+
+	/**
+	 * @param mask      bit mask of ghost IDs, e.g. {@link #ghostMask(GhostState)}
+	 * @param condition condition to check
+	 * @return first ghost (in order of the ghost IDs) in the given mask fulfilling the condition or <code>null</code>
+	 */
+	public Ghost findGhost(int mask, Predicate<Ghost> condition) {
+		for (int m = mask; m != 0; m &= m - 1) {
+			var ghost = ghosts[Integer.numberOfTrailingZeros(m)];
+			if (condition.test(ghost)) {
+				return ghost;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * @return Pac-Man and the ghosts in order RED, PINK, CYAN, ORANGE
 	 */
@@ -365,13 +447,15 @@ public class GameLevel {
 		var ticks = durations[phase] == -1 ? TickTimer.INDEFINITE : durations[phase];
 		huntingTimer.reset(ticks);
 		huntingTimer.start();
-		Logger.info("Hunting phase {} ({}, {} ticks / {} seconds) started. {}", phase, currentHuntingPhaseName(),
-				huntingTimer.duration(), (float) huntingTimer.duration() / GameModel.FPS, huntingTimer);
+		if (!game.isSilent()) {
+			Logger.info("Hunting phase {} ({}, {} ticks / {} seconds) started. {}", phase, currentHuntingPhaseName(),
+					huntingTimer.duration(), (float) huntingTimer.duration() / GameModel.FPS, huntingTimer);
+		}
 	}
 
 	private void stopHuntingTimer() {
 		huntingTimer.stop();
-		Logger.info("Hunting timer stopped");
+		game.log("Hunting timer stopped");
 	}
 
 	/**
@@ -455,7 +539,7 @@ public class GameLevel {
 	 */
 	public void letsGetReadyToRumbleAndShowGuys(boolean guysVisible) {
 		pac.reset();
-		pac.setPosition(halfTileRightOf(13, 26));
+		pac.setPosition(halfTileRightOf(World.PAC_START_TILE.x(), World.PAC_START_TILE.y()));
 		pac.setMoveAndWishDir(Direction.LEFT);
 		pac.setVisible(guysVisible);
 		ghosts().forEach(ghost -> {
@@ -512,7 +596,65 @@ public class GameLevel {
 		}
 	}
 
+	/**
+	 * Writes the state of this level: tick counter, hunting timer and counters, world, Pac-Man, ghosts, bonus and ghost
+	 * house. The {@link #memo() memo} is not written, it only lives during a single update. Of the Pac-Man steering only
+	 * the progress of a route (demo level) is written.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		buffer.putLong(tick);
+		huntingTimer.saveState(buffer);
+		buffer.put((byte) huntingPhase);
+		buffer.put((byte) numGhostsKilledInLevel);
+		buffer.put((byte) numGhostsKilledByEnergizer);
+		buffer.put(cruiseElroyState);
+		world.saveState(buffer);
+		pac.saveState(buffer);
+		for (var ghost : ghosts) {
+			ghost.saveState(buffer);
+		}
+		bonusManagement.saveState(buffer);
+		ghostHouseManagement.saveState(buffer);
+		if (pacSteering instanceof RouteBasedSteering routeSteering) {
+			buffer.put((byte) 1);
+			routeSteering.saveState(buffer);
+		} else {
+			buffer.put((byte) 0);
+		}
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)} into this level. The level must have the same number as
+	 * the level the state was taken from.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		tick = buffer.getLong();
+		huntingTimer.restoreState(buffer);
+		huntingPhase = buffer.get();
+		numGhostsKilledInLevel = buffer.get();
+		numGhostsKilledByEnergizer = buffer.get();
+		cruiseElroyState = buffer.get();
+		world.restoreState(buffer);
+		pac.restoreState(buffer);
+		for (var ghost : ghosts) {
+			ghost.restoreState(buffer);
+		}
+		bonusManagement.restoreState(buffer);
+		ghostHouseManagement.restoreState(buffer);
+		if (buffer.get() != 0) {
+			if (!(pacSteering instanceof RouteBasedSteering)) {
+				pacSteering = new RouteBasedSteering();
+			}
+			((RouteBasedSteering) pacSteering).restoreState(buffer);
+		}
+	}
+
 	public void update() {
+		++tick;
 		collectInformation();
 
 		// Food
@@ -534,14 +676,15 @@ public class GameLevel {
 				game.scorePoints(GameModel.POINTS_NORMAL_PELLET);
 			}
 			ghostHouseManagement.update();
-			GameEvents.publishGameEvent(GameEventType.PAC_FINDS_FOOD, foodTile);
-			GameEvents.publishSoundEvent(GameModel.SE_PACMAN_FOUND_FOOD);
+			game.publishGameEvent(GameEventType.PAC_FINDS_FOOD, foodTile);
+			game.publishSoundEvent(GameModel.SE_PACMAN_FOUND_FOOD);
 		} else {
 			pac.starve();
 		}
 
 		if (isCompleted()) {
 			logMemo();
+			notifyUpdateObserver();
 			return;
 		}
 
@@ -553,22 +696,24 @@ public class GameLevel {
 		// Pac power state changes
 		if (memo.pacPowerStarts) {
 			pac.powerTimer().restartSeconds(pacPowerSeconds);
-			Logger.info("{} power starting, duration {} ticks", pac.name(), pac.powerTimer().duration());
-			ghosts(HUNTING_PAC).forEach(Ghost::enterStateFrightened);
-			ghosts(FRIGHTENED).forEach(Ghost::reverseAsSoonAsPossible);
-			GameEvents.publishGameEventOfType(GameEventType.PAC_GETS_POWER);
-			GameEvents.publishSoundEvent(GameModel.SE_PACMAN_POWER_STARTS);
+			if (!game.isSilent()) {
+				Logger.info("{} power starting, duration {} ticks", pac.name(), pac.powerTimer().duration());
+			}
+			forEachGhost(ghostMask(HUNTING_PAC), Ghost::enterStateFrightened);
+			forEachGhost(ghostMask(FRIGHTENED), Ghost::reverseAsSoonAsPossible);
+			game.publishGameEventOfType(GameEventType.PAC_GETS_POWER);
+			game.publishSoundEvent(GameModel.SE_PACMAN_POWER_STARTS);
 		} else if (memo.pacPowerFading) {
-			GameEvents.publishGameEventOfType(GameEventType.PAC_STARTS_LOSING_POWER);
+			game.publishGameEventOfType(GameEventType.PAC_STARTS_LOSING_POWER);
 		} else if (memo.pacPowerLost) {
-			Logger.info("{} power ends, timer: {}", pac.name(), pac.powerTimer());
+			game.log("{} power ends, timer: {}", pac.name(), pac.powerTimer());
 			huntingTimer.start();
-			Logger.info("Hunting timer restarted");
+			game.log("Hunting timer restarted");
 			pac.powerTimer().stop();
 			pac.powerTimer().resetIndefinitely();
-			ghosts(FRIGHTENED).forEach(Ghost::enterStateHuntingPac);
-			GameEvents.publishGameEventOfType(GameEventType.PAC_LOSES_POWER);
-			GameEvents.publishSoundEvent(GameModel.SE_PACMAN_POWER_ENDS);
+			forEachGhost(ghostMask(FRIGHTENED), Ghost::enterStateHuntingPac);
+			game.publishGameEventOfType(GameEventType.PAC_LOSES_POWER);
+			game.publishSoundEvent(GameModel.SE_PACMAN_POWER_ENDS);
 		}
 
 		checkIfGhostCanGetUnlocked();
@@ -581,11 +726,21 @@ public class GameLevel {
 		}
 
 		// Who must die?
-		memo.pacPrey = ghosts(FRIGHTENED).filter(pac::sameTile).toList();
-		memo.pacKilled = !game.isImmune() && ghosts(HUNTING_PAC).anyMatch(pac::sameTile);
+		int ghostsAtPac = ghostsAt(pac.tileX(), pac.tileY());
+		int prey = ghostsAtPac & ghostMask(FRIGHTENED);
+		if (prey != 0) {
+			var preyList = new ArrayList<Ghost>(Integer.bitCount(prey));
+			forEachGhost(prey, preyList::add);
+			memo.pacPrey = preyList;
+		} else {
+			memo.pacPrey = Collections.emptyList();
+		}
+		memo.pacKilled = !game.isImmune() && (ghostsAtPac & ghostMask(HUNTING_PAC)) != 0;
 
 		// Update world and guys
-		world.animation(GameModel.AK_MAZE_ENERGIZER_BLINKING).ifPresent(Animated::animate);
+		if (!game.isHeadless()) {
+			world.animation(GameModel.AK_MAZE_ENERGIZER_BLINKING).ifPresent(Animated::animate);
+		}
 		pac.update(this);
 		ghosts().forEach(ghost -> ghost.update(this));
 		bonusManagement.updateBonus();
@@ -596,13 +751,25 @@ public class GameLevel {
 		} else {
 			boolean huntingPhaseChange = updateHuntingTimer();
 			if (huntingPhaseChange) {
-				ghosts(HUNTING_PAC, LOCKED, LEAVING_HOUSE).forEach(Ghost::reverseAsSoonAsPossible);
+				forEachGhost(ghostMask(HUNTING_PAC) | ghostMask(LOCKED) | ghostMask(LEAVING_HOUSE),
+						Ghost::reverseAsSoonAsPossible);
 			}
 		}
 		logMemo();
+		notifyUpdateObserver();
+	}
+
+	private void notifyUpdateObserver() {
+		var observer = game.levelUpdateObserver();
+		if (observer != null) {
+			observer.onLevelUpdated(this);
+		}
 	}
 
 	private void logMemo() {
+		if (game.isSilent()) {
+			return;
+		}
 		var memoText = memo.toString();
 		if (!memoText.isBlank()) {
 			Logger.trace(memo);
@@ -650,7 +817,9 @@ public class GameLevel {
 		pac.killed();
 		ghostHouseManagement.onPacKilled();
 		setCruiseElroyStateEnabled(false);
-		Logger.info("{} died at tile {}", pac.name(), pac.tile());
+		if (!game.isSilent()) {
+			Logger.info("{} died at tile {}", pac.name(), pac.tile());
+		}
 	}
 
 	public boolean isCompleted() {
@@ -665,7 +834,7 @@ public class GameLevel {
 				// Blinky's "cruise elroy" state is re-enabled when orange ghost is unlocked
 				setCruiseElroyStateEnabled(true);
 			}
-			Logger.info("{} unlocked: {}", unlockInfo.ghost().name(), unlockInfo.reason());
+			game.log("{} unlocked: {}", unlockInfo.ghost().name(), unlockInfo.reason());
 		});
 	}
 }
\ No newline at end of file
@@ -32,17 +32,24 @@ import static de.amr.games.pacman.lib.steering.NavigationPoint.np;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 
 import org.tinylog.Logger;
 
-import de.amr.games.pacman.event.GameEvents;
+import de.amr.games.pacman.event.GameEvent;
+import de.amr.games.pacman.event.GameEventBus;
+import de.amr.games.pacman.event.GameEventType;
+import de.amr.games.pacman.event.SoundEvent;
+import de.amr.games.pacman.lib.SplitMix64Random;
 import de.amr.games.pacman.lib.math.Vector2i;
 import de.amr.games.pacman.lib.steering.Direction;
 import de.amr.games.pacman.lib.steering.NavigationPoint;
@@ -461,6 +468,9 @@ public class GameModel {
 	public static int initialLives = 3;
 
 	private final GameVariant variant;
+	private final GameEventBus eventBus;
+	private final SplitMix64Random random = new SplitMix64Random();
+	private long randomSeed;
 	private GameLevel level;
 	private final List<Byte> levelCounter = new LinkedList<>();
 	private Score score;
@@ -470,11 +480,40 @@ public class GameModel {
 	private boolean playing;
 	private boolean scoringEnabled;
 	private boolean immune; // extra feature
+	private boolean highscorePersistent = true;
 	private boolean oneLessLifeDisplayed; // TODO get rid of this
 	public int intermissionTestNumber; // intermission test mode
 
+	/*
+	 * Events are immutable and carry no publish-time state (see GameEvent), so the events published most often (per
+	 * eaten pellet) are created once and reused.
+	 */
+	private final GameEvent[] plainEvents = new GameEvent[GameEventType.values().length];
+	private final GameEvent[][] tileEvents = new GameEvent[GameEventType.values().length][];
+	private final Map<String, SoundEvent> soundEvents = new HashMap<>();
+
+	private LevelUpdateObserver levelUpdateObserver;
+	private boolean silent;
+	private boolean headless;
+
+	/**
+	 * Creates a game model with its own event bus.
+	 * 
+	 * @param variant game variant
+	 */
 	public GameModel(GameVariant variant) {
+		this(variant, new GameEventBus());
+	}
+
+	/**
+	 * @param variant  game variant
+	 * @param eventBus event bus where the events of this game are published
+	 */
+	public GameModel(GameVariant variant, GameEventBus eventBus) {
+		checkNotNull(eventBus);
 		this.variant = variant;
+		this.eventBus = eventBus;
+		setRandomSeed(random.nextLong());
 		init();
 	}
 
@@ -497,6 +536,194 @@ public class GameModel {
 		return variant;
 	}
 
+	/**
+	 * @return the random generator used for all random decisions in this game (ghost roaming, bonus selection,
+	 *         autopilot)
+	 */
+	public SplitMix64Random random() {
+		return random;
+	}
+
+	/**
+	 * @return the seed the random generator of this game was last initialized with
+	 */
+	public long randomSeed() {
+		return randomSeed;
+	}
+
+	/**
+	 * Re-initializes the random generator of this game. Two games with the same seed and the same input run identically.
+	 * 
+	 * @param seed random seed
+	 */
+	public void setRandomSeed(long seed) {
+		randomSeed = seed;
+		random.setState(seed);
+	}
+
+	/**
+	 * @return the event bus where the events of this game are published
+	 */
+	public GameEventBus eventBus() {
+		return eventBus;
+	}
+
+	/**
+	 * @return the observer of the level updates or {@code null}
+	 */
+	public LevelUpdateObserver levelUpdateObserver() {
+		return levelUpdateObserver;
+	}
+
+	/**
+	 * @param observer observer called after each level update, {@code null} removes the observer
+	 */
+	public void setLevelUpdateObserver(LevelUpdateObserver observer) {
+		this.levelUpdateObserver = observer;
+	}
+
+	/**
+	 * @return if this game does not log the progress of its levels
+	 */
+	public boolean isSilent() {
+		return silent;
+	}
+
+	/**
+	 * A silent game does not log the progress of its levels (hunting phases, power, bonus etc.). This is used for games
+	 * that are only simulated ahead, for example by a search-based steering, and would flood the log otherwise.
+	 * 
+	 * @param silent if this game is silent
+	 */
+	public void setSilent(boolean silent) {
+		this.silent = silent;
+	}
+
+	/**
+	 * Logs a message about the progress of the game unless the game is silent. There are only fixed-arity variants such
+	 * that no varargs array is created. Call sites with primitive or computed arguments check {@link #isSilent()}
+	 * themselves, so silent games (lookahead simulations) do not pay for boxing.
+	 * 
+	 * @param message message
+	 */
+	public void log(String message) {
+		if (!silent) {
+			Logger.info(message);
+		}
+	}
+
+	/**
+	 * @param message message with "{}" placeholder
+	 * @param arg     placeholder value
+	 * @see #log(String)
+	 */
+	public void log(String message, Object arg) {
+		if (!silent) {
+			Logger.info(message, arg);
+		}
+	}
+
+	/**
+	 * @param message message with "{}" placeholders
+	 * @param arg1    first placeholder value
+	 * @param arg2    second placeholder value
+	 * @see #log(String)
+	 */
+	public void log(String message, Object arg1, Object arg2) {
+		if (!silent) {
+			Logger.info(message, arg1, arg2);
+		}
+	}
+
+	/**
+	 * @return if this game does not update any animations
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * A headless game runs without user interface and does not update the animations of the maze and the guys in its
+	 * simulation loop. Animations never affect the gameplay. If a user interface is attached later, the animation frames
+	 * can be derived from the level tick counter, see {@link GameLevel#tick()}.
+	 * 
+	 * @param headless if this game is headless
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	public void publishGameEvent(GameEvent event) {
+		eventBus.publish(event);
+	}
+
+	/**
+	 * Publishes an event of the given type related to the given tile. Nothing is created if nobody listens to this event
+	 * type.
+	 * 
+	 * @param type event type
+	 * @param tile tile related to the event
+	 */
+	public void publishGameEvent(GameEventType type, Vector2i tile) {
+		checkNotNull(type);
+		checkNotNull(tile);
+		if (eventBus.hasListeners(type)) {
+			eventBus.publish(tileEvent(type, tile));
+		}
+	}
+
+	/**
+	 * Publishes an event of the given type. Nothing is created if nobody listens to this event type.
+	 * 
+	 * @param type event type
+	 */
+	public void publishGameEventOfType(GameEventType type) {
+		checkNotNull(type);
+		if (eventBus.hasListeners(type)) {
+			var event = plainEvents[type.ordinal()];
+			if (event == null) {
+				event = new GameEvent(this, type, null);
+				plainEvents[type.ordinal()] = event;
+			}
+			eventBus.publish(event);
+		}
+	}
+
+	/**
+	 * Publishes a sound event. Nothing is created if sound events are disabled or nobody listens to them.
+	 * 
+	 * @param soundCommand sound event ID
+	 */
+	public void publishSoundEvent(String soundCommand) {
+		checkNotNull(soundCommand);
+		if (eventBus.hasListeners(GameEventType.SOUND_EVENT)) {
+			var event = soundEvents.get(soundCommand);
+			if (event == null) {
+				event = new SoundEvent(this, soundCommand);
+				soundEvents.put(soundCommand, event);
+			}
+			eventBus.publish(event);
+		}
+	}
+
+	private GameEvent tileEvent(GameEventType type, Vector2i tile) {
+		if (tile.x() < 0 || tile.x() >= World.TILES_X || tile.y() < 0 || tile.y() >= World.TILES_Y) {
+			return new GameEvent(this, type, tile);
+		}
+		var events = tileEvents[type.ordinal()];
+		if (events == null) {
+			events = new GameEvent[World.TILES_X * World.TILES_Y];
+			tileEvents[type.ordinal()] = events;
+		}
+		int index = World.TILES_X * tile.y() + tile.x();
+		var event = events[index];
+		if (event == null) {
+			event = new GameEvent(this, type, tile);
+			events[index] = event;
+		}
+		return event;
+	}
+
 	/**
 	 * @return number of maze (not map) used in this level, 1-based.
 	 */
@@ -516,13 +743,7 @@ public class GameModel {
 	 */
 	public void enterLevel(int levelNumber) {
 		checkLevelNumber(levelNumber);
-
-		var map = switch (variant) {
-		case MS_PACMAN -> MS_PACMAN_MAPS[mapNumberMsPacMan(levelNumber) - 1];
-		case PACMAN -> PACMAN_MAP;
-		default -> throw new IllegalGameVariantException(variant);
-		};
-		level = new GameLevel(this, new World(map), levelNumber, levelData(levelNumber), false);
+		level = createLevel(levelNumber, false);
 
 		if (level.number() == 1) {
 			levelCounter.clear();
@@ -546,23 +767,28 @@ public class GameModel {
 	 * Enters the demo game level ("attract mode").
 	 */
 	public void enterDemoLevel() {
-		GameEvents.setSoundEventsEnabled(false);
+		eventBus.setSoundEventsEnabled(false);
 		scoringEnabled = false;
-		switch (variant) {
-		case MS_PACMAN -> {
-			level = new GameLevel(this, new World(MS_PACMAN_MAPS[0]), 1, levelData(1), true);
-			level.setPacSteering(new RuleBasedSteering());
-			level.letsGetReadyToRumbleAndShowGuys(true);
-			Logger.info("Ms. Pac-Man demo level entered");
-		}
-		case PACMAN -> {
-			level = new GameLevel(this, new World(PACMAN_MAP), 1, levelData(1), true);
-			level.setPacSteering(new RouteBasedSteering(PACMAN_DEMOLEVEL_ROUTE));
-			level.letsGetReadyToRumbleAndShowGuys(true);
-			Logger.info("Pac-Man demo level entered");
-		}
+		level = createLevel(1, true);
+		level.letsGetReadyToRumbleAndShowGuys(true);
+		Logger.info("{} demo level entered", variant == GameVariant.MS_PACMAN ? "Ms. Pac-Man" : "Pac-Man");
+	}
+
+	private GameLevel createLevel(int levelNumber, boolean demoLevel) {
+		var map = switch (variant) {
+		case MS_PACMAN -> MS_PACMAN_MAPS[mapNumberMsPacMan(levelNumber) - 1];
+		case PACMAN -> PACMAN_MAP;
 		default -> throw new IllegalGameVariantException(variant);
+		};
+		var newLevel = new GameLevel(this, new World(map), levelNumber, levelData(levelNumber), demoLevel);
+		if (demoLevel) {
+			newLevel.setPacSteering(switch (variant) {
+			case MS_PACMAN -> new RuleBasedSteering();
+			case PACMAN -> new RouteBasedSteering(PACMAN_DEMOLEVEL_ROUTE);
+			default -> throw new IllegalGameVariantException(variant);
+			});
 		}
+		return newLevel;
 	}
 
 	/**
@@ -579,6 +805,104 @@ public class GameModel {
 		level = null;
 	}
 
+	/**
+	 * Writes the complete state of this game including the current level, see {@link GameSnapshot}.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		buffer.putLong(randomSeed);
+		buffer.putLong(random.state());
+		buffer.put((byte) levelCounter.size());
+		for (byte symbol : levelCounter) {
+			buffer.put(symbol);
+		}
+		saveScore(score, buffer);
+		saveScore(highScore, buffer);
+		buffer.putInt(credit);
+		buffer.putInt(lives);
+		int flags = 0;
+		flags |= playing ? 1 : 0;
+		flags |= scoringEnabled ? 1 << 1 : 0;
+		flags |= immune ? 1 << 2 : 0;
+		flags |= oneLessLifeDisplayed ? 1 << 3 : 0;
+		flags |= eventBus.isSoundEventsEnabled() ? 1 << 4 : 0;
+		buffer.put((byte) flags);
+		buffer.put((byte) intermissionTestNumber);
+		if (level != null) {
+			buffer.putShort((short) level.number());
+			buffer.put((byte) (level.isDemoLevel() ? 1 : 0));
+			level.saveState(buffer);
+		} else {
+			buffer.putShort((short) 0);
+		}
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)} into this game. The current level is reused if it has
+	 * the same number as the saved level, otherwise a new level is created.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		randomSeed = buffer.getLong();
+		random.setState(buffer.getLong());
+		levelCounter.clear();
+		int levelCounterSize = buffer.get();
+		for (int i = 0; i < levelCounterSize; ++i) {
+			levelCounter.add(buffer.get());
+		}
+		score = restoreScore(score, buffer);
+		highScore = restoreScore(highScore, buffer);
+		credit = buffer.getInt();
+		lives = buffer.getInt();
+		int flags = buffer.get();
+		playing = (flags & 1) != 0;
+		scoringEnabled = (flags & 1 << 1) != 0;
+		immune = (flags & 1 << 2) != 0;
+		oneLessLifeDisplayed = (flags & 1 << 3) != 0;
+		boolean soundEventsEnabled = (flags & 1 << 4) != 0;
+		if (eventBus.isSoundEventsEnabled() != soundEventsEnabled) {
+			eventBus.setSoundEventsEnabled(soundEventsEnabled);
+		}
+		intermissionTestNumber = buffer.get();
+		int levelNumber = buffer.getShort();
+		if (levelNumber == 0) {
+			level = null;
+			return;
+		}
+		boolean demoLevel = buffer.get() != 0;
+		if (level == null || level.number() != levelNumber || level.isDemoLevel() != demoLevel) {
+			level = createLevel(levelNumber, demoLevel);
+		}
+		level.restoreState(buffer);
+	}
+
+	private static void saveScore(Score score, ByteBuffer buffer) {
+		buffer.put((byte) (score != null ? 1 : 0));
+		if (score != null) {
+			buffer.putInt(score.points());
+			buffer.putInt(score.levelNumber());
+			buffer.putLong(score.date().toEpochDay());
+		}
+	}
+
+	private static Score restoreScore(Score score, ByteBuffer buffer) {
+		if (buffer.get() == 0) {
+			return null;
+		}
+		if (score == null) {
+			score = new Score();
+		}
+		score.setPoints(buffer.getInt());
+		score.setLevelNumber(buffer.getInt());
+		long epochDay = buffer.getLong();
+		if (score.date().toEpochDay() != epochDay) {
+			score.setDate(LocalDate.ofEpochDay(epochDay));
+		}
+		return score;
+	}
+
 	/** @return tells if the game play is running. */
 	public boolean isPlaying() {
 		return playing;
@@ -599,6 +923,17 @@ public class GameModel {
 		this.immune = immune;
 	}
 
+	/**
+	 * @return tells if the highscore is loaded from and saved to a file in the user's home directory
+	 */
+	public boolean isHighscorePersistent() {
+		return highscorePersistent;
+	}
+
+	public void setHighscorePersistent(boolean highscorePersistent) {
+		this.highscorePersistent = highscorePersistent;
+	}
+
 	public int lives() {
 		return lives;
 	}
@@ -651,7 +986,7 @@ public class GameModel {
 		}
 		if (oldScore < SCORE_EXTRA_LIFE && newScore >= SCORE_EXTRA_LIFE) {
 			lives += 1;
-			GameEvents.publishSoundEvent(SE_EXTRA_LIFE);
+			publishSoundEvent(SE_EXTRA_LIFE);
 		}
 	}
 
@@ -687,10 +1022,13 @@ public class GameModel {
 	}
 
 	public void loadHighscore() {
-		highScore = loadHighscore(highscoreFile(variant()));
+		highScore = highscorePersistent ? loadHighscore(highscoreFile(variant())) : new Score();
 	}
 
 	public void saveNewHighscore() {
+		if (!highscorePersistent) {
+			return;
+		}
 		var file = highscoreFile(variant());
 		var oldHiscore = loadHighscore(file);
 		if (highScore.points() <= oldHiscore.points()) {
@@ -0,0 +1,114 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.model;
+
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Versioned binary snapshot of the complete state of a game (model and current level).
+ * <p>
+ * Layout: magic number, format version, game variant, followed by the state written by
+ * {@link GameModel#saveState(ByteBuffer)}. A snapshot takes a few hundred bytes (at most {@link #MAX_SIZE}), writing
+ * and reading it does not allocate if the target game already has a level with the same number. This makes it cheap to
+ * checkpoint many concurrent games, to fork simulations from a given state and to resume games later.
+ * <p>
+ * User interface state (animations) and listeners are not part of a snapshot.
+ * 
+ * @author Armin Reichert
+ */
+public final class GameSnapshot {
+
+	public static final int MAGIC = 0x504D534E; // "PMSN"
+	public static final short VERSION = 2;
+
+	/** Upper bound of the snapshot size in bytes. */
+	public static final int MAX_SIZE = 2048;
+
+	private static final GameVariant[] VARIANTS = GameVariant.values();
+
+	private GameSnapshot() {
+	}
+
+	/**
+	 * Writes a snapshot of the given game.
+	 * 
+	 * @param game   game model
+	 * @param buffer buffer to write to, must have at least {@link #MAX_SIZE} bytes remaining
+	 */
+	public static void save(GameModel game, ByteBuffer buffer) {
+		checkNotNull(game);
+		checkNotNull(buffer);
+		buffer.putInt(MAGIC);
+		buffer.putShort(VERSION);
+		buffer.put((byte) game.variant().ordinal());
+		game.saveState(buffer);
+	}
+
+	/**
+	 * Reads a snapshot into the given game.
+	 * 
+	 * @param game   game model, must be of the same variant as the game the snapshot was taken from
+	 * @param buffer buffer to read from
+	 */
+	public static void restore(GameModel game, ByteBuffer buffer) {
+		checkNotNull(game);
+		checkNotNull(buffer);
+		if (buffer.getInt() != MAGIC) {
+			throw new IllegalArgumentException("Not a game snapshot");
+		}
+		short version = buffer.getShort();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported game snapshot version: %d".formatted(version));
+		}
+		var variant = VARIANTS[buffer.get()];
+		if (variant != game.variant()) {
+			throw new IllegalArgumentException(
+					"Snapshot of %s game cannot be restored into %s game".formatted(variant, game.variant()));
+		}
+		game.restoreState(buffer);
+	}
+
+	/**
+	 * @param game game model
+	 * @return snapshot of the given game as byte array
+	 */
+	public static byte[] of(GameModel game) {
+		var buffer = ByteBuffer.allocate(MAX_SIZE);
+		save(game, buffer);
+		var bytes = new byte[buffer.position()];
+		buffer.flip().get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * @param game     game model
+	 * @param snapshot snapshot created by {@link #of(GameModel)}
+	 */
+	public static void restore(GameModel game, byte[] snapshot) {
+		checkNotNull(snapshot);
+		restore(game, ByteBuffer.wrap(snapshot));
+	}
+}
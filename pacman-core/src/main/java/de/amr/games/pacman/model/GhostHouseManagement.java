@@ -30,6 +30,7 @@ import static de.amr.games.pacman.model.GameModel.PINK_GHOST;
 import static de.amr.games.pacman.model.GameModel.RED_GHOST;
 import static de.amr.games.pacman.model.actors.GhostState.LOCKED;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -69,6 +70,22 @@ public class GhostHouseManagement {
 		globalDotCounterEnabled = false;
 	}
 
+	public void saveState(ByteBuffer buffer) {
+		for (int counter : ghostDotCounters) {
+			buffer.putInt(counter);
+		}
+		buffer.putInt(globalDotCounter);
+		buffer.put((byte) (globalDotCounterEnabled ? 1 : 0));
+	}
+
+	public void restoreState(ByteBuffer buffer) {
+		for (int i = 0; i < ghostDotCounters.length; ++i) {
+			ghostDotCounters[i] = buffer.getInt();
+		}
+		globalDotCounter = buffer.getInt();
+		globalDotCounterEnabled = buffer.get() != 0;
+	}
+
 	public void update() {
 		if (globalDotCounterEnabled) {
 			if (level.ghost(ORANGE_GHOST).is(LOCKED) && globalDotCounter == 32) {
@@ -79,8 +96,10 @@ public class GhostHouseManagement {
 				Logger.trace("Global dot counter = {}", globalDotCounter);
 			}
 		} else {
-			level.ghosts(LOCKED).filter(ghost -> ghost.insideHouse(level)).findFirst()
-					.ifPresent(this::increaseGhostDotCounter);
+			var ghost = level.findGhost(level.ghostMask(LOCKED), g -> g.insideHouse(level));
+			if (ghost != null) {
+				increaseGhostDotCounter(ghost);
+			}
 		}
 	}
 
@@ -24,6 +24,8 @@ SOFTWARE.
 
 package de.amr.games.pacman.model.actors;
 
+import java.nio.ByteBuffer;
+
 import de.amr.games.pacman.model.GameLevel;
 
 /**
@@ -69,8 +71,10 @@ public interface Bonus {
 
 	/**
 	 * Consume the bonus.
+	 * 
+	 * @param level the game level
 	 */
-	void eat();
+	void eat(GameLevel level);
 
 	/**
 	 * Changes the bonus state to edible.
@@ -79,4 +83,18 @@ public interface Bonus {
 	 * @param ticks  time how long the bonus is edible
 	 */
 	void setEdible(long ticks);
+
+	/**
+	 * Writes the state of this bonus.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	void saveState(ByteBuffer buffer);
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	void restoreState(ByteBuffer buffer);
 }
\ No newline at end of file
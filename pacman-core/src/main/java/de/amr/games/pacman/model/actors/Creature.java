@@ -28,12 +28,15 @@ import static de.amr.games.pacman.lib.Globals.TS;
 import static de.amr.games.pacman.lib.Globals.checkDirectionNotNull;
 import static de.amr.games.pacman.lib.Globals.checkLevelNotNull;
 import static de.amr.games.pacman.lib.Globals.checkTileNotNull;
+import static de.amr.games.pacman.lib.Globals.v2f;
+import static de.amr.games.pacman.lib.Globals.v2i;
 import static de.amr.games.pacman.lib.steering.Direction.DOWN;
 import static de.amr.games.pacman.lib.steering.Direction.LEFT;
 import static de.amr.games.pacman.lib.steering.Direction.RIGHT;
 import static de.amr.games.pacman.lib.steering.Direction.UP;
 import static de.amr.games.pacman.model.world.World.tileAt;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -41,7 +44,6 @@ import java.util.stream.Collectors;
 
 import org.tinylog.Logger;
 
-import de.amr.games.pacman.lib.math.Vector2f;
 import de.amr.games.pacman.lib.math.Vector2i;
 import de.amr.games.pacman.lib.steering.Direction;
 import de.amr.games.pacman.model.GameLevel;
@@ -56,18 +58,28 @@ import de.amr.games.pacman.model.world.Portal;
 public abstract class Creature extends Entity {
 
 	protected static final Direction[] DIRECTION_PRIORITY = { UP, LEFT, DOWN, RIGHT };
+	private static final Direction[] DIRECTIONS = Direction.values();
 
+	/*
+	 * One instance per creature, reused for each move. Messages are only collected if trace logging is enabled.
+	 */
 	private static class MoveResult {
 		private boolean moved;
 		private boolean tunnelEntered;
 		private boolean teleported;
-		private List<String> messages;
+		private boolean tracing;
+		private final List<String> messages = new ArrayList<>(3);
 
-		public MoveResult() {
+		public void clear() {
 			moved = false;
 			tunnelEntered = false;
 			teleported = false;
-			messages = new ArrayList<>(3);
+			tracing = Logger.isTraceEnabled();
+			messages.clear();
+		}
+
+		public void addMessage(String message) {
+			messages.add(message);
 		}
 
 		public String summary() {
@@ -89,7 +101,7 @@ public abstract class Creature extends Entity {
 	private Direction wishDir;
 	private Vector2i targetTile;
 
-	private MoveResult moveResult;
+	private final MoveResult moveResult = new MoveResult();
 	protected boolean newTileEntered; // TODO put this into move result but currently it has another lifetime
 	protected boolean gotReverseCommand;
 	protected boolean canTeleport;
@@ -103,9 +115,9 @@ public abstract class Creature extends Entity {
 	public void reset() {
 		// entity
 		visible = false;
-		position = Vector2f.ZERO;
-		velocity = Vector2f.ZERO;
-		acceleration = Vector2f.ZERO;
+		setPosition(0, 0);
+		setVelocity(0, 0);
+		setAcceleration(0, 0);
 
 		moveDir = RIGHT;
 		wishDir = RIGHT;
@@ -114,10 +126,45 @@ public abstract class Creature extends Entity {
 		gotReverseCommand = false;
 		canTeleport = true;
 
-		moveResult = null;
+		moveResult.clear();
 		newTileEntered = true;
 	}
 
+	@Override
+	public void saveState(ByteBuffer buffer) {
+		super.saveState(buffer);
+		buffer.put((byte) moveDir.ordinal());
+		buffer.put((byte) wishDir.ordinal());
+		int flags = 0;
+		flags |= moveResult.moved ? 1 : 0;
+		flags |= moveResult.tunnelEntered ? 1 << 1 : 0;
+		flags |= moveResult.teleported ? 1 << 2 : 0;
+		flags |= newTileEntered ? 1 << 3 : 0;
+		flags |= gotReverseCommand ? 1 << 4 : 0;
+		flags |= canTeleport ? 1 << 5 : 0;
+		flags |= targetTile != null ? 1 << 6 : 0;
+		buffer.put((byte) flags);
+		if (targetTile != null) {
+			buffer.putShort((short) targetTile.x()).putShort((short) targetTile.y());
+		}
+	}
+
+	@Override
+	public void restoreState(ByteBuffer buffer) {
+		super.restoreState(buffer);
+		moveDir = DIRECTIONS[buffer.get()];
+		wishDir = DIRECTIONS[buffer.get()];
+		int flags = buffer.get();
+		moveResult.clear();
+		moveResult.moved = (flags & 1) != 0;
+		moveResult.tunnelEntered = (flags & 1 << 1) != 0;
+		moveResult.teleported = (flags & 1 << 2) != 0;
+		newTileEntered = (flags & 1 << 3) != 0;
+		gotReverseCommand = (flags & 1 << 4) != 0;
+		canTeleport = (flags & 1 << 5) != 0;
+		targetTile = (flags & 1 << 6) != 0 ? v2i(buffer.getShort(), buffer.getShort()) : null;
+	}
+
 	/**
 	 * @param level game level
 	 * @return if the creature can reverse its direction
@@ -126,8 +173,8 @@ public abstract class Creature extends Entity {
 
 	@Override
 	public String toString() {
-		return "%s: position=%s, tile=%s (%s), velocity=%s, moveDir=%s, wishDir=%s".formatted(name, position, tile(),
-				offset(), velocity, moveDir, wishDir);
+		return "%s: position=%s, tile=%s (%s), velocity=%s, moveDir=%s, wishDir=%s".formatted(name, position(), tile(),
+				offset(), velocity(), moveDir, wishDir);
 	}
 
 	/** Readable name, for display and logging purposes. */
@@ -182,9 +229,10 @@ public abstract class Creature extends Entity {
 	 * @param oy y-offset inside tile
 	 */
 	public void placeAtTile(int tx, int ty, float ox, float oy) {
-		var prevTile = tile();
+		int prevTileX = tileX();
+		int prevTileY = tileY();
 		setPosition(tx * TS + ox, ty * TS + oy);
-		newTileEntered = !tile().equals(prevTile);
+		newTileEntered = tileX() != prevTileX || tileY() != prevTileY;
 	}
 
 	/**
@@ -231,11 +279,18 @@ public abstract class Creature extends Entity {
 	 */
 	public boolean canAccessTile(Vector2i tile, GameLevel level) {
 		checkTileNotNull(tile);
+		return canAccessTile(tile.x(), tile.y(), level);
+	}
+
+	/**
+	 * @param x     tile x coordinate (may be outside world bounds)
+	 * @param y     tile y coordinate (may be outside world bounds)
+	 * @param level game level
+	 * @return if this creature can access the given tile
+	 */
+	public boolean canAccessTile(int x, int y, GameLevel level) {
 		checkLevelNotNull(level);
-		if (level.world().insideBounds(tile)) {
-			return !level.world().isWall(tile) && !level.world().house().door().occupies(tile);
-		}
-		return level.world().belongsToPortal(tile);
+		return level.world().isAccessible(x, y);
 	}
 
 	/**
@@ -247,8 +302,11 @@ public abstract class Creature extends Entity {
 		checkDirectionNotNull(dir);
 		if (moveDir != dir) {
 			moveDir = dir;
-			Logger.trace("{}: New moveDir: {}. {}", name, moveDir, this);
-			velocity = moveDir.vector().toFloatVec().scaled(velocity.length());
+			if (Logger.isTraceEnabled()) {
+				Logger.trace("{}: New moveDir: {}. {}", name, moveDir, this);
+			}
+			float speed = speed();
+			setVelocity(moveDir.vector().x() * speed, moveDir.vector().y() * speed);
 		}
 	}
 
@@ -315,7 +373,11 @@ public abstract class Creature extends Entity {
 		if (pixelSpeed < 0) {
 			throw new IllegalArgumentException("Negative pixel speed: " + pixelSpeed);
 		}
-		velocity = pixelSpeed == 0 ? Vector2f.ZERO : moveDir.vector().toFloatVec().scaled(pixelSpeed);
+		if (pixelSpeed == 0) {
+			setVelocity(0, 0);
+		} else {
+			setVelocity(moveDir.vector().x() * pixelSpeed, moveDir.vector().y() * pixelSpeed);
+		}
 	}
 
 	/**
@@ -331,23 +393,25 @@ public abstract class Creature extends Entity {
 		if (targetTile == null) {
 			return;
 		}
-		if (level.world().belongsToPortal(tile())) {
+		if (level.world().belongsToPortal(tileX(), tileY())) {
 			return; // inside portal, no navigation happens
 		}
 		computeTargetDirection(level).ifPresent(this::setWishDir);
 	}
 
 	private Optional<Direction> computeTargetDirection(GameLevel level) {
-		final var currentTile = tile();
+		final int x = tileX();
+		final int y = tileY();
 		Direction targetDir = null;
 		float minDistance = Float.MAX_VALUE;
 		for (var dir : DIRECTION_PRIORITY) {
 			if (dir == moveDir.opposite()) {
 				continue; // reversing the move direction is not allowed
 			}
-			final var neighborTile = currentTile.plus(dir.vector());
-			if (canAccessTile(neighborTile, level)) {
-				final var distance = neighborTile.euclideanDistance(targetTile);
+			final int nx = x + dir.vector().x();
+			final int ny = y + dir.vector().y();
+			if (canAccessTile(nx, ny, level)) {
+				final float distance = (float) Math.hypot(nx - targetTile.x(), ny - targetTile.y());
 				if (distance < minDistance) {
 					minDistance = distance;
 					targetDir = dir;
@@ -358,15 +422,15 @@ public abstract class Creature extends Entity {
 	}
 
 	public boolean moved() {
-		return moveResult != null && moveResult.moved;
+		return moveResult.moved;
 	}
 
 	public boolean teleported() {
-		return moveResult != null && moveResult.teleported;
+		return moveResult.teleported;
 	}
 
 	public boolean enteredTunnel() {
-		return moveResult != null && moveResult.tunnelEntered;
+		return moveResult.tunnelEntered;
 	}
 
 	/**
@@ -379,7 +443,7 @@ public abstract class Creature extends Entity {
 	 */
 	public void tryMoving(GameLevel level) {
 		checkLevelNotNull(level);
-		moveResult = new MoveResult();
+		moveResult.clear();
 		tryTeleport(level.world().portals());
 		if (!moveResult.teleported) {
 			checkReverseCommand(level);
@@ -390,7 +454,7 @@ public abstract class Creature extends Entity {
 				tryMoving(moveDir, level);
 			}
 		}
-		if (moveResult.teleported || moveResult.moved) {
+		if (moveResult.tracing && (moveResult.teleported || moveResult.moved)) {
 			Logger.trace("{}: {} {} {}", name, moveResult, moveResult.summary(), this);
 		}
 	}
@@ -415,59 +479,79 @@ public abstract class Creature extends Entity {
 	}
 
 	private void teleport(Portal portal) {
-		var tile = tile();
-		var oldPosition = position;
-		if (tile.y() == portal.leftTunnelEnd().y() && position.x() < (portal.leftTunnelEnd().x() - portal.depth()) * TS) {
-			placeAtTile(portal.rightTunnelEnd());
+		int tx = tileX();
+		int ty = tileY();
+		float oldX = posX;
+		float oldY = posY;
+		var left = portal.leftTunnelEnd();
+		var right = portal.rightTunnelEnd();
+		if (ty == left.y() && posX < (left.x() - portal.depth()) * TS) {
+			placeAtTile(right.x(), right.y(), 0, 0);
 			moveResult.teleported = true;
-			moveResult.messages.add("%s: Teleported from %s to %s".formatted(name, oldPosition, position));
-		} else if (tile.equals(portal.rightTunnelEnd().plus(portal.depth(), 0))) {
-			placeAtTile(portal.leftTunnelEnd().minus(portal.depth(), 0));
+		} else if (ty == right.y() && tx == right.x() + portal.depth()) {
+			placeAtTile(left.x() - portal.depth(), left.y(), 0, 0);
 			moveResult.teleported = true;
-			moveResult.messages.add("%s: Teleported from %s to %s".formatted(name, oldPosition, position));
+		}
+		if (moveResult.teleported && moveResult.tracing) {
+			moveResult.addMessage("%s: Teleported from %s to %s".formatted(name, v2f(oldX, oldY), position()));
 		}
 	}
 
 	private void tryMoving(Direction dir, GameLevel level) {
-		final var tileBeforeMove = tile();
+		final int tileXBeforeMove = tileX();
+		final int tileYBeforeMove = tileY();
 		final var aroundCorner = !dir.sameOrientation(moveDir);
-		final var dirVector = dir.vector().toFloatVec();
-		final var newVelocity = dirVector.scaled(velocity.length());
-		final var touchPosition = center().plus(dirVector.scaled(HTS)).plus(newVelocity);
-		final var touchedTile = tileAt(touchPosition);
-
-		if (!canAccessTile(touchedTile, level)) {
+		final float dx = dir.vector().x();
+		final float dy = dir.vector().y();
+		final float speed = speed();
+		final float newVelX = dx * speed;
+		final float newVelY = dy * speed;
+		final int touchedTileX = (int) ((posX + HTS + dx * HTS + newVelX) / TS);
+		final int touchedTileY = (int) ((posY + HTS + dy * HTS + newVelY) / TS);
+
+		if (!canAccessTile(touchedTileX, touchedTileY, level)) {
 			if (!aroundCorner) {
-				placeAtTile(tile()); // adjust if blocked and moving forward
+				placeAtTile(tileXBeforeMove, tileYBeforeMove, 0, 0); // adjust if blocked and moving forward
+			}
+			if (moveResult.tracing) {
+				moveResult.addMessage("Cannot move %s into tile %s".formatted(dir, v2i(touchedTileX, touchedTileY)));
 			}
-			moveResult.messages.add("Cannot move %s into tile %s".formatted(dir, touchedTile));
 			return;
 		}
 
 		if (aroundCorner) {
-			var offset = dir.isHorizontal() ? offset().y() : offset().x();
+			var offset = dir.isHorizontal() ? offsetY() : offsetX();
 			boolean atTurnPosition = Math.abs(offset) <= 1; // TODO <= pixelspeed?
 			if (atTurnPosition) {
-				placeAtTile(tile()); // adjust if moving around corner
+				placeAtTile(tileXBeforeMove, tileYBeforeMove, 0, 0); // adjust if moving around corner
 			} else {
-				moveResult.messages.add("Wants to take corner towards %s but not at turn position".formatted(dir));
+				if (moveResult.tracing) {
+					moveResult.addMessage("Wants to take corner towards %s but not at turn position".formatted(dir));
+				}
 				return;
 			}
 		}
 
 		if (aroundCorner && corneringSpeedUp > 0) {
-			setVelocity(newVelocity.plus(dirVector.scaled(corneringSpeedUp)));
-			Logger.trace("{} velocity around corner: {}", name(), velocity.length());
+			setVelocity(newVelX + dx * corneringSpeedUp, newVelY + dy * corneringSpeedUp);
+			if (moveResult.tracing) {
+				Logger.trace("{} velocity around corner: {}", name(), speed());
+			}
 			move();
 		} else {
-			setVelocity(newVelocity);
+			setVelocity(newVelX, newVelY);
 			move();
 		}
-		setVelocity(newVelocity);
+		setVelocity(newVelX, newVelY);
 
-		newTileEntered = !tileBeforeMove.equals(tile());
+		final int tileXAfterMove = tileX();
+		final int tileYAfterMove = tileY();
+		newTileEntered = tileXBeforeMove != tileXAfterMove || tileYBeforeMove != tileYAfterMove;
 		moveResult.moved = true;
-		moveResult.tunnelEntered = !level.world().isTunnel(tileBeforeMove) && level.world().isTunnel(tile());
-		moveResult.messages.add("%5s (%.2f pixels)".formatted(dir, newVelocity.length()));
+		moveResult.tunnelEntered = !level.world().isTunnel(tileXBeforeMove, tileYBeforeMove)
+				&& level.world().isTunnel(tileXAfterMove, tileYAfterMove);
+		if (moveResult.tracing) {
+			moveResult.addMessage("%5s (%.2f pixels)".formatted(dir, speed));
+		}
 	}
 }
\ No newline at end of file
@@ -29,6 +29,8 @@ import static de.amr.games.pacman.lib.Globals.checkNotNull;
 import static de.amr.games.pacman.lib.Globals.v2f;
 import static de.amr.games.pacman.model.world.World.tileAt;
 
+import java.nio.ByteBuffer;
+
 import de.amr.games.pacman.lib.math.Vector2f;
 import de.amr.games.pacman.lib.math.Vector2i;
 
@@ -39,16 +41,19 @@ import de.amr.games.pacman.lib.math.Vector2i;
  */
 public class Entity {
 
+	/*
+	 * Position, velocity and acceleration are stored as primitive values such that moving an entity does not allocate.
+	 */
 	protected boolean visible;
-	protected Vector2f position;
-	protected Vector2f velocity;
-	protected Vector2f acceleration;
+	protected float posX;
+	protected float posY;
+	protected float velX;
+	protected float velY;
+	protected float accX;
+	protected float accY;
 
 	public Entity() {
 		visible = false;
-		position = Vector2f.ZERO;
-		velocity = Vector2f.ZERO;
-		acceleration = Vector2f.ZERO;
 	}
 
 	public boolean isVisible() {
@@ -72,67 +77,105 @@ public class Entity {
 	 *         tile.
 	 */
 	public Vector2f position() {
-		return position;
+		return v2f(posX, posY);
+	}
+
+	/** @return x-coordinate of entity position */
+	public float posX() {
+		return posX;
+	}
+
+	/** @return y-coordinate of entity position */
+	public float posY() {
+		return posY;
 	}
 
 	public void setPosition(float x, float y) {
-		position = v2f(x, y);
+		posX = x;
+		posY = y;
 	}
 
 	public void setPosition(Vector2f position) {
 		checkNotNull(position, "Position of entity must not be null");
-		this.position = position;
+		setPosition(position.x(), position.y());
 	}
 
 	/** @return Center position of entity collision box (position property stores *upper left corner* of box). */
 	public Vector2f center() {
-		return position.plus(HTS, HTS);
+		return v2f(posX + HTS, posY + HTS);
 	}
 
 	public Vector2f velocity() {
-		return velocity;
+		return v2f(velX, velY);
+	}
+
+	/** @return length of the velocity vector */
+	public float speed() {
+		return (float) Math.hypot(velX, velY);
 	}
 
 	public void setVelocity(Vector2f velocity) {
 		checkNotNull(velocity, "Velocity of entity must not be null");
-		this.velocity = velocity;
+		setVelocity(velocity.x(), velocity.y());
 	}
 
 	public void setVelocity(float vx, float vy) {
-		velocity = v2f(vx, vy);
+		velX = vx;
+		velY = vy;
 	}
 
 	public Vector2f acceleration() {
-		return acceleration;
+		return v2f(accX, accY);
 	}
 
 	public void setAcceleration(Vector2f acceleration) {
 		checkNotNull(acceleration, "Acceleration of entity must not be null");
-		this.acceleration = acceleration;
+		setAcceleration(acceleration.x(), acceleration.y());
 	}
 
 	public void setAcceleration(float ax, float ay) {
-		acceleration = v2f(ax, ay);
+		accX = ax;
+		accY = ay;
 	}
 
 	/**
 	 * Moves this entity by its current velocity and increases its velocity by its current acceleration.
 	 */
 	public void move() {
-		position = position.plus(velocity);
-		velocity = velocity.plus(acceleration);
+		posX += velX;
+		posY += velY;
+		velX += accX;
+		velY += accY;
 	}
 
 	/** @return Tile containing the center of the entity collision box. */
 	public Vector2i tile() {
-		return tileAt(position.x() + HTS, position.y() + HTS);
+		return tileAt(posX + HTS, posY + HTS);
+	}
+
+	/** @return x-coordinate of the tile containing the center of the entity collision box */
+	public int tileX() {
+		return (int) ((posX + HTS) / TS);
+	}
+
+	/** @return y-coordinate of the tile containing the center of the entity collision box */
+	public int tileY() {
+		return (int) ((posY + HTS) / TS);
 	}
 
 	/** @return Offset inside current tile: (0, 0) if centered, range: [-4, +4) */
 	public Vector2f offset() {
-		var tile = tile();
-		var tileOrigin = v2f(TS * tile.x(), TS * tile.y());
-		return position.minus(tileOrigin);
+		return v2f(offsetX(), offsetY());
+	}
+
+	/** @return x-coordinate of offset inside current tile, see {@link #offset()} */
+	public float offsetX() {
+		return posX - TS * tileX();
+	}
+
+	/** @return y-coordinate of offset inside current tile, see {@link #offset()} */
+	public float offsetY() {
+		return posY - TS * tileY();
 	}
 
 	/**
@@ -141,6 +184,33 @@ public class Entity {
 	 */
 	public boolean sameTile(Entity other) {
 		checkNotNull(other, "Entity to check for same tile must not be null");
-		return tile().equals(other.tile());
+		return tileX() == other.tileX() && tileY() == other.tileY();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Writes visibility, position, velocity and acceleration of this entity. Subclasses add their own state.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		buffer.put((byte) (visible ? 1 : 0));
+		buffer.putFloat(posX).putFloat(posY);
+		buffer.putFloat(velX).putFloat(velY);
+		buffer.putFloat(accX).putFloat(accY);
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		visible = buffer.get() != 0;
+		posX = buffer.getFloat();
+		posY = buffer.getFloat();
+		velX = buffer.getFloat();
+		velY = buffer.getFloat();
+		accX = buffer.getFloat();
+		accY = buffer.getFloat();
+	}
+}
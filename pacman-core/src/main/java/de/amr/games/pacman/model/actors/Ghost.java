@@ -27,9 +27,9 @@ import static de.amr.games.pacman.lib.Globals.HTS;
 import static de.amr.games.pacman.lib.Globals.checkGhostID;
 import static de.amr.games.pacman.lib.Globals.checkLevelNotNull;
 import static de.amr.games.pacman.lib.Globals.checkNotNull;
-import static de.amr.games.pacman.lib.Globals.checkTileNotNull;
 import static de.amr.games.pacman.lib.Globals.differsAtMost;
 import static de.amr.games.pacman.lib.Globals.oneOf;
+import static de.amr.games.pacman.lib.Globals.v2i;
 import static de.amr.games.pacman.lib.steering.Direction.DOWN;
 import static de.amr.games.pacman.lib.steering.Direction.LEFT;
 import static de.amr.games.pacman.lib.steering.Direction.RIGHT;
@@ -42,13 +42,13 @@ import static de.amr.games.pacman.model.actors.GhostState.LEAVING_HOUSE;
 import static de.amr.games.pacman.model.actors.GhostState.LOCKED;
 import static de.amr.games.pacman.model.actors.GhostState.RETURNING_TO_HOUSE;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 import java.util.function.Supplier;
 
 import org.tinylog.Logger;
 
 import de.amr.games.pacman.event.GameEventType;
-import de.amr.games.pacman.event.GameEvents;
 import de.amr.games.pacman.event.GhostEvent;
 import de.amr.games.pacman.lib.anim.AnimationMap;
 import de.amr.games.pacman.lib.math.Vector2f;
@@ -66,6 +66,8 @@ import de.amr.games.pacman.model.world.House;
  */
 public class Ghost extends Creature implements AnimatedEntity {
 
+	private static final GhostState[] GHOST_STATES = GhostState.values();
+
 	private final byte id;
 	private GhostState state;
 	private Supplier<Vector2i> fnChasingTarget = () -> null;
@@ -76,6 +78,8 @@ public class Ghost extends Creature implements AnimatedEntity {
 
 	private AnimationMap animations;
 	private int killedIndex;
+	private GhostStateIndex stateIndex;
+	private OccupancyGrid occupancyGrid;
 
 	public Ghost(byte id, String name) {
 		super(name);
@@ -87,7 +91,7 @@ public class Ghost extends Creature implements AnimatedEntity {
 	@Override
 	public String toString() {
 		return "[%-6s (%s) position=%s tile=%s offset=%s velocity=%s dir=%s wishDir=%s reverse=%s]".formatted(name(), state,
-				position, tile(), offset(), velocity, moveDir(), wishDir(), gotReverseCommand);
+				position(), tile(), offset(), velocity(), moveDir(), wishDir(), gotReverseCommand);
 	}
 
 	/**
@@ -104,6 +108,58 @@ public class Ghost extends Creature implements AnimatedEntity {
 		setKilledIndex(-1);
 	}
 
+	@Override
+	public void saveState(ByteBuffer buffer) {
+		super.saveState(buffer);
+		buffer.put((byte) (state != null ? state.ordinal() : -1));
+		buffer.put((byte) killedIndex);
+	}
+
+	/**
+	 * Restores the state written by {@link #saveState(ByteBuffer)}. The ghost state is set directly, no state entry
+	 * actions are executed.
+	 */
+	@Override
+	public void restoreState(ByteBuffer buffer) {
+		super.restoreState(buffer);
+		byte stateOrdinal = buffer.get();
+		setState(stateOrdinal != -1 ? GHOST_STATES[stateOrdinal] : null);
+		killedIndex = buffer.get();
+		updateOccupancy();
+	}
+
+	/**
+	 * Attaches this ghost to the given occupancy grid which is then updated whenever this ghost changes its tile. The
+	 * ghost ID is used as actor ID.
+	 * 
+	 * @param occupancyGrid occupancy grid shared by the ghosts of a level, <code>null</code> detaches this ghost
+	 */
+	public void setOccupancyGrid(OccupancyGrid occupancyGrid) {
+		if (this.occupancyGrid != null) {
+			this.occupancyGrid.remove(id);
+		}
+		this.occupancyGrid = occupancyGrid;
+		updateOccupancy();
+	}
+
+	private void updateOccupancy() {
+		if (occupancyGrid != null) {
+			occupancyGrid.place(id, tileX(), tileY());
+		}
+	}
+
+	@Override
+	public void setPosition(float x, float y) {
+		super.setPosition(x, y);
+		updateOccupancy();
+	}
+
+	@Override
+	public void move() {
+		super.move();
+		updateOccupancy();
+	}
+
 	@Override
 	public Entity entity() {
 		return this;
@@ -167,18 +223,18 @@ public class Ghost extends Creature implements AnimatedEntity {
 	}
 
 	@Override
-	public boolean canAccessTile(Vector2i tile, GameLevel level) {
-		checkTileNotNull(tile);
+	public boolean canAccessTile(int x, int y, GameLevel level) {
 		checkLevelNotNull(level);
-		var currentTile = tile();
-		if (tile.equals(currentTile.plus(UP.vector())) && !level.isSteeringAllowed(this, UP)) {
-			Logger.trace("{} cannot access tile {} because he cannot move UP at {}", name(), tile, currentTile);
+		if (x == tileX() && y == tileY() - 1 && !level.isSteeringAllowed(this, UP)) {
+			if (Logger.isTraceEnabled()) {
+				Logger.trace("{} cannot access tile {} because he cannot move UP at {}", name(), v2i(x, y), tile());
+			}
 			return false;
 		}
-		if (level.world().house().door().occupies(tile)) {
+		if (level.world().isDoor(x, y)) {
 			return is(ENTERING_HOUSE, LEAVING_HOUSE);
 		}
-		return super.canAccessTile(tile, level);
+		return super.canAccessTile(x, y, level);
 	}
 
 	@Override
@@ -232,11 +288,14 @@ public class Ghost extends Creature implements AnimatedEntity {
 
 	private void moveRandomly(GameLevel level) {
 		if (isNewTileEntered() || !moved()) {
-			Direction.shuffled().stream() //
-					.filter(dir -> dir != moveDir().opposite()) //
-					.filter(dir -> canAccessTile(tile().plus(dir.vector()), level)) //
-					.findAny() //
-					.ifPresent(this::setWishDir);
+			for (var dir : Direction.shuffled(level.game().random())) {
+				int x = tileX() + dir.vector().x();
+				int y = tileY() + dir.vector().y();
+				if (dir != moveDir().opposite() && canAccessTile(x, y, level)) {
+					setWishDir(dir);
+					break;
+				}
+			}
 		}
 		tryMoving(level);
 	}
@@ -266,6 +325,36 @@ public class Ghost extends Creature implements AnimatedEntity {
 		return state;
 	}
 
+	/**
+	 * Attaches this ghost to the given state index which is then updated on each state transition of this ghost.
+	 * 
+	 * @param stateIndex state index shared by the ghosts of a level, <code>null</code> detaches this ghost
+	 */
+	public void setStateIndex(GhostStateIndex stateIndex) {
+		if (this.stateIndex != null) {
+			this.stateIndex.update(id, state, null);
+		}
+		this.stateIndex = stateIndex;
+		if (stateIndex != null) {
+			stateIndex.update(id, null, state);
+		}
+	}
+
+	private void setState(GhostState newState) {
+		if (stateIndex != null) {
+			stateIndex.update(id, state, newState);
+		}
+		state = newState;
+	}
+
+	/**
+	 * @param state ghost state to be checked
+	 * @return <code>true</code> if this ghost is in the given state
+	 */
+	public boolean is(GhostState state) {
+		return this.state == state;
+	}
+
 	/**
 	 * @param alternatives ghost states to be checked
 	 * @return <code>true</code> if this ghost is in any of the given states. If no alternatives are given, returns
@@ -296,7 +385,9 @@ public class Ghost extends Creature implements AnimatedEntity {
 		case ENTERING_HOUSE -> updateStateEnteringHouse(level);
 		default -> throw new IllegalArgumentException("Unknown ghost state: '%s'".formatted(state));
 		}
-		animate();
+		if (!level.game().isHeadless()) {
+			animate();
+		}
 	}
 
 	// --- LOCKED ---
@@ -306,7 +397,7 @@ public class Ghost extends Creature implements AnimatedEntity {
 	 * power. After that, they return to their normal color.
 	 */
 	public void enterStateLocked() {
-		state = LOCKED;
+		setState(LOCKED);
 		setPixelSpeed(0);
 		selectAndResetAnimation(GameModel.AK_GHOST_COLOR);
 	}
@@ -314,21 +405,16 @@ public class Ghost extends Creature implements AnimatedEntity {
 	private void updateStateLocked(GameLevel level) {
 		var baseLevel = initialPosition.y();
 		if (insideHouse(level)) {
-			if (position.y() <= baseLevel - HTS) {
+			if (posY <= baseLevel - HTS) {
 				setMoveAndWishDir(DOWN);
-			} else if (position.y() >= baseLevel + HTS) {
+			} else if (posY >= baseLevel + HTS) {
 				setMoveAndWishDir(UP);
 			}
 			setPixelSpeed(GameModel.SPEED_PX_INSIDE_HOUSE);
 			move();
 		}
 		boolean frightened = level.pac().powerTimer().isRunning() && killedIndex == -1;
-		if (frightened) {
-			updateFrightenedAnimation(level);
-		} else {
-			// got already killed in this power phase, not frightened anymore
-			selectAndRunAnimation(GameModel.AK_GHOST_COLOR);
-		}
+		updateAnimationInsideHouse(level, frightened);
 	}
 
 	// --- LEAVING_HOUSE ---
@@ -345,19 +431,15 @@ public class Ghost extends Creature implements AnimatedEntity {
 	 */
 	public void enterStateLeavingHouse(GameLevel level) {
 		checkLevelNotNull(level);
-		state = LEAVING_HOUSE;
+		setState(LEAVING_HOUSE);
 		setPixelSpeed(GameModel.SPEED_PX_INSIDE_HOUSE);
 		// TODO is this event needed/handled at all?
-		GameEvents.publishGameEvent(new GhostEvent(level.game(), GameEventType.GHOST_STARTS_LEAVING_HOUSE, this));
+		level.game().publishGameEvent(new GhostEvent(level.game(), GameEventType.GHOST_STARTS_LEAVING_HOUSE, this));
 	}
 
 	private void updateStateLeavingHouse(GameLevel level) {
 		boolean frightened = level.pac().powerTimer().isRunning() && killedIndex == -1;
-		if (frightened) {
-			updateFrightenedAnimation(level);
-		} else {
-			selectAndRunAnimation(GameModel.AK_GHOST_COLOR);
-		}
+		updateAnimationInsideHouse(level, frightened);
 		var outOfHouse = moveOutsideHouse(level.world().house());
 		if (outOfHouse) {
 			setMoveAndWishDir(LEFT);
@@ -371,7 +453,7 @@ public class Ghost extends Creature implements AnimatedEntity {
 				Logger.trace("Ghost {} leaves house hunting", name());
 			}
 			// TODO is this event needed/handled at all?
-			GameEvents.publishGameEvent(new GhostEvent(level.game(), GameEventType.GHOST_COMPLETES_LEAVING_HOUSE, this));
+			level.game().publishGameEvent(new GhostEvent(level.game(), GameEventType.GHOST_COMPLETES_LEAVING_HOUSE, this));
 		}
 	}
 
@@ -432,7 +514,7 @@ public class Ghost extends Creature implements AnimatedEntity {
 	 * <p>
 	 */
 	public void enterStateHuntingPac() {
-		state = HUNTING_PAC;
+		setState(HUNTING_PAC);
 		selectAndRunAnimation(GameModel.AK_GHOST_COLOR);
 	}
 
@@ -451,7 +533,7 @@ public class Ghost extends Creature implements AnimatedEntity {
 	 * his power. Speed is about half of the normal speed.
 	 */
 	public void enterStateFrightened() {
-		state = FRIGHTENED;
+		setState(FRIGHTENED);
 		selectAndRunAnimation(GameModel.AK_GHOST_BLUE);
 	}
 
@@ -469,7 +551,7 @@ public class Ghost extends Creature implements AnimatedEntity {
 	 * The value doubles for each ghost eaten using the power of the same energizer.
 	 */
 	public void enterStateEaten() {
-		state = EATEN;
+		setState(EATEN);
 		selectAndRunAnimation(GameModel.AK_GHOST_VALUE).ifPresent(anim -> anim.setFrameIndex(killedIndex));
 	}
 
@@ -487,7 +569,7 @@ public class Ghost extends Creature implements AnimatedEntity {
 	 */
 	public void enterStateReturningToHouse(GameLevel level) {
 		checkLevelNotNull(level);
-		state = RETURNING_TO_HOUSE;
+		setState(RETURNING_TO_HOUSE);
 		setTargetTile(level.world().house().door().leftWing());
 		selectAndRunAnimation(GameModel.AK_GHOST_EYES);
 	}
@@ -515,11 +597,11 @@ public class Ghost extends Creature implements AnimatedEntity {
 	 */
 	public void enterStateEnteringHouse(GameLevel level) {
 		checkLevelNotNull(level);
-		state = ENTERING_HOUSE;
+		setState(ENTERING_HOUSE);
 		setTargetTile(null);
 		setPixelSpeed(GameModel.SPEED_PX_ENTERING_HOUSE);
 		// TODO is this event needed/handled at all?
-		GameEvents.publishGameEvent(new GhostEvent(level.game(), GameEventType.GHOST_ENTERS_HOUSE, this));
+		level.game().publishGameEvent(new GhostEvent(level.game(), GameEventType.GHOST_ENTERS_HOUSE, this));
 	}
 
 	private void updateStateEnteringHouse(GameLevel level) {
@@ -541,8 +623,17 @@ public class Ghost extends Creature implements AnimatedEntity {
 		return Optional.ofNullable(animations);
 	}
 
+	private void updateAnimationInsideHouse(GameLevel level, boolean frightened) {
+		if (frightened) {
+			updateFrightenedAnimation(level);
+		} else if (!level.game().isHeadless()) {
+			// got already killed in this power phase, not frightened anymore
+			selectAndRunAnimation(GameModel.AK_GHOST_COLOR);
+		}
+	}
+
 	private void updateFrightenedAnimation(GameLevel level) {
-		if (animations == null) {
+		if (animations == null || level.game().isHeadless()) {
 			return;
 		}
 		var timer = level.pac().powerTimer();
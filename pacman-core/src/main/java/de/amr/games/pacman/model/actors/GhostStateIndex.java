@@ -0,0 +1,73 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.model.actors;
+
+/**
+ * Bit masks of ghost IDs, one per ghost state. Bit <code>i</code> of the mask of state <code>s</code> is set if the
+ * ghost with ID <code>i</code> is in state <code>s</code>. The ghosts attached to an index update it on each state
+ * transition, so querying which ghosts are in some state(s) is a single integer operation.
+ * 
+ * @author Armin Reichert
+ */
+public final class GhostStateIndex {
+
+	private final int[] masks = new int[GhostState.values().length];
+
+	/**
+	 * @param id ghost ID
+	 * @return mask with only the bit of the given ghost set
+	 */
+	public static int bit(byte id) {
+		return 1 << id;
+	}
+
+	/**
+	 * @param state ghost state
+	 * @return mask of the IDs of all attached ghosts in the given state
+	 */
+	public int mask(GhostState state) {
+		return masks[state.ordinal()];
+	}
+
+	/**
+	 * @param states ghost states
+	 * @return mask of the IDs of all attached ghosts in any of the given states
+	 */
+	public int mask(GhostState... states) {
+		int mask = 0;
+		for (var state : states) {
+			mask |= masks[state.ordinal()];
+		}
+		return mask;
+	}
+
+	void update(byte id, GhostState oldState, GhostState newState) {
+		if (oldState != null) {
+			masks[oldState.ordinal()] &= ~bit(id);
+		}
+		if (newState != null) {
+			masks[newState.ordinal()] |= bit(id);
+		}
+	}
+}
@@ -23,9 +23,7 @@ SOFTWARE.
  */
 package de.amr.games.pacman.model.actors;
 
-import static de.amr.games.pacman.event.GameEvents.publishGameEvent;
-import static de.amr.games.pacman.event.GameEvents.publishSoundEvent;
-
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.tinylog.Logger;
@@ -54,6 +52,7 @@ public class MovingBonus extends Creature implements Bonus {
 	private byte state;
 
 	private final SimpleAnimation<Float> jumpAnimation;
+	private long jumpTick;
 	private final RouteBasedSteering steering = new RouteBasedSteering();
 
 	public MovingBonus(BonusInfo info) {
@@ -104,7 +103,6 @@ public class MovingBonus extends Creature implements Bonus {
 	@Override
 	public void setInactive() {
 		state = Bonus.STATE_INACTIVE;
-		jumpAnimation.stop();
 		hide();
 		setPixelSpeed(0);
 	}
@@ -113,27 +111,47 @@ public class MovingBonus extends Creature implements Bonus {
 	public void setEdible(long ticks) {
 		state = Bonus.STATE_EDIBLE;
 		timer = ticks;
-		jumpAnimation.restart();
+		jumpTick = 0;
 		show();
 		setPixelSpeed(0.5f); // how fast in the original game?
 		setTargetTile(null);
 	}
 
 	@Override
-	public void eat() {
+	public void eat(GameLevel level) {
 		state = Bonus.STATE_EATEN;
 		timer = GameModel.BONUS_POINTS_SHOWN_TICKS;
-		jumpAnimation.stop();
-		publishGameEvent(GameEventType.BONUS_GETS_EATEN, tile());
-		publishSoundEvent(GameModel.SE_BONUS_EATEN);
+		level.game().publishGameEvent(GameEventType.BONUS_GETS_EATEN, tile());
+		level.game().publishSoundEvent(GameModel.SE_BONUS_EATEN);
 	}
 
 	public void setRoute(List<NavigationPoint> route) {
 		steering.setRoute(route);
 	}
 
+	@Override
+	public void saveState(ByteBuffer buffer) {
+		super.saveState(buffer);
+		buffer.put(state);
+		buffer.putLong(timer);
+		buffer.putLong(jumpTick);
+		steering.saveState(buffer);
+	}
+
+	@Override
+	public void restoreState(ByteBuffer buffer) {
+		super.restoreState(buffer);
+		state = buffer.get();
+		timer = buffer.getLong();
+		jumpTick = buffer.getLong();
+		steering.restoreState(buffer);
+	}
+
+	/**
+	 * @return vertical offset of the jumping bonus, derived from the number of ticks the bonus is edible
+	 */
 	public float dy() {
-		return jumpAnimation.isRunning() ? jumpAnimation.frame() : 0;
+		return state == STATE_EDIBLE ? jumpAnimation.frameAt(jumpTick) : 0;
 	}
 
 	@Override
@@ -144,25 +162,25 @@ public class MovingBonus extends Creature implements Bonus {
 		case STATE_EDIBLE -> {
 			if (sameTile(level.pac())) {
 				level.game().scorePoints(points());
-				eat();
+				eat(level);
 				return;
 			}
 			steering.steer(level, this);
 			if (steering.isComplete()) {
 				Logger.trace("Bonus reached target: {}", this);
-				publishGameEvent(GameEventType.BONUS_EXPIRES, tile());
+				level.game().publishGameEvent(GameEventType.BONUS_EXPIRES, tile());
 				setInactive();
 				return;
 			}
 			navigateTowardsTarget(level);
 			tryMoving(level);
-			jumpAnimation.animate();
+			++jumpTick;
 		}
 		case STATE_EATEN -> {
 			if (--timer == 0) {
 				setInactive();
 				Logger.trace("Bonus expired: {}", this);
-				publishGameEvent(GameEventType.BONUS_EXPIRES, tile());
+				level.game().publishGameEvent(GameEventType.BONUS_EXPIRES, tile());
 			}
 		}
 		default -> throw new IllegalStateException();
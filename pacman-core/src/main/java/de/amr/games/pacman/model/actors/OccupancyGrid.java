@@ -0,0 +1,135 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.model.actors;
+
+import java.util.Arrays;
+
+/**
+ * Tile occupancy of up to {@link #MAX_ACTORS} actors, for example the ghosts of a level. For each tile, a byte stores
+ * the bits of the actors located at that tile. Actors report their tile whenever their position changes, the grid
+ * itself only changes when the tile changes. So "who is at tile (x, y)?" becomes an array lookup.
+ * <p>
+ * Tiles outside of the grid (e.g. inside a portal tunnel) are answered by comparing the reported actor tiles.
+ * 
+ * @author Armin Reichert
+ */
+public final class OccupancyGrid {
+
+	public static final int MAX_ACTORS = 8;
+
+	private final int numCols;
+	private final int numRows;
+	private final byte[] cells;
+	private final int[] actorX;
+	private final int[] actorY;
+	private int placed; // bits of placed actors
+
+	/**
+	 * @param numCols   number of tile columns
+	 * @param numRows   number of tile rows
+	 * @param numActors number of actors, actor IDs are <code>0..numActors-1</code>
+	 */
+	public OccupancyGrid(int numCols, int numRows, int numActors) {
+		if (numCols <= 0 || numRows <= 0) {
+			throw new IllegalArgumentException("Illegal grid size: %d x %d".formatted(numCols, numRows));
+		}
+		if (numActors < 1 || numActors > MAX_ACTORS) {
+			throw new IllegalArgumentException("Number of actors must be 1..%d but is %d".formatted(MAX_ACTORS, numActors));
+		}
+		this.numCols = numCols;
+		this.numRows = numRows;
+		cells = new byte[numCols * numRows];
+		actorX = new int[numActors];
+		actorY = new int[numActors];
+	}
+
+	private boolean insideGrid(int x, int y) {
+		return 0 <= x && x < numCols && 0 <= y && y < numRows;
+	}
+
+	/**
+	 * Places the given actor at the given tile. Does nothing if the actor already is at that tile.
+	 * 
+	 * @param actor actor ID
+	 * @param x     tile x-coordinate
+	 * @param y     tile y-coordinate
+	 */
+	public void place(int actor, int x, int y) {
+		int bit = 1 << actor;
+		if ((placed & bit) != 0) {
+			if (actorX[actor] == x && actorY[actor] == y) {
+				return;
+			}
+			if (insideGrid(actorX[actor], actorY[actor])) {
+				cells[numCols * actorY[actor] + actorX[actor]] &= (byte) ~bit;
+			}
+		}
+		actorX[actor] = x;
+		actorY[actor] = y;
+		placed |= bit;
+		if (insideGrid(x, y)) {
+			cells[numCols * y + x] |= (byte) bit;
+		}
+	}
+
+	/**
+	 * Removes the given actor from the grid.
+	 * 
+	 * @param actor actor ID
+	 */
+	public void remove(int actor) {
+		int bit = 1 << actor;
+		if ((placed & bit) != 0 && insideGrid(actorX[actor], actorY[actor])) {
+			cells[numCols * actorY[actor] + actorX[actor]] &= (byte) ~bit;
+		}
+		placed &= ~bit;
+	}
+
+	/**
+	 * Removes all actors.
+	 */
+	public void clear() {
+		Arrays.fill(cells, (byte) 0);
+		placed = 0;
+	}
+
+	/**
+	 * @param x tile x-coordinate
+	 * @param y tile y-coordinate
+	 * @return bits of the actors at the given tile
+	 */
+	public int actorsAt(int x, int y) {
+		if (insideGrid(x, y)) {
+			return cells[numCols * y + x] & 0xFF;
+		}
+		int result = 0;
+		for (int m = placed; m != 0; m &= m - 1) {
+			int actor = Integer.numberOfTrailingZeros(m);
+			if (actorX[actor] == x && actorY[actor] == y) {
+				result |= 1 << actor;
+			}
+		}
+		return result;
+	}
+}
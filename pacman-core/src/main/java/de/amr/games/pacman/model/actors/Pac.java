@@ -25,6 +25,7 @@ package de.amr.games.pacman.model.actors;
 
 import static de.amr.games.pacman.lib.Globals.checkLevelNotNull;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 import de.amr.games.pacman.lib.anim.AnimationMap;
@@ -62,7 +63,7 @@ public class Pac extends Creature implements AnimatedEntity {
 	@Override
 	public String toString() {
 		return "['%s' position=%s offset=%s tile=%s velocity=%s speed=%.2f moveDir=%s wishDir=%s dead=%s restingTicks=%d starvingTicks=%d]"
-				.formatted(name(), position, offset(), tile(), velocity, velocity.length(), moveDir(), wishDir(), dead,
+				.formatted(name(), position(), offset(), tile(), velocity(), speed(), moveDir(), wishDir(), dead,
 						restingTicks, starvingTicks);
 	}
 
@@ -91,10 +92,28 @@ public class Pac extends Creature implements AnimatedEntity {
 		powerTimer.reset(0);
 	}
 
+	@Override
+	public void saveState(ByteBuffer buffer) {
+		super.saveState(buffer);
+		buffer.put((byte) (dead ? 1 : 0));
+		buffer.putLong(restingTicks);
+		buffer.putLong(starvingTicks);
+		powerTimer.saveState(buffer);
+	}
+
+	@Override
+	public void restoreState(ByteBuffer buffer) {
+		super.restoreState(buffer);
+		dead = buffer.get() != 0;
+		restingTicks = buffer.getLong();
+		starvingTicks = buffer.getLong();
+		powerTimer.restoreState(buffer);
+	}
+
 	public void update(GameLevel level) {
 		checkLevelNotNull(level);
 		if (dead) {
-			updateDead();
+			updateDead(level);
 		} else {
 			updateAlive(level);
 		}
@@ -108,9 +127,11 @@ public class Pac extends Creature implements AnimatedEntity {
 			var speed = powerTimer.isRunning() ? level.pacSpeedPowered : level.pacSpeed;
 			setRelSpeed(speed);
 			tryMoving(level);
-			selectAndRunAnimation(GameModel.AK_PAC_MUNCHING);
-			if (moved()) {
-				animate();
+			if (!level.game().isHeadless()) {
+				selectAndRunAnimation(GameModel.AK_PAC_MUNCHING);
+				if (moved()) {
+					animate();
+				}
 			}
 		} else {
 			--restingTicks;
@@ -118,9 +139,11 @@ public class Pac extends Creature implements AnimatedEntity {
 		powerTimer.advance();
 	}
 
-	private void updateDead() {
+	private void updateDead(GameLevel level) {
 		setPixelSpeed(0);
-		animate();
+		if (!level.game().isHeadless()) {
+			animate();
+		}
 	}
 
 	public void killed() {
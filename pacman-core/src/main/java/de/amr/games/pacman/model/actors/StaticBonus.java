@@ -23,10 +23,7 @@ SOFTWARE.
  */
 package de.amr.games.pacman.model.actors;
 
-import static de.amr.games.pacman.event.GameEvents.publishGameEvent;
-import static de.amr.games.pacman.event.GameEvents.publishSoundEvent;
-
-import org.tinylog.Logger;
+import java.nio.ByteBuffer;
 
 import de.amr.games.pacman.event.GameEventType;
 import de.amr.games.pacman.model.BonusInfo;
@@ -58,7 +55,7 @@ public class StaticBonus extends Entity implements Bonus {
 	@Override
 	public String toString() {
 		return "[StaticBonus symbol=%d value=%d state=%s position=%s timer=%d]".formatted(info.symbol(), info.points(),
-				state, position, timer);
+				state, position(), timer);
 	}
 
 	@Override
@@ -94,18 +91,32 @@ public class StaticBonus extends Entity implements Bonus {
 	}
 
 	@Override
-	public void eat() {
+	public void eat(GameLevel level) {
 		timer = GameModel.BONUS_POINTS_SHOWN_TICKS;
 		state = Bonus.STATE_EATEN;
-		Logger.info("Bonus eaten: {}", this);
-		publishGameEvent(GameEventType.BONUS_GETS_EATEN, tile());
-		publishSoundEvent(GameModel.SE_BONUS_EATEN);
+		level.game().log("Bonus eaten: {}", this);
+		level.game().publishGameEvent(GameEventType.BONUS_GETS_EATEN, tile());
+		level.game().publishSoundEvent(GameModel.SE_BONUS_EATEN);
 	}
 
-	private void expire() {
+	private void expire(GameLevel level) {
 		setInactive();
-		Logger.info("Bonus expired: {}", this);
-		publishGameEvent(GameEventType.BONUS_EXPIRES, tile());
+		level.game().log("Bonus expired: {}", this);
+		level.game().publishGameEvent(GameEventType.BONUS_EXPIRES, tile());
+	}
+
+	@Override
+	public void saveState(ByteBuffer buffer) {
+		super.saveState(buffer);
+		buffer.put(state);
+		buffer.putLong(timer);
+	}
+
+	@Override
+	public void restoreState(ByteBuffer buffer) {
+		super.restoreState(buffer);
+		state = buffer.get();
+		timer = buffer.getLong();
 	}
 
 	@Override
@@ -117,16 +128,16 @@ public class StaticBonus extends Entity implements Bonus {
 		case Bonus.STATE_EDIBLE -> {
 			if (sameTile(level.pac())) {
 				level.game().scorePoints(points());
-				eat();
+				eat(level);
 			} else if (timer == 0) {
-				expire();
+				expire(level);
 			} else {
 				--timer;
 			}
 		}
 		case Bonus.STATE_EATEN -> {
 			if (timer == 0) {
-				expire();
+				expire(level);
 			} else {
 				--timer;
 			}
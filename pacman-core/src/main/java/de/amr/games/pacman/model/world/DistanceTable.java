@@ -0,0 +1,301 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.model.world;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import de.amr.games.pacman.lib.math.Vector2i;
+import de.amr.games.pacman.lib.steering.Direction;
+
+/**
+ * Shortest path distances and first move directions between all pairs of tiles of the playable area of a maze.
+ * <p>
+ * The playable area consists of the accessible tiles connected to the start tile of Pac-Man or to a tunnel end.
+ * Accessible tiles not connected to the maze, like the rows above and below the maze or the inside of the ghost house,
+ * are left out because each table has a size quadratic in the number of tiles.
+ * <p>
+ * Portals are modeled as chains of hidden tiles of the portal depth connecting the two tunnel ends. The table only
+ * depends on the maze structure, so it is computed once per maze and shared by all worlds using that maze (see
+ * {@link Maze#distances()}).
+ * 
+ * @author Armin Reichert
+ */
+public class DistanceTable {
+
+	/** Distance value for unreachable or inaccessible tiles. */
+	public static final int UNREACHABLE = -1;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final int numCols;
+	private final int numRows;
+	private final int[] nodeAtTile; // tile index -> node index or -1 if tile is not playable
+	private final int[] tileAtNode; // node index -> tile index
+	private final int numNodes;
+	private final short[] distances; // row-major, [from * numNodes + to]
+	private final byte[] firstSteps; // direction ordinal or -1, same layout as distances
+	private final short[] nodesByDistance; // [from * numNodes + rank], nodes in breadth-first order
+
+	DistanceTable(Maze maze) {
+		numCols = maze.numCols();
+		numRows = maze.numRows();
+		nodeAtTile = new int[numCols * numRows];
+		Arrays.fill(nodeAtTile, -1);
+		boolean[] playable = playableTiles(maze);
+		int n = 0;
+		for (int tile = 0; tile < playable.length; ++tile) {
+			if (playable[tile]) {
+				nodeAtTile[tile] = n++;
+			}
+		}
+		numNodes = n;
+		tileAtNode = new int[n];
+		for (int tile = 0; tile < nodeAtTile.length; ++tile) {
+			if (nodeAtTile[tile] != -1) {
+				tileAtNode[nodeAtTile[tile]] = tile;
+			}
+		}
+		distances = new short[n * n];
+		firstSteps = new byte[n * n];
+		nodesByDistance = new short[n * n];
+		computeAllPairs(buildGraph(maze));
+	}
+
+	/*
+	 * Flood fill of the accessible tiles starting at the start tile of Pac-Man and at the tunnel ends of the portals.
+	 */
+	private boolean[] playableTiles(Maze maze) {
+		var playable = new boolean[numCols * numRows];
+		int[] stack = new int[numCols * numRows];
+		int size = 0;
+		var seeds = new ArrayList<Vector2i>();
+		seeds.add(World.PAC_START_TILE);
+		for (var portal : maze.portals()) {
+			seeds.add(portal.leftTunnelEnd());
+			seeds.add(portal.rightTunnelEnd());
+		}
+		for (var seed : seeds) {
+			size = markPlayable(maze, playable, stack, size, seed.x(), seed.y());
+		}
+		while (size > 0) {
+			int tile = stack[--size];
+			int x = tile % numCols;
+			int y = tile / numCols;
+			for (var dir : DIRECTIONS) {
+				size = markPlayable(maze, playable, stack, size, x + dir.vector().x(), y + dir.vector().y());
+			}
+		}
+		return playable;
+	}
+
+	private int markPlayable(Maze maze, boolean[] playable, int[] stack, int size, int x, int y) {
+		int tile = numCols * y + x;
+		if (0 <= x && x < numCols && 0 <= y && y < numRows && !playable[tile] && maze.isAccessible(x, y)) {
+			playable[tile] = true;
+			stack[size++] = tile;
+		}
+		return size;
+	}
+
+	/*
+	 * Encodes each edge as (target node << 2 | direction ordinal). Hidden portal nodes follow the tile nodes.
+	 */
+	private int[][] buildGraph(Maze maze) {
+		var edges = new ArrayList<List<Integer>>();
+		for (int i = 0; i < numNodes; ++i) {
+			edges.add(new ArrayList<>(4));
+		}
+		for (var portal : maze.portals()) {
+			int left = node(portal.leftTunnelEnd());
+			int right = node(portal.rightTunnelEnd());
+			if (left == -1 || right == -1) {
+				continue;
+			}
+			// chain: left end <- hidden tiles -> right end, moving left leads from left end to right end
+			int prev = left;
+			for (int i = 0; i < portal.depth(); ++i) {
+				int hidden = edges.size();
+				edges.add(new ArrayList<>(2));
+				connect(edges, prev, hidden, Direction.LEFT);
+				prev = hidden;
+			}
+			connect(edges, prev, right, Direction.LEFT);
+		}
+		for (int y = 0; y < numRows; ++y) {
+			for (int x = 0; x < numCols; ++x) {
+				int node = nodeAtTile[numCols * y + x];
+				if (node == -1) {
+					continue;
+				}
+				// only right and down to add each edge once, connect() adds the reverse edge
+				for (var dir : List.of(Direction.RIGHT, Direction.DOWN)) {
+					int neighbor = node(x + dir.vector().x(), y + dir.vector().y());
+					if (neighbor != -1) {
+						connect(edges, node, neighbor, dir);
+					}
+				}
+			}
+		}
+		var graph = new int[edges.size()][];
+		for (int i = 0; i < graph.length; ++i) {
+			graph[i] = edges.get(i).stream().mapToInt(Integer::intValue).toArray();
+		}
+		return graph;
+	}
+
+	private static void connect(List<List<Integer>> edges, int from, int to, Direction dir) {
+		edges.get(from).add(to << 2 | dir.ordinal());
+		edges.get(to).add(from << 2 | dir.opposite().ordinal());
+	}
+
+	/*
+	 * Breadth-first search starting at each target. When a node is reached from its predecessor, the direction towards
+	 * the predecessor is the first step on a shortest path from that node to the target. As the graph is undirected, the
+	 * order in which the tile nodes are reached is their order by distance from the target.
+	 */
+	private void computeAllPairs(int[][] graph) {
+		int[] dist = new int[graph.length];
+		byte[] step = new byte[graph.length];
+		int[] queue = new int[graph.length];
+		for (int target = 0; target < numNodes; ++target) {
+			Arrays.fill(dist, UNREACHABLE);
+			Arrays.fill(step, (byte) -1);
+			int head = 0;
+			int tail = 0;
+			dist[target] = 0;
+			queue[tail++] = target;
+			while (head < tail) {
+				int u = queue[head++];
+				for (int edge : graph[u]) {
+					int v = edge >>> 2;
+					if (dist[v] == UNREACHABLE) {
+						dist[v] = dist[u] + 1;
+						step[v] = (byte) DIRECTIONS[edge & 3].opposite().ordinal();
+						queue[tail++] = v;
+					}
+				}
+			}
+			for (int from = 0; from < numNodes; ++from) {
+				distances[from * numNodes + target] = (short) dist[from];
+				firstSteps[from * numNodes + target] = step[from];
+			}
+			int rank = 0;
+			for (int i = 0; i < tail; ++i) {
+				if (queue[i] < numNodes) { // skip hidden portal nodes
+					nodesByDistance[target * numNodes + rank++] = (short) queue[i];
+				}
+			}
+			while (rank < numNodes) { // unreachable nodes
+				nodesByDistance[target * numNodes + rank++] = -1;
+			}
+		}
+	}
+
+	private int node(int x, int y) {
+		if (0 <= x && x < numCols && 0 <= y && y < numRows) {
+			return nodeAtTile[numCols * y + x];
+		}
+		return -1;
+	}
+
+	private int node(Vector2i tile) {
+		return node(tile.x(), tile.y());
+	}
+
+	/**
+	 * @return number of tiles of the playable area covered by this table
+	 */
+	public int numTiles() {
+		return numNodes;
+	}
+
+	/**
+	 * @param from some tile
+	 * @param to   some tile
+	 * @return length of a shortest path between the tiles or {@link #UNREACHABLE} if there is no such path or one of the
+	 *         tiles is not a tile of the playable area
+	 */
+	public int distance(Vector2i from, Vector2i to) {
+		int source = node(from);
+		int target = node(to);
+		if (source == -1 || target == -1) {
+			return UNREACHABLE;
+		}
+		return distances[source * numNodes + target];
+	}
+
+	/**
+	 * @param fromX x-coordinate of start tile
+	 * @param fromY y-coordinate of start tile
+	 * @param toX   x-coordinate of target tile
+	 * @param toY   y-coordinate of target tile
+	 * @return length of a shortest path between the tiles or {@link #UNREACHABLE}, see
+	 *         {@link #distance(Vector2i, Vector2i)}
+	 */
+	public int distance(int fromX, int fromY, int toX, int toY) {
+		int source = node(fromX, fromY);
+		int target = node(toX, toY);
+		if (source == -1 || target == -1) {
+			return UNREACHABLE;
+		}
+		return distances[source * numNodes + target];
+	}
+
+	/**
+	 * Returns the tiles in order of increasing distance from a start tile, such that a search for the nearest tile with
+	 * some property only visits the tiles closer than the result instead of all tiles.
+	 * 
+	 * @param fromX x-coordinate of start tile
+	 * @param fromY y-coordinate of start tile
+	 * @param rank  rank of the requested tile, 0 is the start tile itself
+	 * @return row-major index of the reachable tile with the given rank by distance or -1 if there is no such tile or the
+	 *         start tile is not a tile of the playable area
+	 */
+	public int tileByDistance(int fromX, int fromY, int rank) {
+		int source = node(fromX, fromY);
+		if (source == -1 || rank < 0 || rank >= numNodes) {
+			return -1;
+		}
+		int node = nodesByDistance[source * numNodes + rank];
+		return node != -1 ? tileAtNode[node] : -1;
+	}
+
+	/**
+	 * @param from some tile
+	 * @param to   some tile
+	 * @return direction of the first move on a shortest path between the tiles or {@code null} if the tiles are equal,
+	 *         unconnected, or one of them is not a tile of the playable area
+	 */
+	public Direction firstStep(Vector2i from, Vector2i to) {
+		int source = node(from);
+		int target = node(to);
+		if (source == -1 || target == -1) {
+			return null;
+		}
+		byte step = firstSteps[source * numNodes + target];
+		return step == -1 ? null : DIRECTIONS[step];
+	}
+}
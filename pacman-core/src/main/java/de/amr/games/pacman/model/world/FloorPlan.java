@@ -23,16 +23,30 @@ SOFTWARE.
  */
 package de.amr.games.pacman.model.world;
 
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
 import static de.amr.games.pacman.lib.Globals.v2i;
 
 import java.io.PrintWriter;
 import java.io.Writer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import de.amr.games.pacman.lib.math.Vector2i;
 
 /**
  * Provides information about rooms, walls, doors etc. Used to construct 3D representation of a world from simple 2D
  * tile map data.
+ * <p>
+ * A floor plan only depends on the maze and the resolution, so {@link #of(World, int)} caches the immutable floor plans
+ * and returns the same instance for all worlds sharing a maze. The computation works on a primitive wall grid and
+ * processes the rows (columns) of large floor plans in parallel using the common fork-join pool.
+ * <p>
+ * Besides the block content, a floor plan provides the merged wall segments and the corner points as compact primitive
+ * arrays (see {@link #horizontalSegments()}, {@link #verticalSegments()}, {@link #corners()}), such that renderers can
+ * build the wall geometry without scanning the blocks again.
  * 
  * @author Armin Reichert
  */
@@ -44,6 +58,48 @@ public class FloorPlan {
 	public static final byte VWALL = 3;
 	public static final byte DOOR = 4;
 
+	/** Floor plans with at least this number of blocks are computed in parallel. */
+	private static final int PARALLEL_THRESHOLD = 1 << 14;
+
+	private record Key(Maze maze, int resolution) {
+	}
+
+	private static final Map<Key, FloorPlan> CACHE = new ConcurrentHashMap<>();
+
+	/* Wall grid with a border of one non-wall tile around the world, only used while the floor plan is computed. */
+	private record WallGrid(boolean[] cells, int width) {
+
+		WallGrid(Maze maze) {
+			this(new boolean[(maze.numCols() + 2) * (maze.numRows() + 2)], maze.numCols() + 2);
+			for (int ty = 0; ty < maze.numRows(); ++ty) {
+				for (int tx = 0; tx < maze.numCols(); ++tx) {
+					cells[(ty + 1) * width + tx + 1] = maze.isWall(tx, ty);
+				}
+			}
+		}
+
+		boolean isWall(int tileX, int tileY) {
+			return cells[(tileY + 1) * width + tileX + 1];
+		}
+	}
+
+	/**
+	 * @param world      a world
+	 * @param resolution number of blocks per tile in each direction
+	 * @return the (cached) floor plan of the maze of the given world at the given resolution
+	 */
+	public static FloorPlan of(World world, int resolution) {
+		checkNotNull(world);
+		checkResolution(resolution);
+		return CACHE.computeIfAbsent(new Key(world.maze(), resolution), key -> new FloorPlan(key.maze(), key.resolution()));
+	}
+
+	private static void checkResolution(int resolution) {
+		if (resolution < 1) {
+			throw new IllegalArgumentException("Floor plan resolution must be positive but is " + resolution);
+		}
+	}
+
 	private static char symbol(byte b) {
 		return switch (b) {
 		case CORNER -> '+';
@@ -55,31 +111,108 @@ public class FloorPlan {
 		};
 	}
 
-	private byte[][] info;
-	private final World world;
+	private final byte[] info; // row-major
+	private final int sizeX;
+	private final int sizeY;
 	private final int resolution;
+	private final int[] horizontalSegments; // (x1, x2, y) triples
+	private final int[] verticalSegments; // (x, y1, y2) triples
+	private final int[] corners; // (x, y) pairs
 
+	/**
+	 * Computes a new floor plan. Use {@link #of(World, int)} to get a cached instance.
+	 * 
+	 * @param world      a world
+	 * @param resolution number of blocks per tile in each direction
+	 */
 	public FloorPlan(World world, int resolution) {
-		this.world = world;
+		this(world.maze(), resolution);
+	}
+
+	private FloorPlan(Maze maze, int resolution) {
+		checkResolution(resolution);
 		this.resolution = resolution;
-		int numBlocksX = resolution * world.numCols();
-		int numBlocksY = resolution * world.numRows();
-		info = new byte[numBlocksY][numBlocksX];
-		scanForWalls(numBlocksX, numBlocksY);
-		clearPlacesSurroundedByWalls(numBlocksX, numBlocksY);
-		separateWallsAndCorners(numBlocksX, numBlocksY);
+		sizeX = resolution * maze.numCols();
+		sizeY = resolution * maze.numRows();
+		info = new byte[sizeX * sizeY];
+		var walls = new WallGrid(maze);
+		boolean parallel = sizeX * sizeY >= PARALLEL_THRESHOLD;
+		forEach(sizeY, parallel, y -> scanRowForWalls(walls, y));
+		// per row (column), start and end of each run of wall blocks
+		int[][] runs = new int[Math.max(sizeX, sizeY)][];
+		forEach(sizeY, parallel, y -> separateHorizontalWallsAndCorners(runs, y));
+		horizontalSegments = collectSegments(runs, sizeY, true);
+		forEach(sizeX, parallel, x -> separateVerticalWallsAndCorners(runs, x));
+		verticalSegments = collectSegments(runs, sizeX, false);
+		corners = collectCorners();
+	}
+
+	/* Flattens the runs of the rows (columns) into segment triples, ordered by row (column). */
+	private static int[] collectSegments(int[][] runs, int numLines, boolean horizontal) {
+		int size = 0;
+		for (int line = 0; line < numLines; ++line) {
+			size += runs[line].length / 2 * 3;
+		}
+		int[] segments = new int[size];
+		int i = 0;
+		for (int line = 0; line < numLines; ++line) {
+			int[] lineRuns = runs[line];
+			for (int r = 0; r < lineRuns.length; r += 2) {
+				if (horizontal) {
+					segments[i++] = lineRuns[r];
+					segments[i++] = lineRuns[r + 1];
+					segments[i++] = line;
+				} else {
+					segments[i++] = line;
+					segments[i++] = lineRuns[r];
+					segments[i++] = lineRuns[r + 1];
+				}
+			}
+			runs[line] = null;
+		}
+		return segments;
+	}
+
+	private int[] collectCorners() {
+		int count = 0;
+		for (byte content : info) {
+			if (content == CORNER) {
+				++count;
+			}
+		}
+		int[] result = new int[2 * count];
+		int i = 0;
+		for (int y = 0; y < sizeY; ++y) {
+			for (int x = 0; x < sizeX; ++x) {
+				if (info[y * sizeX + x] == CORNER) {
+					result[i++] = x;
+					result[i++] = y;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void forEach(int n, boolean parallel, IntConsumer action) {
+		if (parallel) {
+			IntStream.range(0, n).parallel().forEach(action);
+		} else {
+			for (int i = 0; i < n; ++i) {
+				action.accept(i);
+			}
+		}
 	}
 
 	public byte get(int x, int y) {
-		return info[y][x];
+		return info[y * sizeX + x];
 	}
 
 	public int sizeX() {
-		return info[0].length;
+		return sizeX;
 	}
 
 	public int sizeY() {
-		return info.length;
+		return sizeY;
 	}
 
 	public int getResolution() {
@@ -90,125 +223,160 @@ public class FloorPlan {
 		return v2i(x / resolution, y / resolution);
 	}
 
-	public void print(Writer w, boolean useSymbols) {
-		PrintWriter p = new PrintWriter(w);
-		for (int y = 0; y < sizeY(); ++y) {
-			for (int x = 0; x < sizeX(); ++x) {
-				p.print(useSymbols ? String.valueOf(symbol(get(x, y))) : get(x, y));
-			}
-			p.println();
-		}
+	/**
+	 * @return number of horizontal wall segments
+	 */
+	public int numHorizontalSegments() {
+		return horizontalSegments.length / 3;
 	}
 
-	private Vector2i northOf(int tileX, int tileY, int i) {
-		int dy = i / resolution == 0 ? -1 : 0;
-		return v2i(tileX, tileY + dy);
+	/**
+	 * Returns the horizontal wall segments, ordered by row and x-coordinate. A segment is a maximal horizontal run of at
+	 * least two wall blocks, it starts and ends with a corner (or a vertical wall block where walls meet).
+	 * 
+	 * @return new array with a triple (x1, x2, y) of block coordinates for each segment, x1 &lt; x2
+	 */
+	public int[] horizontalSegments() {
+		return horizontalSegments.clone();
 	}
 
-	private Vector2i southOf(int tileX, int tileY, int i) {
-		int dy = i / resolution == resolution - 1 ? 1 : 0;
-		return v2i(tileX, tileY + dy);
+	/**
+	 * @return number of vertical wall segments
+	 */
+	public int numVerticalSegments() {
+		return verticalSegments.length / 3;
 	}
 
-	private Vector2i westOf(int tileX, int tileY, int i) {
-		int dx = i % resolution == 0 ? -1 : 0;
-		return v2i(tileX + dx, tileY);
+	/**
+	 * Returns the vertical wall segments, ordered by column and y-coordinate. A segment is a maximal vertical run of at
+	 * least two corner blocks left over by the horizontal segments.
+	 * 
+	 * @return new array with a triple (x, y1, y2) of block coordinates for each segment, y1 &lt; y2
+	 */
+	public int[] verticalSegments() {
+		return verticalSegments.clone();
 	}
 
-	private Vector2i eastOf(int tileX, int tileY, int i) {
-		int dx = i % resolution == resolution - 1 ? 1 : 0;
-		return v2i(tileX + dx, tileY);
+	/**
+	 * @return number of corner blocks
+	 */
+	public int numCorners() {
+		return corners.length / 2;
 	}
 
-	private void separateWallsAndCorners(int numBlocksX, int numBlocksY) {
-		separateHorizontalWallsAndCorners(numBlocksX, numBlocksY);
-		separateVerticalWallsAndCorners(numBlocksX, numBlocksY);
+	/**
+	 * @return new array with a pair (x, y) of block coordinates for each block of type {@link #CORNER}, in row-major
+	 *         order
+	 */
+	public int[] corners() {
+		return corners.clone();
 	}
 
-	private void separateVerticalWallsAndCorners(int numBlocksX, int numBlocksY) {
-		for (int x = 0; x < numBlocksX; ++x) {
-			int startY = -1;
-			int size = 0;
-			for (int y = 0; y < numBlocksY; ++y) {
-				if (info[y][x] == CORNER) {
-					if (startY == -1) {
-						startY = y;
-						size = 1;
-					} else {
-						info[y][x] = (y == numBlocksY - 1) ? CORNER : VWALL;
-						++size;
-					}
-				} else {
-					if (size == 1) {
-						info[startY][x] = CORNER;
-					} else if (size > 1) {
-						info[startY + size - 1][x] = CORNER;
-					}
-					startY = -1;
-					size = 0;
-				}
+	public void print(Writer w, boolean useSymbols) {
+		PrintWriter p = new PrintWriter(w);
+		for (int y = 0; y < sizeY(); ++y) {
+			for (int x = 0; x < sizeX(); ++x) {
+				p.print(useSymbols ? String.valueOf(symbol(get(x, y))) : get(x, y));
 			}
+			p.println();
 		}
 	}
 
-	private void separateHorizontalWallsAndCorners(int numBlocksX, int numBlocksY) {
-		for (int y = 0; y < numBlocksY; ++y) {
-			int startX = -1;
-			int size = 0;
-			for (int x = 0; x < numBlocksX; ++x) {
-				if (info[y][x] == CORNER) {
-					if (startX == -1) {
-						startX = x;
-						size = 1;
-					} else {
-						info[y][x] = x == numBlocksX - 1 ? CORNER : HWALL;
-						++size;
-					}
-				} else {
-					if (size == 1) {
-						info[y][startX] = CORNER;
-					} else if (size > 1) {
-						info[y][startX + size - 1] = CORNER;
+	/*
+	 * A block of a wall tile becomes a corner, except if it is surrounded by walls and not at the corner of a wall region.
+	 */
+	private void scanRowForWalls(WallGrid walls, int y) {
+		int tileY = y / resolution;
+		int iy = y % resolution;
+		int dyNorth = iy == 0 ? -1 : 0;
+		int dySouth = iy == resolution - 1 ? 1 : 0;
+		for (int x = 0; x < sizeX; ++x) {
+			int tileX = x / resolution;
+			byte content = EMPTY;
+			if (walls.isWall(tileX, tileY)) {
+				content = CORNER;
+				int ix = x % resolution;
+				int dxWest = ix == 0 ? -1 : 0;
+				int dxEast = ix == resolution - 1 ? 1 : 0;
+				if (walls.isWall(tileX, tileY + dyNorth) && walls.isWall(tileX + dxEast, tileY)
+						&& walls.isWall(tileX, tileY + dySouth) && walls.isWall(tileX + dxWest, tileY)) {
+					boolean se = walls.isWall(tileX + dxEast, tileY + dySouth);
+					boolean sw = walls.isWall(tileX + dxWest, tileY + dySouth);
+					boolean ne = walls.isWall(tileX + dxEast, tileY + dyNorth);
+					boolean nw = walls.isWall(tileX + dxWest, tileY + dyNorth);
+					if (se == nw && sw == ne) {
+						content = EMPTY;
 					}
-					startX = -1;
-					size = 0;
 				}
 			}
+			info[y * sizeX + x] = content;
 		}
 	}
 
-	private void scanForWalls(int numBlocksX, int numBlocksY) {
-		for (int y = 0; y < numBlocksY; ++y) {
-			for (int x = 0; x < numBlocksX; ++x) {
-				Vector2i tile = v2i(x / resolution, y / resolution);
-				info[y][x] = world.isWall(tile) ? CORNER : EMPTY;
+	private void separateHorizontalWallsAndCorners(int[][] runs, int y) {
+		int row = y * sizeX;
+		int[] lineRuns = new int[sizeX + 1];
+		int numRuns = 0;
+		int startX = -1;
+		int size = 0;
+		for (int x = 0; x < sizeX; ++x) {
+			if (info[row + x] == CORNER) {
+				if (startX == -1) {
+					startX = x;
+					size = 1;
+				} else {
+					info[row + x] = x == sizeX - 1 ? CORNER : HWALL;
+					++size;
+				}
+			} else {
+				if (size == 1) {
+					info[row + startX] = CORNER;
+				} else if (size > 1) {
+					info[row + startX + size - 1] = CORNER;
+					lineRuns[numRuns++] = startX;
+					lineRuns[numRuns++] = startX + size - 1;
+				}
+				startX = -1;
+				size = 0;
 			}
 		}
+		if (size > 1) {
+			lineRuns[numRuns++] = startX;
+			lineRuns[numRuns++] = sizeX - 1;
+		}
+		runs[y] = Arrays.copyOf(lineRuns, numRuns);
 	}
 
-	private void clearPlacesSurroundedByWalls(int numBlocksX, int numBlocksY) {
-		for (int y = 0; y < numBlocksY; ++y) {
-			int tileY = y / resolution;
-			for (int x = 0; x < numBlocksX; ++x) {
-				int tileX = x / resolution;
-				int i = (y % resolution) * resolution + (x % resolution);
-				var n = northOf(tileX, tileY, i);
-				var e = eastOf(tileX, tileY, i);
-				var s = southOf(tileX, tileY, i);
-				var w = westOf(tileX, tileY, i);
-				if (world.isWall(n) && world.isWall(e) && world.isWall(s) && world.isWall(w)) {
-					var se = southOf(e.x(), e.y(), i);
-					var sw = southOf(w.x(), w.y(), i);
-					var ne = northOf(e.x(), e.y(), i);
-					var nw = northOf(w.x(), w.y(), i);
-					if (world.isWall(se) && !world.isWall(nw) || !world.isWall(se) && world.isWall(nw)
-							|| world.isWall(sw) && !world.isWall(ne) || !world.isWall(sw) && world.isWall(ne)) {
-						// keep corner of wall region
-					} else {
-						info[y][x] = EMPTY;
-					}
+	private void separateVerticalWallsAndCorners(int[][] runs, int x) {
+		int[] lineRuns = new int[sizeY + 1];
+		int numRuns = 0;
+		int startY = -1;
+		int size = 0;
+		for (int y = 0; y < sizeY; ++y) {
+			if (info[y * sizeX + x] == CORNER) {
+				if (startY == -1) {
+					startY = y;
+					size = 1;
+				} else {
+					info[y * sizeX + x] = (y == sizeY - 1) ? CORNER : VWALL;
+					++size;
 				}
+			} else {
+				if (size == 1) {
+					info[startY * sizeX + x] = CORNER;
+				} else if (size > 1) {
+					info[(startY + size - 1) * sizeX + x] = CORNER;
+					lineRuns[numRuns++] = startY;
+					lineRuns[numRuns++] = startY + size - 1;
+				}
+				startY = -1;
+				size = 0;
 			}
 		}
+		if (size > 1) {
+			lineRuns[numRuns++] = startY;
+			lineRuns[numRuns++] = sizeY - 1;
+		}
+		runs[x] = Arrays.copyOf(lineRuns, numRuns);
 	}
-}
\ No newline at end of file
+}
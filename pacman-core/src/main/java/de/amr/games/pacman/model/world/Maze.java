@@ -0,0 +1,380 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.model.world;
+
+import static de.amr.games.pacman.lib.Globals.checkDirectionNotNull;
+import static de.amr.games.pacman.lib.Globals.checkNotNull;
+import static de.amr.games.pacman.lib.Globals.checkTileNotNull;
+import static de.amr.games.pacman.lib.Globals.v2i;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import de.amr.games.pacman.lib.TileMap;
+import de.amr.games.pacman.lib.math.Vector2i;
+import de.amr.games.pacman.lib.steering.Direction;
+
+/**
+ * Immutable maze structure of a world: tile content, portals, energizer tiles, food count, a tile index for fast tile
+ * queries, food and energizer bitboards and the distance table.
+ * <p>
+ * Mazes are cached by map data identity and shared by all worlds created from the same map data, so creating a world
+ * for a new level or for another simulated game only allocates the mutable world state. Map data must not be modified
+ * after a maze has been created from it.
+ * 
+ * @author Armin Reichert
+ */
+public final class Maze {
+
+	//@formatter:off
+	private static final byte WALL            = 1;
+	private static final byte TUNNEL          = 2;
+	private static final byte PELLET          = 3;
+	private static final byte ENERGIZER       = 4;
+	//@formatter:on
+
+	//@formatter:off
+	/* Tile flags stored in the tile index */
+	private static final byte TF_WALL         = 0x01;
+	private static final byte TF_DOOR         = 0x02;
+	private static final byte TF_TUNNEL       = 0x04;
+	private static final byte TF_INTERSECTION = 0x08;
+	private static final byte TF_PORTAL       = 0x10;
+	private static final byte TF_FOOD         = 0x20;
+	private static final byte TF_ENERGIZER    = 0x40;
+	//@formatter:on
+
+	/** Number of tiles a portal extends beyond the world border. */
+	private static final int PORTAL_DEPTH = 2;
+
+	private static final Map<byte[][], Maze> CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * @param tileMapData byte-array of tile map data
+	 * @return the (cached) maze for this map data
+	 */
+	public static Maze of(byte[][] tileMapData) {
+		checkNotNull(tileMapData);
+		return CACHE.computeIfAbsent(tileMapData, data -> new Maze(data, World.ARCADE_HOUSE));
+	}
+
+	private static List<Portal> buildPortals(TileMap tileMap) {
+		var portals = new ArrayList<Portal>();
+		int lastColumn = tileMap.numCols() - 1;
+		for (int row = 0; row < tileMap.numRows(); ++row) {
+			var leftBorderTile = v2i(0, row);
+			var rightBorderTile = v2i(lastColumn, row);
+			if (tileMap.content(row, 0) == TUNNEL && tileMap.content(row, lastColumn) == TUNNEL) {
+				portals.add(new Portal(leftBorderTile, rightBorderTile, PORTAL_DEPTH));
+			}
+		}
+		portals.trimToSize();
+		return Collections.unmodifiableList(portals);
+	}
+
+	private final int numCols;
+	private final int numRows;
+	private final byte[] tileFlags;
+	private final byte[] openDirections;
+	private final List<Portal> portals;
+	private final List<Vector2i> energizerTiles;
+	private final int totalFoodCount;
+	private final long[] foodBits; // bit i = tile with index i contains food initially
+	private final long[] energizerBits; // bit i = tile with index i is an energizer tile
+	private volatile DistanceTable distanceTable;
+
+	private Maze(byte[][] tileMapData, House house) {
+		var tileMap = new TileMap(tileMapData);
+		numCols = tileMap.numCols();
+		numRows = tileMap.numRows();
+		portals = buildPortals(tileMap);
+		tileFlags = new byte[numCols * numRows];
+		openDirections = new byte[numCols * numRows];
+		buildTileIndex(tileMap, house);
+		energizerTiles = tiles().filter(this::isEnergizerTile).toList();
+		totalFoodCount = (int) tiles().filter(this::isFoodTile).count();
+		foodBits = new long[numWords()];
+		energizerBits = new long[numWords()];
+		for (int i = 0; i < tileFlags.length; ++i) {
+			if ((tileFlags[i] & TF_FOOD) != 0) {
+				foodBits[i >> 6] |= 1L << i;
+			}
+			if ((tileFlags[i] & TF_ENERGIZER) != 0) {
+				energizerBits[i >> 6] |= 1L << i;
+			}
+		}
+	}
+
+	/*
+	 * Computes the flags (wall, door, tunnel, intersection, portal entry, food) and the open directions of each tile. An
+	 * open direction leads to an accessible neighbor tile (no wall, no door) or into a portal.
+	 */
+	private void buildTileIndex(TileMap tileMap, House house) {
+		for (int row = 0; row < numRows; ++row) {
+			for (int col = 0; col < numCols; ++col) {
+				byte flags = 0;
+				switch (tileMap.content(row, col)) {
+				case WALL -> flags |= TF_WALL;
+				case TUNNEL -> flags |= TF_TUNNEL;
+				case PELLET -> flags |= TF_FOOD;
+				case ENERGIZER -> flags |= TF_FOOD | TF_ENERGIZER;
+				default -> {
+					// space, no flag
+				}
+				}
+				if (house.door().occupies(v2i(col, row))) {
+					flags |= TF_DOOR;
+				}
+				tileFlags[index(col, row)] = flags;
+			}
+		}
+		for (var portal : portals) {
+			tileFlags[index(portal.leftTunnelEnd().x(), portal.leftTunnelEnd().y())] |= TF_PORTAL;
+			tileFlags[index(portal.rightTunnelEnd().x(), portal.rightTunnelEnd().y())] |= TF_PORTAL;
+		}
+		for (int row = 0; row < numRows; ++row) {
+			for (int col = 0; col < numCols; ++col) {
+				int i = index(col, row);
+				int numBlockedNeighbors = 0;
+				for (var dir : Direction.values()) {
+					int nx = col + dir.vector().x();
+					int ny = row + dir.vector().y();
+					if (isAccessible(nx, ny)) {
+						openDirections[i] |= 1 << dir.ordinal();
+					}
+					if (insideBounds(nx, ny) && (tileFlags[index(nx, ny)] & (TF_WALL | TF_DOOR)) != 0) {
+						++numBlockedNeighbors;
+					}
+				}
+				// portal entries and house tiles are no intersections
+				if (col > 0 && col < numCols - 1 && !house.contains(v2i(col, row)) && numBlockedNeighbors < 2) {
+					tileFlags[i] |= TF_INTERSECTION;
+				}
+			}
+		}
+	}
+
+	private boolean insideBounds(int x, int y) {
+		return 0 <= x && x < numCols && 0 <= y && y < numRows;
+	}
+
+	private int index(int x, int y) {
+		return numCols * y + x;
+	}
+
+	private boolean hasFlag(int x, int y, byte flag) {
+		return insideBounds(x, y) && (tileFlags[index(x, y)] & flag) != 0;
+	}
+
+	public int numCols() {
+		return numCols;
+	}
+
+	public int numRows() {
+		return numRows;
+	}
+
+	/**
+	 * @return tiles in order top-to-bottom, left-to-right
+	 */
+	public Stream<Vector2i> tiles() {
+		return IntStream.range(0, numCols * numRows).mapToObj(i -> v2i(i % numCols, i / numCols));
+	}
+
+	public List<Portal> portals() {
+		return portals;
+	}
+
+	public List<Vector2i> energizerTiles() {
+		return energizerTiles;
+	}
+
+	public int totalFoodCount() {
+		return totalFoodCount;
+	}
+
+	/**
+	 * @return number of 64-bit words of a bitboard with one bit per tile
+	 */
+	int numWords() {
+		return (numCols * numRows + 63) >> 6;
+	}
+
+	/**
+	 * @return bitboard of the food tiles, bit i represents the tile with row-major index i (must not be modified)
+	 */
+	long[] foodBits() {
+		return foodBits;
+	}
+
+	/**
+	 * @return bitboard of the energizer tiles, bit i represents the tile with row-major index i (must not be modified)
+	 */
+	long[] energizerBits() {
+		return energizerBits;
+	}
+
+	/**
+	 * @return table of shortest path distances between the accessible tiles, computed on first access
+	 */
+	public DistanceTable distances() {
+		var table = distanceTable;
+		if (table == null) {
+			synchronized (this) {
+				table = distanceTable;
+				if (table == null) {
+					table = new DistanceTable(this);
+					distanceTable = table;
+				}
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * @param x tile x coordinate (may be outside world bounds)
+	 * @param y tile y coordinate (may be outside world bounds)
+	 * @return if this tile is neither a wall nor a door tile and is inside the world or belongs to a portal
+	 */
+	public boolean isAccessible(int x, int y) {
+		if (insideBounds(x, y)) {
+			return (tileFlags[index(x, y)] & (TF_WALL | TF_DOOR)) == 0;
+		}
+		return belongsToPortal(x, y);
+	}
+
+	/**
+	 * @param x tile x coordinate (may be outside world bounds)
+	 * @param y tile y coordinate (may be outside world bounds)
+	 * @return if this tile belongs to a portal, i.e. is one of the hidden tiles beyond a tunnel end
+	 */
+	public boolean belongsToPortal(int x, int y) {
+		if (0 <= y && y < numRows) {
+			if (-PORTAL_DEPTH <= x && x < 0) {
+				return (tileFlags[index(0, y)] & TF_PORTAL) != 0;
+			}
+			if (numCols <= x && x < numCols + PORTAL_DEPTH) {
+				return (tileFlags[index(numCols - 1, y)] & TF_PORTAL) != 0;
+			}
+		}
+		return false;
+	}
+
+	public boolean belongsToPortal(Vector2i tile) {
+		checkTileNotNull(tile);
+		return belongsToPortal(tile.x(), tile.y());
+	}
+
+	/**
+	 * @param tile some tile (may be outside world bound)
+	 * @return if this tile is neither a wall nor a door tile and is inside the world or belongs to a portal
+	 */
+	public boolean isAccessible(Vector2i tile) {
+		checkTileNotNull(tile);
+		return isAccessible(tile.x(), tile.y());
+	}
+
+	/**
+	 * @param tile some tile inside the world
+	 * @param dir  some direction
+	 * @return if the neighbor tile in the given direction is accessible, see {@link #isAccessible(Vector2i)}
+	 */
+	public boolean isOpen(Vector2i tile, Direction dir) {
+		checkTileNotNull(tile);
+		return isOpen(tile.x(), tile.y(), dir);
+	}
+
+	/**
+	 * @param x   tile x coordinate
+	 * @param y   tile y coordinate
+	 * @param dir some direction
+	 * @return if the neighbor tile in the given direction is accessible, see {@link #isAccessible(int, int)}
+	 */
+	public boolean isOpen(int x, int y, Direction dir) {
+		checkDirectionNotNull(dir);
+		if (insideBounds(x, y)) {
+			return (openDirections[index(x, y)] & (1 << dir.ordinal())) != 0;
+		}
+		return isAccessible(x + dir.vector().x(), y + dir.vector().y());
+	}
+
+	public boolean isDoor(int x, int y) {
+		return hasFlag(x, y, TF_DOOR);
+	}
+
+	public boolean isWall(Vector2i tile) {
+		checkTileNotNull(tile);
+		return isWall(tile.x(), tile.y());
+	}
+
+	public boolean isWall(int x, int y) {
+		return hasFlag(x, y, TF_WALL);
+	}
+
+	public boolean isTunnel(Vector2i tile) {
+		checkTileNotNull(tile);
+		return isTunnel(tile.x(), tile.y());
+	}
+
+	public boolean isTunnel(int x, int y) {
+		return hasFlag(x, y, TF_TUNNEL);
+	}
+
+	public boolean isFoodTile(Vector2i tile) {
+		checkTileNotNull(tile);
+		return isFoodTile(tile.x(), tile.y());
+	}
+
+	public boolean isFoodTile(int x, int y) {
+		return hasFlag(x, y, TF_FOOD);
+	}
+
+	public boolean isEnergizerTile(Vector2i tile) {
+		checkTileNotNull(tile);
+		return isEnergizerTile(tile.x(), tile.y());
+	}
+
+	public boolean isEnergizerTile(int x, int y) {
+		return hasFlag(x, y, TF_ENERGIZER);
+	}
+
+	/**
+	 * @param tile some tile
+	 * @return if this tile is an intersection, that is a tile inside the world, not at the border and not inside the
+	 *         house, with less than two wall or door neighbors
+	 */
+	public boolean isIntersection(Vector2i tile) {
+		checkTileNotNull(tile);
+		return isIntersection(tile.x(), tile.y());
+	}
+
+	public boolean isIntersection(int x, int y) {
+		return hasFlag(x, y, TF_INTERSECTION);
+	}
+}
@@ -30,18 +30,17 @@ import static de.amr.games.pacman.lib.Globals.checkTileNotNull;
 import static de.amr.games.pacman.lib.Globals.v2f;
 import static de.amr.games.pacman.lib.Globals.v2i;
 
-import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.Collections;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
-import de.amr.games.pacman.lib.TileMap;
 import de.amr.games.pacman.lib.anim.AnimationMap;
 import de.amr.games.pacman.lib.math.Vector2f;
 import de.amr.games.pacman.lib.math.Vector2i;
+import de.amr.games.pacman.lib.steering.Direction;
 import de.amr.games.pacman.model.AnimatedEntity;
 import de.amr.games.pacman.model.actors.Entity;
 
@@ -50,30 +49,29 @@ import de.amr.games.pacman.model.actors.Entity;
  * <p>
  * Maze structure varies, but ghost house, ghost starting positions/directions and Pac-Man starting position/direction
  * are the same for each level/world.
+ * <p>
+ * The immutable maze structure is shared between worlds (see {@link Maze}), a world itself only stores the remaining
+ * food as a bitboard (one bit per tile in row-major order), such that counting and bulk updates of the food work on
+ * 64 tiles at once.
  * 
  * @author Armin Reichert
  */
 public class World extends Entity implements AnimatedEntity {
 
-	//@formatter:off
-	private static final byte SPACE           = 0;
-	private static final byte WALL            = 1;
-	private static final byte TUNNEL          = 2;
-	private static final byte PELLET          = 3;
-	private static final byte ENERGIZER       = 4;
-	//@formatter:on
-
 	/** World size in x-direction in tiles. */
 	public static final int TILES_X = 28;
 
 	/** World size in y-direction in tiles. */
 	public static final int TILES_Y = 36;
 
+	/** Tile where Pac-Man starts, the same in all mazes. */
+	public static final Vector2i PAC_START_TILE = v2i(13, 26);
+
 	/**
 	 * The ghosthouse as it looks in the Arcade version of Pac-Man and Ms. Pac-Man.
 	 */
 	//@formatter:off
-	private static final House ARCADE_HOUSE = new House(
+	static final House ARCADE_HOUSE = new House(
 		v2i(10, 15), // top-left corner
 		v2i(8, 5),   // size in tiles
 		new Door(v2i(13, 15), v2i(14, 15)),
@@ -109,25 +107,8 @@ public class World extends Entity implements AnimatedEntity {
 		return v2f(TS * tileX + HTS, TS * tileY);
 	}
 
-	private static List<Portal> buildPortals(TileMap tileMap) {
-		var portals = new ArrayList<Portal>();
-		int lastColumn = tileMap.numCols() - 1;
-		for (int row = 0; row < tileMap.numRows(); ++row) {
-			var leftBorderTile = v2i(0, row);
-			var rightBorderTile = v2i(lastColumn, row);
-			if (tileMap.content(row, 0) == TUNNEL && tileMap.content(row, lastColumn) == TUNNEL) {
-				portals.add(new Portal(leftBorderTile, rightBorderTile, 2));
-			}
-		}
-		portals.trimToSize();
-		return portals;
-	}
-
-	private final TileMap tileMap;
-	private final List<Portal> portals;
-	private final List<Vector2i> energizerTiles;
-	private final BitSet eatenSet;
-	private final int totalFoodCount;
+	private final Maze maze;
+	private final long[] food; // bit i = tile with index i contains food
 	private int uneatenFoodCount;
 	private AnimationMap animationMap;
 
@@ -135,12 +116,17 @@ public class World extends Entity implements AnimatedEntity {
 	 * @param tileMapData byte-array of tile map data
 	 */
 	public World(byte[][] tileMapData) {
-		tileMap = new TileMap(tileMapData);
-		portals = buildPortals(tileMap);
-		eatenSet = new BitSet(tileMap.numCols() * tileMap.numRows());
-		energizerTiles = tiles().filter(this::isEnergizerTile).toList();
-		totalFoodCount = (int) tiles().filter(this::isFoodTile).count();
-		uneatenFoodCount = totalFoodCount;
+		this(Maze.of(tileMapData));
+	}
+
+	/**
+	 * @param maze the (shared) maze of this world
+	 */
+	public World(Maze maze) {
+		checkNotNull(maze);
+		this.maze = maze;
+		food = maze.foodBits().clone();
+		uneatenFoodCount = maze.totalFoodCount();
 	}
 
 	@Override
@@ -148,6 +134,13 @@ public class World extends Entity implements AnimatedEntity {
 		return this;
 	}
 
+	/**
+	 * @return the immutable maze structure of this world
+	 */
+	public Maze maze() {
+		return maze;
+	}
+
 	public House house() {
 		return ARCADE_HOUSE;
 	}
@@ -167,6 +160,15 @@ public class World extends Entity implements AnimatedEntity {
 		return numCols() * tile.y() + tile.x();
 	}
 
+	/**
+	 * @param x tile x coordinate
+	 * @param y tile y coordinate
+	 * @return tile index in order top-to-bottom, left-to-right
+	 */
+	public int index(int x, int y) {
+		return numCols() * y + x;
+	}
+
 	/**
 	 * @param index tile index in order top-to-bottom, left-to-right
 	 * @return tile with given index
@@ -180,7 +182,16 @@ public class World extends Entity implements AnimatedEntity {
 	 * @return if this tile is located inside the world bounds
 	 */
 	public boolean insideBounds(Vector2i tile) {
-		return 0 <= tile.x() && tile.x() < numCols() && 0 <= tile.y() && tile.y() < numRows();
+		return insideBounds(tile.x(), tile.y());
+	}
+
+	/**
+	 * @param x tile x coordinate
+	 * @param y tile y coordinate
+	 * @return if this tile is located inside the world bounds
+	 */
+	public boolean insideBounds(int x, int y) {
+		return 0 <= x && x < numCols() && 0 <= y && y < numRows();
 	}
 
 	/**
@@ -208,92 +219,336 @@ public class World extends Entity implements AnimatedEntity {
 	}
 
 	public List<Portal> portals() {
-		return Collections.unmodifiableList(portals);
+		return maze.portals();
+	}
+
+	/**
+	 * @return table of shortest path distances between the accessible tiles of this world, shared by all worlds using
+	 *         the same maze
+	 */
+	public DistanceTable distances() {
+		return maze.distances();
 	}
 
 	public boolean belongsToPortal(Vector2i tile) {
-		checkTileNotNull(tile);
-		return portals.stream().anyMatch(portal -> portal.contains(tile));
+		return maze.belongsToPortal(tile);
+	}
+
+	public boolean belongsToPortal(int x, int y) {
+		return maze.belongsToPortal(x, y);
 	}
 
 	/**
 	 * @param tile some tile (may be outside world bound)
-	 * @return the content at the given tile or empty space if outside world
+	 * @return if this tile is neither a wall nor a door tile and is inside the world or belongs to a portal
+	 */
+	public boolean isAccessible(Vector2i tile) {
+		return maze.isAccessible(tile);
+	}
+
+	public boolean isAccessible(int x, int y) {
+		return maze.isAccessible(x, y);
+	}
+
+	/**
+	 * @param tile some tile inside the world
+	 * @param dir  some direction
+	 * @return if the neighbor tile in the given direction is accessible, see {@link #isAccessible(Vector2i)}
 	 */
-	private byte contentOrSpace(Vector2i tile) {
-		// Note: content is stored row-wise, so use (y,x) to index content
-		return tileMap.content(tile.y(), tile.x(), SPACE);
+	public boolean isOpen(Vector2i tile, Direction dir) {
+		return maze.isOpen(tile, dir);
+	}
+
+	public boolean isOpen(int x, int y, Direction dir) {
+		return maze.isOpen(x, y, dir);
+	}
+
+	public boolean isDoor(int x, int y) {
+		return maze.isDoor(x, y);
 	}
 
 	public boolean isWall(Vector2i tile) {
-		checkTileNotNull(tile);
-		return contentOrSpace(tile) == WALL;
+		return maze.isWall(tile);
+	}
+
+	public boolean isWall(int x, int y) {
+		return maze.isWall(x, y);
 	}
 
 	public boolean isTunnel(Vector2i tile) {
-		checkTileNotNull(tile);
-		return contentOrSpace(tile) == TUNNEL;
+		return maze.isTunnel(tile);
+	}
+
+	public boolean isTunnel(int x, int y) {
+		return maze.isTunnel(x, y);
 	}
 
 	public boolean isFoodTile(Vector2i tile) {
-		checkTileNotNull(tile);
-		byte data = contentOrSpace(tile);
-		return data == PELLET || data == ENERGIZER;
+		return maze.isFoodTile(tile);
+	}
+
+	public boolean isFoodTile(int x, int y) {
+		return maze.isFoodTile(x, y);
 	}
 
 	public boolean isEnergizerTile(Vector2i tile) {
-		checkTileNotNull(tile);
-		return contentOrSpace(tile) == ENERGIZER;
+		return maze.isEnergizerTile(tile);
+	}
+
+	public boolean isEnergizerTile(int x, int y) {
+		return maze.isEnergizerTile(x, y);
 	}
 
 	public Stream<Vector2i> energizerTiles() {
-		return energizerTiles.stream();
+		return maze.energizerTiles().stream();
 	}
 
 	public void removeFood(Vector2i tile) {
 		checkTileNotNull(tile);
-		if (insideBounds(tile) && containsFood(tile)) {
-			eatenSet.set(index(tile));
+		removeFood(tile.x(), tile.y());
+	}
+
+	public void removeFood(int x, int y) {
+		if (containsFood(x, y)) {
+			int i = index(x, y);
+			food[i >> 6] &= ~(1L << i);
 			--uneatenFoodCount;
 		}
 	}
 
+	/**
+	 * Removes the food from all tiles.
+	 */
+	public void removeAllFood() {
+		Arrays.fill(food, 0);
+		uneatenFoodCount = 0;
+	}
+
+	/**
+	 * Removes all normal pellets, the energizers remain.
+	 */
+	public void removeAllPellets() {
+		long[] energizers = maze.energizerBits();
+		int count = 0;
+		for (int w = 0; w < food.length; ++w) {
+			food[w] &= energizers[w];
+			count += Long.bitCount(food[w]);
+		}
+		uneatenFoodCount = count;
+	}
+
 	public boolean containsFood(Vector2i tile) {
 		checkTileNotNull(tile);
-		if (insideBounds(tile)) {
-			byte data = contentOrSpace(tile);
-			return (data == PELLET || data == ENERGIZER) && !eatenSet.get(index(tile));
+		return containsFood(tile.x(), tile.y());
+	}
+
+	public boolean containsFood(int x, int y) {
+		if (!insideBounds(x, y)) {
+			return false;
 		}
-		return false;
+		int i = index(x, y);
+		return (food[i >> 6] & (1L << i)) != 0;
 	}
 
 	public boolean containsEatenFood(Vector2i tile) {
 		checkTileNotNull(tile);
-		if (insideBounds(tile)) {
-			return eatenSet.get(index(tile));
+		return containsEatenFood(tile.x(), tile.y());
+	}
+
+	public boolean containsEatenFood(int x, int y) {
+		return maze.isFoodTile(x, y) && !containsFood(x, y);
+	}
+
+	/**
+	 * Writes the eaten food of this world as a fixed-size bit set. The maze itself is not written, it is given by the
+	 * level.
+	 * 
+	 * @param buffer buffer to write to
+	 */
+	public void saveState(ByteBuffer buffer) {
+		long[] initialFood = maze.foodBits();
+		for (int w = 0; w < food.length; ++w) {
+			buffer.putLong(initialFood[w] & ~food[w]);
+		}
+		buffer.putShort((short) uneatenFoodCount);
+	}
+
+	/**
+	 * Reads the state written by {@link #saveState(ByteBuffer)}.
+	 * 
+	 * @param buffer buffer to read from
+	 */
+	public void restoreState(ByteBuffer buffer) {
+		long[] initialFood = maze.foodBits();
+		for (int w = 0; w < food.length; ++w) {
+			food[w] = initialFood[w] & ~buffer.getLong();
 		}
-		return false;
+		uneatenFoodCount = buffer.getShort();
 	}
 
 	public int uneatenFoodCount() {
 		return uneatenFoodCount;
 	}
 
+	/**
+	 * Finds the food tiles nearest to the given tile along the maze paths. The tiles are visited in order of increasing
+	 * distance (see {@link DistanceTable#tileByDistance(int, int, int)}) and the search stops behind the distance of the
+	 * nearest food, so the cost depends on how far away the nearest food is and not on the size of the world. As food is
+	 * removed by {@link #removeFood(int, int)}, the next query sees the change without any rebuild.
+	 * 
+	 * @param x              tile x coordinate
+	 * @param y              tile y coordinate
+	 * @param skipEnergizers if energizer tiles are ignored
+	 * @param result         receives the nearest food tiles (cleared first), if {@code null} only the distance is
+	 *                       computed
+	 * @return maze distance of the nearest food tiles or {@link DistanceTable#UNREACHABLE} if no food can be reached or
+	 *         the given tile is not an accessible tile inside the world
+	 */
+	public int findNearestFoodTiles(int x, int y, boolean skipEnergizers, List<Vector2i> result) {
+		if (result != null) {
+			result.clear();
+		}
+		if (uneatenFoodCount == 0) {
+			return DistanceTable.UNREACHABLE;
+		}
+		var distances = maze.distances();
+		int minDist = DistanceTable.UNREACHABLE;
+		for (int rank = 0;; ++rank) {
+			int index = distances.tileByDistance(x, y, rank);
+			if (index == -1) {
+				break;
+			}
+			int tx = index % numCols();
+			int ty = index / numCols();
+			if (minDist != DistanceTable.UNREACHABLE && distances.distance(x, y, tx, ty) > minDist) {
+				break;
+			}
+			if (containsFood(tx, ty) && !(skipEnergizers && maze.isEnergizerTile(tx, ty))) {
+				minDist = distances.distance(x, y, tx, ty);
+				if (result == null) {
+					break;
+				}
+				result.add(v2i(tx, ty));
+			}
+		}
+		return minDist;
+	}
+
 	public int eatenFoodCount() {
-		return totalFoodCount - uneatenFoodCount;
+		return maze.totalFoodCount() - uneatenFoodCount;
 	}
 
-	public boolean isIntersection(Vector2i tile) {
-		checkTileNotNull(tile);
+	/**
+	 * @return number of energizers not eaten yet
+	 */
+	public int uneatenEnergizerCount() {
+		long[] energizers = maze.energizerBits();
+		int count = 0;
+		for (int w = 0; w < food.length; ++w) {
+			count += Long.bitCount(food[w] & energizers[w]);
+		}
+		return count;
+	}
 
-		if (tile.x() <= 0 || tile.x() >= numCols() - 1) {
-			return false; // exclude portal entries and tiles outside of the map
+	/**
+	 * @param left   x-coordinate of left column
+	 * @param top    y-coordinate of top row
+	 * @param width  number of columns
+	 * @param height number of rows
+	 * @return number of tiles containing food inside the given region (clipped to the world bounds)
+	 */
+	public int uneatenFoodCount(int left, int top, int width, int height) {
+		int minX = Math.max(left, 0);
+		int maxX = Math.min(left + width, numCols());
+		int minY = Math.max(top, 0);
+		int maxY = Math.min(top + height, numRows());
+		int count = 0;
+		for (int y = minY; y < maxY; ++y) {
+			count += countBits(food, index(minX, y), index(maxX, y));
 		}
-		if (ARCADE_HOUSE.contains(tile)) {
-			return false;
+		return count;
+	}
+
+	/**
+	 * @param y     row
+	 * @param fromX x-coordinate where the search starts
+	 * @return x-coordinate of the first tile with food in the given row at or right of the given column or -1
+	 */
+	public int nextFoodInRow(int y, int fromX) {
+		if (y < 0 || y >= numRows() || fromX >= numCols()) {
+			return -1;
+		}
+		int rowStart = index(0, y);
+		int i = nextSetBit(food, index(Math.max(fromX, 0), y), rowStart + numCols());
+		return i != -1 ? i - rowStart : -1;
+	}
+
+	/**
+	 * @param x     column
+	 * @param fromY y-coordinate where the search starts
+	 * @return y-coordinate of the first tile with food in the given column at or below the given row or -1
+	 */
+	public int nextFoodInColumn(int x, int fromY) {
+		if (x < 0 || x >= numCols()) {
+			return -1;
+		}
+		for (int y = Math.max(fromY, 0); y < numRows(); ++y) {
+			int i = index(x, y);
+			if ((food[i >> 6] & (1L << i)) != 0) {
+				return y;
+			}
+		}
+		return -1;
+	}
+
+	/* Number of set bits in index range [from, to). */
+	private static int countBits(long[] bits, int from, int to) {
+		if (from >= to) {
+			return 0;
+		}
+		int firstWord = from >> 6;
+		int lastWord = (to - 1) >> 6;
+		long firstMask = -1L << from;
+		long lastMask = -1L >>> -to;
+		if (firstWord == lastWord) {
+			return Long.bitCount(bits[firstWord] & firstMask & lastMask);
+		}
+		int count = Long.bitCount(bits[firstWord] & firstMask);
+		for (int w = firstWord + 1; w < lastWord; ++w) {
+			count += Long.bitCount(bits[w]);
+		}
+		return count + Long.bitCount(bits[lastWord] & lastMask);
+	}
+
+	/* Index of first set bit in index range [from, to) or -1. */
+	private static int nextSetBit(long[] bits, int from, int to) {
+		if (from >= to) {
+			return -1;
+		}
+		int w = from >> 6;
+		long word = bits[w] & (-1L << from);
+		while (true) {
+			if (word != 0) {
+				int i = (w << 6) + Long.numberOfTrailingZeros(word);
+				return i < to ? i : -1;
+			}
+			if (++w > (to - 1) >> 6) {
+				return -1;
+			}
+			word = bits[w];
 		}
-		long numWallNeighbors = tile.neighbors().filter(this::isWall).count();
-		long numDoorNeighbors = tile.neighbors().filter(ARCADE_HOUSE.door()::occupies).count();
-		return numWallNeighbors + numDoorNeighbors < 2;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * @param tile some tile
+	 * @return if this tile is an intersection, that is a tile inside the world, not at the border and not inside the
+	 *         house, with less than two wall or door neighbors
+	 */
+	public boolean isIntersection(Vector2i tile) {
+		return maze.isIntersection(tile);
+	}
+
+	public boolean isIntersection(int x, int y) {
+		return maze.isIntersection(x, y);
+	}
+}
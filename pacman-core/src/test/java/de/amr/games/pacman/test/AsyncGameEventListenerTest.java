@@ -0,0 +1,178 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.event.AsyncGameEventListener.PublishedEvent;
+import de.amr.games.pacman.event.AsyncGameEventListener;
+import de.amr.games.pacman.event.AsyncGameEventListener.BackPressure;
+import de.amr.games.pacman.event.GameEvent;
+import de.amr.games.pacman.event.GameEventListener;
+import de.amr.games.pacman.event.GameEventType;
+import de.amr.games.pacman.lib.Globals;
+import de.amr.games.pacman.lib.SpscRingBuffer;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class AsyncGameEventListenerTest {
+
+	/** Listener that waits for a "go" before handling its first event. */
+	private static class BlockedListener implements GameEventListener {
+		final CountDownLatch go = new CountDownLatch(1);
+		final CountDownLatch entered = new CountDownLatch(1);
+		final List<GameEvent> events = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void onGameEvent(GameEvent event) {
+			entered.countDown();
+			try {
+				go.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException x) {
+				Thread.currentThread().interrupt();
+			}
+			events.add(event);
+		}
+	}
+
+	private final GameModel game = new GameModel(GameVariant.PACMAN);
+
+	private GameEvent event(GameEventType type, int x) {
+		return new GameEvent(game, type, Globals.v2i(x, 0));
+	}
+
+	@Test
+	public void testRingBuffer() {
+		var buffer = new SpscRingBuffer<Integer>(3);
+		assertEquals(4, buffer.capacity());
+		for (int i = 0; i < 4; ++i) {
+			assertTrue(buffer.offer(i));
+		}
+		assertEquals(false, buffer.offer(4));
+		assertEquals(Integer.valueOf(0), buffer.poll());
+		assertTrue(buffer.offer(4));
+		for (int i = 1; i <= 4; ++i) {
+			assertEquals(Integer.valueOf(i), buffer.poll());
+		}
+		assertTrue(buffer.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalRingBufferCapacity() {
+		new SpscRingBuffer<Integer>(0);
+	}
+
+	@Test
+	public void testAllEventsDeliveredInOrder() throws Exception {
+		var listener = new BlockedListener();
+		listener.go.countDown();
+		try (var async = new AsyncGameEventListener(listener, 4, BackPressure.BLOCK)) {
+			for (int i = 0; i < 100; ++i) {
+				async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, i % 28));
+			}
+			assertTrue(async.awaitDelivery(5000));
+			assertEquals(100, listener.events.size());
+			for (int i = 0; i < 100; ++i) {
+				assertEquals(i % 28, listener.events.get(i).tile.get().x());
+			}
+		}
+	}
+
+	@Test
+	public void testPayloadCapturedAtPublishTime() throws Exception {
+		var published = new CopyOnWriteArrayList<PublishedEvent>();
+		game.newScore();
+		game.enterLevel(1);
+		var level = game.level().get();
+		level.letsGetReadyToRumbleAndShowGuys(true);
+		try (var async = AsyncGameEventListener.withPayload(published::add, 4, BackPressure.BLOCK)) {
+			game.eventBus().addListener(GameEventType.PAC_GETS_POWER, async);
+			game.publishGameEventOfType(GameEventType.PAC_GETS_POWER);
+			game.score().get().setPoints(500);
+			level.update();
+			game.publishGameEventOfType(GameEventType.PAC_GETS_POWER);
+			assertTrue(async.awaitDelivery(5000));
+			game.eventBus().removeListener(GameEventType.PAC_GETS_POWER, async);
+		}
+		assertEquals(2, published.size());
+		// the game model publishes the same event instance twice, the payload differs
+		assertSame(published.get(0).event(), published.get(1).event());
+		assertEquals(0, published.get(0).score());
+		assertEquals(0, published.get(0).levelTick());
+		assertEquals(500, published.get(1).score());
+		assertEquals(1, published.get(1).levelTick());
+	}
+
+	@Test
+	public void testDrop() throws Exception {
+		var listener = new BlockedListener();
+		try (var async = new AsyncGameEventListener(listener, 2, BackPressure.DROP)) {
+			async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, 0));
+			assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+			// consumer is blocked inside the listener, buffer takes two more events
+			for (int i = 1; i <= 5; ++i) {
+				async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, i));
+			}
+			assertEquals(3, async.droppedCount());
+			listener.go.countDown();
+			assertTrue(async.awaitDelivery(5000));
+			assertEquals(3, listener.events.size());
+		}
+	}
+
+	@Test
+	public void testCoalesce() throws Exception {
+		var listener = new BlockedListener();
+		try (var async = new AsyncGameEventListener(listener, 2, BackPressure.COALESCE)) {
+			async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, 0));
+			assertTrue(listener.entered.await(5, TimeUnit.SECONDS));
+			async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, 1));
+			async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, 2));
+			// buffer is full now
+			async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, 3));
+			async.onGameEvent(event(GameEventType.BONUS_EXPIRES, 4));
+			async.onGameEvent(event(GameEventType.PAC_FINDS_FOOD, 5));
+			assertEquals(1, async.coalescedCount());
+			listener.go.countDown();
+			assertTrue(async.awaitDelivery(5000));
+			var xs = listener.events.stream().map(e -> e.tile.get().x()).toList();
+			assertEquals(5, xs.size());
+			assertEquals(List.of(0, 1, 2), xs.subList(0, 3));
+			assertTrue(xs.containsAll(List.of(4, 5)));
+			assertEquals(0, async.droppedCount());
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.zip.CRC32;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.world.FloorPlan;
+import de.amr.games.pacman.model.world.World;
+
+/**
+ * @author Armin Reichert
+ */
+public class FloorPlanTest {
+
+	private static long checksum(FloorPlan floorPlan) {
+		var text = new StringWriter();
+		floorPlan.print(text, false);
+		var crc = new CRC32();
+		crc.update(text.toString().getBytes());
+		return crc.getValue();
+	}
+
+	@Test
+	public void testFloorPlanContent() {
+		// checksums of the floor plans computed by the original implementation
+		assertEquals(3008925627L, checksum(FloorPlan.of(new World(GameModel.PACMAN_MAP), 1)));
+		assertEquals(2121561743L, checksum(FloorPlan.of(new World(GameModel.PACMAN_MAP), 8)));
+		assertEquals(3148245493L, checksum(FloorPlan.of(new World(GameModel.MS_PACMAN_MAPS[0]), 8)));
+		assertEquals(2317532231L, checksum(FloorPlan.of(new World(GameModel.MS_PACMAN_MAPS[3]), 8)));
+	}
+
+	@Test
+	public void testFloorPlanIsCached() {
+		var floorPlan = FloorPlan.of(new World(GameModel.MS_PACMAN_MAPS[1]), 4);
+		assertSame(floorPlan, FloorPlan.of(new World(GameModel.MS_PACMAN_MAPS[1]), 4));
+		assertNotSame(floorPlan, FloorPlan.of(new World(GameModel.MS_PACMAN_MAPS[1]), 2));
+		assertEquals(checksum(floorPlan), checksum(new FloorPlan(new World(GameModel.MS_PACMAN_MAPS[1]), 4)));
+		assertEquals(4 * 28, floorPlan.sizeX());
+		assertEquals(4 * 36, floorPlan.sizeY());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalResolution() {
+		FloorPlan.of(new World(GameModel.PACMAN_MAP), 0);
+	}
+
+	@Test
+	public void testSegmentsCoverWalls() {
+		for (int resolution : new int[] { 1, 4, 8 }) {
+			var floorPlan = FloorPlan.of(new World(GameModel.MS_PACMAN_MAPS[2]), resolution);
+			int numHWall = 0;
+			int numVWall = 0;
+			int numCorners = 0;
+			for (int y = 0; y < floorPlan.sizeY(); ++y) {
+				for (int x = 0; x < floorPlan.sizeX(); ++x) {
+					switch (floorPlan.get(x, y)) {
+					case FloorPlan.HWALL -> ++numHWall;
+					case FloorPlan.VWALL -> ++numVWall;
+					case FloorPlan.CORNER -> ++numCorners;
+					default -> {
+						// no wall
+					}
+					}
+				}
+			}
+			int[] h = floorPlan.horizontalSegments();
+			assertEquals(3 * floorPlan.numHorizontalSegments(), h.length);
+			int hInner = 0;
+			for (int i = 0; i < h.length; i += 3) {
+				assertTrue(h[i] < h[i + 1]);
+				for (int x = h[i] + 1; x < h[i + 1]; ++x) {
+					assertEquals(FloorPlan.HWALL, floorPlan.get(x, h[i + 2]));
+				}
+				assertNotEquals(FloorPlan.HWALL, floorPlan.get(h[i], h[i + 2]));
+				hInner += h[i + 1] - h[i] - 1;
+			}
+			assertEquals(numHWall, hInner);
+			int[] v = floorPlan.verticalSegments();
+			assertEquals(3 * floorPlan.numVerticalSegments(), v.length);
+			int vInner = 0;
+			for (int i = 0; i < v.length; i += 3) {
+				assertTrue(v[i + 1] < v[i + 2]);
+				for (int y = v[i + 1] + 1; y < v[i + 2]; ++y) {
+					assertEquals(FloorPlan.VWALL, floorPlan.get(v[i], y));
+				}
+				assertEquals(FloorPlan.CORNER, floorPlan.get(v[i], v[i + 1]));
+				assertEquals(FloorPlan.CORNER, floorPlan.get(v[i], v[i + 2]));
+				vInner += v[i + 2] - v[i + 1] - 1;
+			}
+			assertEquals(numVWall, vInner);
+			int[] corners = floorPlan.corners();
+			assertEquals(numCorners, floorPlan.numCorners());
+			for (int i = 0; i < corners.length; i += 2) {
+				assertEquals(FloorPlan.CORNER, floorPlan.get(corners[i], corners[i + 1]));
+			}
+		}
+	}
+}
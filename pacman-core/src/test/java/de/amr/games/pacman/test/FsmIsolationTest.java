@@ -0,0 +1,95 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.GameState;
+import de.amr.games.pacman.controller.MsPacManIntermission1;
+import de.amr.games.pacman.controller.MsPacManIntermission2;
+import de.amr.games.pacman.controller.MsPacManIntermission3;
+import de.amr.games.pacman.controller.MsPacManIntro;
+import de.amr.games.pacman.controller.PacManIntro;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class FsmIsolationTest {
+
+	@Test
+	public void testStatesHaveNoInstanceData() {
+		List<Class<? extends Enum<?>>> stateTypes = List.of(GameState.class, PacManIntro.State.class,
+				MsPacManIntro.State.class, MsPacManIntermission1.State.class, MsPacManIntermission2.State.class,
+				MsPacManIntermission3.State.class);
+		for (var stateType : stateTypes) {
+			for (var state : stateType.getEnumConstants()) {
+				for (Class<?> type = state.getClass(); type != Enum.class; type = type.getSuperclass()) {
+					for (var field : type.getDeclaredFields()) {
+						assertTrue("State %s has instance field %s".formatted(state, field.getName()),
+								Modifier.isStatic(field.getModifiers()));
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testControllersAreIndependent() {
+		var gc1 = new GameController(GameVariant.PACMAN);
+		var gc2 = new GameController(GameVariant.MS_PACMAN);
+		gc1.restart(GameState.LEVEL_TEST);
+		for (int i = 0; i < 100; ++i) {
+			gc1.update();
+		}
+		gc2.restart(GameState.LEVEL_TEST);
+		gc2.update();
+		assertEquals(GameState.LEVEL_TEST, gc1.state());
+		assertEquals(100, gc1.timer().tick());
+		assertEquals(1, gc2.timer().tick());
+		assertEquals(GameVariant.PACMAN, gc1.game().variant());
+	}
+
+	@Test
+	public void testIntrosAreIndependent() {
+		var intro1 = new PacManIntro(new GameController(GameVariant.PACMAN));
+		var intro2 = new PacManIntro(new GameController(GameVariant.PACMAN));
+		intro1.restart(PacManIntro.State.START);
+		intro2.restart(PacManIntro.State.START);
+		for (int i = 0; i < 2 * GameModel.FPS; ++i) {
+			intro1.update();
+		}
+		assertEquals(PacManIntro.State.PRESENTING_GHOSTS, intro1.state());
+		assertEquals(PacManIntro.State.START, intro2.state());
+		assertEquals(0, intro2.timer().tick());
+	}
+}
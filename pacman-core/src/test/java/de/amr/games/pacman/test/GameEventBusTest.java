@@ -0,0 +1,151 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.event.GameEvent;
+import de.amr.games.pacman.event.GameEventListener;
+import de.amr.games.pacman.event.GameEventType;
+import de.amr.games.pacman.event.GameEvents;
+import de.amr.games.pacman.event.SoundEvent;
+import de.amr.games.pacman.lib.Globals;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class GameEventBusTest {
+
+	private static class EventCollector implements GameEventListener {
+		final List<GameEvent> events = new ArrayList<>();
+
+		@Override
+		public void onGameEvent(GameEvent event) {
+			events.add(event);
+		}
+	}
+
+	@Test
+	public void testEventsStayWithinTheirGame() {
+		var gc2 = new GameController(GameVariant.MS_PACMAN);
+		var gc1 = new GameController(GameVariant.PACMAN);
+		var collector1 = new EventCollector();
+		var collector2 = new EventCollector();
+		gc1.eventBus().addListener(collector1);
+		gc2.eventBus().addListener(collector2);
+
+		var runner = new HeadlessRunner(gc1);
+		runner.setTickBudget(1000);
+		runner.run();
+
+		assertTrue(collector1.events.size() > 0);
+		assertTrue(collector1.events.stream().allMatch(event -> event.game == gc1.game()));
+		assertEquals(0, collector2.events.size());
+	}
+
+	@Test
+	public void testStaticFacadeUsesMostRecentController() {
+		new GameController(GameVariant.PACMAN);
+		var gc = new GameController(GameVariant.PACMAN);
+		var collector = new EventCollector();
+		GameEvents.addListener(collector);
+		try {
+			GameEvents.publishGameEventOfType(GameEventType.PAC_GETS_POWER);
+			assertEquals(1, collector.events.size());
+			assertEquals(GameEventType.PAC_GETS_POWER, collector.events.get(0).type);
+			assertEquals(gc.game(), collector.events.get(0).game);
+		} finally {
+			GameEvents.removeListener(collector);
+		}
+	}
+
+	@Test
+	public void testSoundEventsDisabled() {
+		var gc = new GameController(GameVariant.PACMAN);
+		var collector = new EventCollector();
+		gc.eventBus().addListener(collector);
+		gc.eventBus().setSoundEventsEnabled(false);
+		gc.game().publishSoundEvent("test");
+		assertEquals(0, collector.events.size());
+		gc.eventBus().setSoundEventsEnabled(true);
+		gc.game().publishSoundEvent("test");
+		assertEquals(1, collector.events.size());
+		assertTrue(collector.events.get(0) instanceof SoundEvent);
+	}
+
+	@Test
+	public void testListenerSubscribedToType() {
+		var gc = new GameController(GameVariant.PACMAN);
+		var bus = gc.eventBus();
+		var collector = new EventCollector();
+		assertFalse(bus.hasListeners(GameEventType.PAC_FINDS_FOOD));
+		bus.addListener(GameEventType.PAC_GETS_POWER, collector);
+		assertTrue(bus.hasListeners(GameEventType.PAC_GETS_POWER));
+		assertFalse(bus.hasListeners(GameEventType.PAC_FINDS_FOOD));
+		gc.game().publishGameEvent(GameEventType.PAC_FINDS_FOOD, Globals.v2i(1, 4));
+		gc.game().publishGameEventOfType(GameEventType.PAC_GETS_POWER);
+		assertEquals(1, collector.events.size());
+		assertEquals(GameEventType.PAC_GETS_POWER, collector.events.get(0).type);
+		bus.removeListener(collector);
+		assertFalse(bus.hasListeners(GameEventType.PAC_GETS_POWER));
+	}
+
+	@Test
+	public void testSoundEventsNeedListeners() {
+		var gc = new GameController(GameVariant.PACMAN);
+		var bus = gc.eventBus();
+		var collector = new EventCollector();
+		bus.addListener(collector);
+		assertTrue(bus.hasListeners(GameEventType.SOUND_EVENT));
+		bus.setSoundEventsEnabled(false);
+		assertFalse(bus.hasListeners(GameEventType.SOUND_EVENT));
+	}
+
+	@Test
+	public void testFrequentEventsAreReused() {
+		var gc = new GameController(GameVariant.PACMAN);
+		var collector = new EventCollector();
+		gc.eventBus().addListener(collector);
+		gc.game().publishGameEvent(GameEventType.PAC_FINDS_FOOD, Globals.v2i(1, 4));
+		gc.game().publishGameEvent(GameEventType.PAC_FINDS_FOOD, Globals.v2i(1, 4));
+		gc.game().publishSoundEvent("test");
+		gc.game().publishSoundEvent("test");
+		assertEquals(4, collector.events.size());
+		assertSame(collector.events.get(0), collector.events.get(1));
+		assertSame(collector.events.get(2), collector.events.get(3));
+		assertEquals(Globals.v2i(1, 4), collector.events.get(0).tile.get());
+	}
+}
@@ -0,0 +1,150 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.lib.steering.RouteBasedSteering;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameSnapshot;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class GameSnapshotTest {
+
+	private static byte[] saveController(GameController gc) {
+		var buffer = ByteBuffer.allocate(GameSnapshot.MAX_SIZE + 1024);
+		gc.saveState(buffer);
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	private static HeadlessRunner runner(GameVariant variant, long seed) {
+		var gc = new GameController(variant);
+		gc.game().setRandomSeed(seed);
+		return new HeadlessRunner(gc);
+	}
+
+	private static void advance(HeadlessRunner runner, int ticks) {
+		for (int i = 0; i < ticks; ++i) {
+			runner.step();
+		}
+	}
+
+	private void assertForksContinueIdentically(GameVariant variant) {
+		var original = runner(variant, 42);
+		for (int checkpoint = 0; checkpoint < 8; ++checkpoint) {
+			advance(original, 2500);
+			var state = saveController(original.gameController());
+			var fork = runner(variant, 0);
+			fork.gameController().restoreState(ByteBuffer.wrap(state));
+			assertArrayEquals(state, saveController(fork.gameController()));
+			advance(original, 500);
+			advance(fork, 500);
+			assertArrayEquals("Fork differs after checkpoint " + checkpoint, saveController(original.gameController()),
+					saveController(fork.gameController()));
+		}
+	}
+
+	@Test
+	public void testPacManForksContinueIdentically() {
+		assertForksContinueIdentically(GameVariant.PACMAN);
+	}
+
+	@Test
+	public void testMsPacManForksContinueIdentically() {
+		assertForksContinueIdentically(GameVariant.MS_PACMAN);
+	}
+
+	@Test
+	public void testSnapshotIsSmall() {
+		var runner = runner(GameVariant.MS_PACMAN, 7);
+		advance(runner, 3000);
+		var snapshot = GameSnapshot.of(runner.gameController().game());
+		assertTrue(runner.gameController().game().level().isPresent());
+		assertTrue("Snapshot size is " + snapshot.length, snapshot.length < 1024);
+	}
+
+	@Test
+	public void testRestoreWithoutLevel() {
+		var game = new GameModel(GameVariant.PACMAN);
+		game.setCredit(3);
+		var snapshot = GameSnapshot.of(game);
+		var copy = new GameModel(GameVariant.PACMAN);
+		copy.enterLevel(5);
+		GameSnapshot.restore(copy, snapshot);
+		assertTrue(copy.level().isEmpty());
+		assertEquals(3, copy.credit());
+		assertEquals(game.random().state(), copy.random().state());
+	}
+
+	private static void updateDemoLevel(GameModel game, int ticks) {
+		var level = game.level().get();
+		for (int i = 0; i < ticks; ++i) {
+			level.pacSteering().get().steer(level, level.pac());
+			level.update();
+		}
+	}
+
+	@Test
+	public void testPacManDemoLevelRoundTrip() {
+		var game = new GameModel(GameVariant.PACMAN);
+		game.setRandomSeed(42);
+		game.enterDemoLevel();
+		updateDemoLevel(game, 300);
+		var snapshot = GameSnapshot.of(game);
+
+		var copy = new GameModel(GameVariant.PACMAN);
+		copy.enterDemoLevel();
+		copy.level().get().setPacSteering(null);
+		GameSnapshot.restore(copy, snapshot);
+		assertTrue(copy.level().get().pacSteering().get() instanceof RouteBasedSteering);
+		assertArrayEquals(snapshot, GameSnapshot.of(copy));
+
+		updateDemoLevel(game, 300);
+		updateDemoLevel(copy, 300);
+		assertArrayEquals(GameSnapshot.of(game), GameSnapshot.of(copy));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRestoreIntoOtherVariant() {
+		var snapshot = GameSnapshot.of(new GameModel(GameVariant.PACMAN));
+		GameSnapshot.restore(new GameModel(GameVariant.MS_PACMAN), snapshot);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoSnapshot() {
+		GameSnapshot.restore(new GameModel(GameVariant.PACMAN), new byte[16]);
+	}
+}
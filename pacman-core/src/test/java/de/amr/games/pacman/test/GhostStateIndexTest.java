@@ -0,0 +1,113 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.GameModel;
+import de.amr.games.pacman.model.GameSnapshot;
+import de.amr.games.pacman.model.GameVariant;
+import de.amr.games.pacman.model.actors.Ghost;
+import de.amr.games.pacman.model.actors.GhostState;
+import de.amr.games.pacman.model.actors.GhostStateIndex;
+
+/**
+ * @author Armin Reichert
+ */
+public class GhostStateIndexTest {
+
+	private static void assertMasksMatchGhostStates(GameLevel level) {
+		for (var state : GhostState.values()) {
+			int expected = 0;
+			for (var ghost : level.ghosts().toArray(Ghost[]::new)) {
+				if (ghost.is(state)) {
+					expected |= GhostStateIndex.bit(ghost.id());
+				}
+			}
+			assertEquals("Mask of state " + state, expected, level.ghostMask(state));
+			assertEquals(level.ghosts().filter(ghost -> ghost.is(state)).toList(), level.ghosts(state).toList());
+		}
+	}
+
+	@Test
+	public void testMasksFollowStateTransitions() {
+		for (var variant : GameVariant.values()) {
+			var gc = new GameController(variant);
+			gc.game().setRandomSeed(42);
+			var runner = new HeadlessRunner(gc);
+			for (int i = 0; i < 10_000; ++i) {
+				runner.step();
+				gc.game().level().ifPresent(GhostStateIndexTest::assertMasksMatchGhostStates);
+			}
+		}
+	}
+
+	@Test
+	public void testMasksAfterSnapshotRestore() {
+		var gc = new GameController(GameVariant.PACMAN);
+		gc.game().setRandomSeed(42);
+		var runner = new HeadlessRunner(gc);
+		while (gc.game().level().isEmpty() || gc.game().level().get().ghostMask(GhostState.HUNTING_PAC) == 0) {
+			runner.step();
+		}
+		var snapshot = GameSnapshot.of(gc.game());
+		var copy = new GameModel(GameVariant.PACMAN);
+		copy.setHighscorePersistent(false);
+		GameSnapshot.restore(copy, snapshot);
+		var level = copy.level().orElseThrow();
+		assertMasksMatchGhostStates(level);
+		assertEquals(gc.game().level().get().ghostMask(GhostState.HUNTING_PAC), level.ghostMask(GhostState.HUNTING_PAC));
+	}
+
+	@Test
+	public void testForEachAndFind() {
+		var game = new GameModel(GameVariant.PACMAN);
+		game.setHighscorePersistent(false);
+		game.enterLevel(1);
+		var level = game.level().orElseThrow();
+		level.ghosts().forEach(Ghost::enterStateLocked);
+		level.ghost(GameModel.PINK_GHOST).enterStateFrightened();
+		level.ghost(GameModel.ORANGE_GHOST).enterStateFrightened();
+		var visited = new ArrayList<Ghost>();
+		// the action changes the states of the visited ghosts
+		level.forEachGhost(level.ghostMask(GhostState.FRIGHTENED), ghost -> {
+			visited.add(ghost);
+			ghost.enterStateHuntingPac();
+		});
+		assertEquals(2, visited.size());
+		assertEquals(GameModel.PINK_GHOST, visited.get(0).id());
+		assertEquals(GameModel.ORANGE_GHOST, visited.get(1).id());
+		assertEquals(0, level.ghostMask(GhostState.FRIGHTENED));
+		assertEquals(visited.get(1), level.findGhost(level.ghostMask(GhostState.HUNTING_PAC), ghost -> ghost.id() > 2));
+		assertNull(level.findGhost(level.ghostMask(GhostState.EATEN), ghost -> true));
+	}
+}
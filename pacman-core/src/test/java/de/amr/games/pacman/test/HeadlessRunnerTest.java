@@ -0,0 +1,116 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.model.GameSnapshot;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class HeadlessRunnerTest {
+
+	@Test
+	public void testTickBudget() {
+		var gc = new GameController(GameVariant.PACMAN);
+		// fixed seed such that the game is not over after the tick budget
+		gc.game().setRandomSeed(42);
+		var runner = new HeadlessRunner(gc);
+		runner.setTickBudget(5_000);
+		var stats = runner.run();
+		assertEquals(5_000, stats.ticks());
+		assertTrue(runner.gameController().game().isPlaying());
+	}
+
+	@Test
+	public void testTimeBudget() {
+		var runner = new HeadlessRunner(new GameController(GameVariant.MS_PACMAN));
+		runner.setTimeBudget(Duration.ofMillis(200));
+		var stats = runner.run();
+		assertTrue(stats.ticks() > 0);
+		assertTrue(stats.nanos() >= Duration.ofMillis(200).toNanos());
+	}
+
+	@Test
+	public void testGamesGetCompleted() {
+		var runner = new HeadlessRunner(new GameController(GameVariant.PACMAN));
+		runner.setTickBudget(50_000);
+		var stats = runner.run();
+		assertTrue(stats.gamesCompleted() > 0);
+	}
+
+	private static byte[] runAndSaveState(GameVariant variant, boolean fastForward, boolean headless) {
+		var gc = new GameController(variant);
+		gc.game().setRandomSeed(42);
+		var runner = new HeadlessRunner(gc);
+		runner.setFastForward(fastForward);
+		gc.game().setHeadless(headless);
+		runner.setTickBudget(20_000);
+		var stats = runner.run();
+		assertEquals(20_000, stats.ticks());
+		assertTrue(stats.gamesCompleted() > 0);
+		var buffer = ByteBuffer.allocate(GameSnapshot.MAX_SIZE + 1024);
+		gc.saveState(buffer);
+		return Arrays.copyOf(buffer.array(), buffer.position());
+	}
+
+	@Test
+	public void testFastForwardHasSameOutcome() {
+		for (var variant : GameVariant.values()) {
+			assertArrayEquals(runAndSaveState(variant, false, true), runAndSaveState(variant, true, true));
+		}
+	}
+
+	@Test
+	public void testFastForwardWithAnimationsHasSameOutcome() {
+		for (var variant : GameVariant.values()) {
+			assertArrayEquals(runAndSaveState(variant, false, false), runAndSaveState(variant, true, false));
+		}
+	}
+
+	@Test
+	public void testHeadlessHasSameOutcome() {
+		for (var variant : GameVariant.values()) {
+			assertArrayEquals(runAndSaveState(variant, false, false), runAndSaveState(variant, false, true));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeTickBudget() {
+		new HeadlessRunner(new GameController(GameVariant.PACMAN)).setTickBudget(-1);
+	}
+}
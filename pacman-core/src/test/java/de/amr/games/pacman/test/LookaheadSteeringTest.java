@@ -0,0 +1,106 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.GameState;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.lib.steering.LookaheadSteering;
+import de.amr.games.pacman.model.GameSnapshot;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class LookaheadSteeringTest {
+
+	private static GameController run(GameVariant variant, long seed, boolean parallel, long ticks) {
+		var gc = new GameController(variant);
+		gc.game().setRandomSeed(seed);
+		var lookahead = new LookaheadSteering();
+		lookahead.setNodeBudget(256);
+		lookahead.setParallel(parallel);
+		gc.setAutopilot(lookahead);
+		var runner = new HeadlessRunner(gc);
+		runner.setTickBudget(ticks);
+		runner.run();
+		return gc;
+	}
+
+	@Test
+	public void testDecisionsAreDeterministic() {
+		var gc1 = run(GameVariant.PACMAN, 42, false, 1_500);
+		var gc2 = run(GameVariant.PACMAN, 42, false, 1_500);
+		assertTrue(((LookaheadSteering) gc1.autopilot()).decisions() > 0);
+		assertArrayEquals(GameSnapshot.of(gc1.game()), GameSnapshot.of(gc2.game()));
+	}
+
+	@Test
+	public void testParallelEqualsSequential() {
+		var gc1 = run(GameVariant.MS_PACMAN, 4711, false, 1_500);
+		var gc2 = run(GameVariant.MS_PACMAN, 4711, true, 1_500);
+		assertArrayEquals(GameSnapshot.of(gc1.game()), GameSnapshot.of(gc2.game()));
+	}
+
+	@Test
+	public void testSearchDoesNotChangeGame() {
+		var gc = new GameController(GameVariant.PACMAN);
+		var runner = new HeadlessRunner(gc);
+		while (gc.state() != GameState.HUNTING || !gc.game().level().get().pac().isNewTileEntered()) {
+			runner.step();
+		}
+		var level = gc.game().level().get();
+		var pac = level.pac();
+		var wishDir = pac.wishDir();
+		var before = GameSnapshot.of(gc.game());
+		var lookahead = new LookaheadSteering();
+		lookahead.steer(level, pac);
+		assertEquals(1, lookahead.decisions());
+		assertTrue(lookahead.simulatedTicks() >= lookahead.horizon());
+		pac.setWishDir(wishDir);
+		assertArrayEquals(before, GameSnapshot.of(gc.game()));
+	}
+
+	@Test
+	public void testSurvivesLongerThanRuleBasedAutopilot() {
+		var ruleBased = new GameController(GameVariant.PACMAN);
+		ruleBased.game().setRandomSeed(7);
+		var runner = new HeadlessRunner(ruleBased);
+		runner.setTickBudget(3_000);
+		runner.run();
+		var lookahead = run(GameVariant.PACMAN, 7, false, 3_000);
+		assertTrue(lookahead.game().lives() > ruleBased.game().lives());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalNodeBudget() {
+		new LookaheadSteering().setNodeBudget(0);
+	}
+}
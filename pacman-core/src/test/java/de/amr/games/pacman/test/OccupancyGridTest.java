@@ -0,0 +1,105 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.model.GameLevel;
+import de.amr.games.pacman.model.GameVariant;
+import de.amr.games.pacman.model.actors.Ghost;
+import de.amr.games.pacman.model.actors.GhostStateIndex;
+import de.amr.games.pacman.model.actors.OccupancyGrid;
+
+/**
+ * @author Armin Reichert
+ */
+public class OccupancyGridTest {
+
+	@Test
+	public void testPlaceAndRemove() {
+		var grid = new OccupancyGrid(28, 36, 4);
+		grid.place(0, 5, 5);
+		grid.place(2, 5, 5);
+		assertEquals(0b0101, grid.actorsAt(5, 5));
+		grid.place(0, 6, 5);
+		assertEquals(0b0100, grid.actorsAt(5, 5));
+		assertEquals(0b0001, grid.actorsAt(6, 5));
+		grid.remove(2);
+		assertEquals(0, grid.actorsAt(5, 5));
+		grid.clear();
+		assertEquals(0, grid.actorsAt(6, 5));
+	}
+
+	@Test
+	public void testOutsideGrid() {
+		var grid = new OccupancyGrid(28, 36, 4);
+		grid.place(1, -1, 17);
+		grid.place(3, -1, 17);
+		assertEquals(0b1010, grid.actorsAt(-1, 17));
+		grid.place(1, 0, 17);
+		assertEquals(0b1000, grid.actorsAt(-1, 17));
+		assertEquals(0b0010, grid.actorsAt(0, 17));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooManyActors() {
+		new OccupancyGrid(28, 36, OccupancyGrid.MAX_ACTORS + 1);
+	}
+
+	private static int ghostsAtBruteForce(GameLevel level, int x, int y) {
+		int mask = 0;
+		for (var ghost : level.ghosts().toArray(Ghost[]::new)) {
+			if (ghost.tileX() == x && ghost.tileY() == y) {
+				mask |= GhostStateIndex.bit(ghost.id());
+			}
+		}
+		return mask;
+	}
+
+	private static void assertOccupancyMatchesGhostTiles(GameLevel level) {
+		var pac = level.pac();
+		assertEquals(ghostsAtBruteForce(level, pac.tileX(), pac.tileY()), level.ghostsAt(pac.tileX(), pac.tileY()));
+		for (var ghost : level.ghosts().toArray(Ghost[]::new)) {
+			assertEquals(ghostsAtBruteForce(level, ghost.tileX(), ghost.tileY()),
+					level.ghostsAt(ghost.tileX(), ghost.tileY()));
+		}
+	}
+
+	@Test
+	public void testOccupancyFollowsGhosts() {
+		for (var variant : GameVariant.values()) {
+			var gc = new GameController(variant);
+			gc.game().setRandomSeed(42);
+			var runner = new HeadlessRunner(gc);
+			for (int i = 0; i < 10_000; ++i) {
+				runner.step();
+				gc.game().level().ifPresent(OccupancyGridTest::assertOccupancyMatchesGhostTiles);
+			}
+		}
+	}
+}
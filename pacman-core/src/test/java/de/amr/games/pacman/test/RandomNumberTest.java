@@ -30,6 +30,12 @@ import static de.amr.games.pacman.lib.Globals.randomInt;
 import org.junit.Assert;
 import org.junit.Test;
 
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.GameState;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.lib.SplitMix64Random;
+import de.amr.games.pacman.model.GameVariant;
+
 /**
  * @author Armin Reichert
  */
@@ -52,4 +58,54 @@ public class RandomNumberTest {
 			Assert.assertTrue(10.0f <= number && number < 100.0f);
 		}
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testRandomIntWithGenerator() {
+		var rnd = new SplitMix64Random(42);
+		for (int i = 0; i < N; ++i) {
+			var number = randomInt(rnd, 10, 100);
+			Assert.assertTrue(10 <= number && number < 100);
+		}
+	}
+
+	@Test
+	public void testSameSeedSameSequence() {
+		var rnd1 = new SplitMix64Random(42);
+		var rnd2 = new SplitMix64Random(42);
+		for (int i = 0; i < 1000; ++i) {
+			Assert.assertEquals(rnd1.nextLong(), rnd2.nextLong());
+		}
+		rnd2.setState(rnd1.state());
+		Assert.assertEquals(rnd1.nextInt(), rnd2.nextInt());
+	}
+
+	@Test
+	public void testSameSeedSameGame() {
+		var runners = new HeadlessRunner[2];
+		for (int i = 0; i < 2; ++i) {
+			var gc = new GameController(GameVariant.MS_PACMAN);
+			gc.game().setRandomSeed(4711);
+			runners[i] = new HeadlessRunner(gc);
+			runners[i].setTickBudget(20_000);
+			runners[i].run();
+		}
+		var game1 = runners[0].gameController().game();
+		var game2 = runners[1].gameController().game();
+		Assert.assertEquals(game1.score().get().points(), game2.score().get().points());
+		Assert.assertEquals(game1.lives(), game2.lives());
+		Assert.assertEquals(game1.random().state(), game2.random().state());
+	}
+
+	@Test
+	public void testSelectGameVariantKeepsRandomState() {
+		var gc = new GameController(GameVariant.PACMAN);
+		gc.game().setRandomSeed(4711);
+		gc.game().random().nextInt();
+		long state = gc.game().random().state();
+		gc.restart(GameState.INTRO);
+		gc.selectGameVariant(GameVariant.MS_PACMAN);
+		Assert.assertEquals(GameVariant.MS_PACMAN, gc.game().variant());
+		Assert.assertEquals(4711, gc.game().randomSeed());
+		Assert.assertEquals(state, gc.game().random().state());
+	}
+}
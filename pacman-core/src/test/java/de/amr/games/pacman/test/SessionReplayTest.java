@@ -0,0 +1,97 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.controller.SessionRecorder;
+import de.amr.games.pacman.controller.SessionReplayer;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class SessionReplayTest {
+
+	private byte[] record(GameVariant variant, long seed, long ticks) {
+		var gc = new GameController(variant);
+		gc.game().setRandomSeed(seed);
+		var runner = new HeadlessRunner(gc);
+		var bytes = new ByteArrayOutputStream();
+		try (var recorder = new SessionRecorder(gc, bytes)) {
+			runner.setTickBudget(ticks);
+			runner.run();
+			assertEquals(ticks, recorder.tick());
+		}
+		return bytes.toByteArray();
+	}
+
+	private void assertReplayIdentical(GameVariant variant, long seed) {
+		var log = record(variant, seed, 20_000);
+		var replayer = new SessionReplayer(new ByteArrayInputStream(log));
+		var outcome = replayer.replay();
+		assertEquals(replayer.recordedOutcome(), outcome);
+		assertEquals(20_000, outcome.ticks());
+		assertTrue(outcome.score() > 0);
+	}
+
+	@Test
+	public void testPacManReplay() {
+		assertReplayIdentical(GameVariant.PACMAN, 42);
+	}
+
+	@Test
+	public void testMsPacManReplay() {
+		assertReplayIdentical(GameVariant.MS_PACMAN, 4711);
+	}
+
+	@Test
+	public void testRecorderDetached() {
+		var gc = new GameController(GameVariant.PACMAN);
+		var recorder = new SessionRecorder(gc, new ByteArrayOutputStream());
+		assertTrue(gc.recorder().isPresent());
+		recorder.close();
+		assertTrue(gc.recorder().isEmpty());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testRecordingMustStartBeforeFirstUpdate() {
+		var gc = new GameController(GameVariant.PACMAN);
+		new HeadlessRunner(gc).step();
+		new SessionRecorder(gc, new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoSessionLog() {
+		new SessionReplayer(new ByteArrayInputStream(new byte[] { 1, 2, 3, 4, 5, 6 }));
+	}
+}
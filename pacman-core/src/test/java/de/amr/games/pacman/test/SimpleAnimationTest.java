@@ -0,0 +1,66 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.lib.anim.SimpleAnimation;
+
+/**
+ * @author Armin Reichert
+ */
+public class SimpleAnimationTest {
+
+	private static void assertFrameAtMatchesAnimate(SimpleAnimation<String> animation, int ticks) {
+		animation.restart();
+		for (int t = 0; t < ticks; ++t) {
+			assertEquals("Tick " + t, animation.frame(), animation.frameAt(t));
+			animation.animate();
+		}
+	}
+
+	@Test
+	public void testFrameAtRepeatingForever() {
+		var animation = new SimpleAnimation<>("A", "B", "C");
+		animation.setFrameDuration(4);
+		animation.repeatForever();
+		assertFrameAtMatchesAnimate(animation, 100);
+	}
+
+	@Test
+	public void testFrameAtWithRepetitions() {
+		var animation = new SimpleAnimation<>("A", "B", "C");
+		animation.setFrameDuration(5);
+		animation.setRepetitions(2);
+		assertFrameAtMatchesAnimate(animation, 100);
+		assertEquals(2, animation.frameIndexAt(1000));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeTicks() {
+		new SimpleAnimation<>("A").frameAt(-1);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.GameState;
+import de.amr.games.pacman.controller.SimulationEngine;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class SimulationEngineTest {
+
+	@Test
+	public void testParallelGames() {
+		var engine = new SimulationEngine(8, i -> {
+			var gc = new GameController(i % 2 == 0 ? GameVariant.PACMAN : GameVariant.MS_PACMAN);
+			// fixed seeds such that no game is over after the tick budget
+			gc.game().setRandomSeed(42 + i);
+			return gc;
+		}, 4);
+		engine.setTickBudget(3000);
+		var stats = engine.run();
+		assertEquals(8, stats.numGames());
+		assertEquals(8 * 3000, stats.ticks());
+		for (var runner : engine.runners()) {
+			assertEquals(3000, runner.ticks());
+			assertTrue(runner.gameController().game().isPlaying());
+		}
+	}
+
+	@Test
+	public void testGameControllersHaveOwnTimers() {
+		var gc1 = new GameController(GameVariant.PACMAN);
+		var gc2 = new GameController(GameVariant.PACMAN);
+		gc1.restart(GameState.BOOT);
+		gc2.restart(GameState.BOOT);
+		gc1.update();
+		gc1.update();
+		assertNotEquals(gc1.timer(), gc2.timer());
+		assertEquals(2, gc1.timer().tick());
+		assertEquals(0, gc2.timer().tick());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testIllegalNumberOfGames() {
+		new SimulationEngine(0, GameVariant.PACMAN);
+	}
+}
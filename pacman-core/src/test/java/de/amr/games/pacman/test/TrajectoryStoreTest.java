@@ -0,0 +1,151 @@
+/*
+MIT License
+
+Copyright (c) 2023 Armin Reichert
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in all
+copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.amr.games.pacman.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import de.amr.games.pacman.controller.GameController;
+import de.amr.games.pacman.controller.HeadlessRunner;
+import de.amr.games.pacman.controller.TrajectoryReader;
+import de.amr.games.pacman.controller.TrajectoryRecord;
+import de.amr.games.pacman.controller.TrajectoryWriter;
+import de.amr.games.pacman.model.GameVariant;
+
+/**
+ * @author Armin Reichert
+ */
+public class TrajectoryStoreTest {
+
+	private Path file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = Files.createTempFile("trajectory", ".bin");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		var gc = new GameController(GameVariant.MS_PACMAN);
+		gc.game().setRandomSeed(42);
+		var expected = new ArrayList<int[]>();
+		// small segments such that segment switching is exercised
+		var writer = new TrajectoryWriter(file, gc.game(), 1000);
+		gc.game().setLevelUpdateObserver(level -> {
+			writer.onLevelUpdated(level);
+			expected.add(new int[] { level.number(), level.pac().tileX(), level.pac().tileY(),
+					level.world().uneatenFoodCount(), level.ghost((byte) 2).tileX() });
+		});
+		var runner = new HeadlessRunner(gc);
+		runner.setTickBudget(20_000);
+		runner.run();
+		gc.game().setLevelUpdateObserver(null);
+		writer.close();
+		assertTrue(expected.size() > 1000);
+		assertEquals(expected.size(), writer.recordCount());
+
+		try (var reader = new TrajectoryReader(file)) {
+			assertEquals(GameVariant.MS_PACMAN, reader.variant());
+			assertEquals(42, reader.seed());
+			assertEquals(expected.size(), reader.numRecords());
+			List<int[]> actual = new ArrayList<>();
+			reader.forEach(r -> actual.add(new int[] { r.levelNumber(), r.pacX(), r.pacY(), r.uneatenFoodCount(), r.ghostX(2) }));
+			for (int i = 0; i < expected.size(); ++i) {
+				assertEquals("Record " + i, List.of(expected.get(i)[0], expected.get(i)[1], expected.get(i)[2],
+						expected.get(i)[3], expected.get(i)[4]),
+						List.of(actual.get(i)[0], actual.get(i)[1], actual.get(i)[2], actual.get(i)[3], actual.get(i)[4]));
+			}
+			var last = reader.record(reader.numRecords() - 1);
+			assertEquals(expected.get(expected.size() - 1)[1], last.pacX());
+			assertTrue(last.levelTick() > 0);
+		}
+	}
+
+	@Test
+	public void testWriterDetachedOnClose() throws IOException {
+		var gc = new GameController(GameVariant.PACMAN);
+		var writer = new TrajectoryWriter(file, gc.game());
+		assertEquals(writer, gc.game().levelUpdateObserver());
+		writer.close();
+		assertNull(gc.game().levelUpdateObserver());
+		assertEquals(TrajectoryWriter.HEADER_SIZE, Files.size(file));
+		try (var reader = new TrajectoryReader(file)) {
+			assertEquals(0, reader.numRecords());
+		}
+	}
+
+	@Test
+	public void testReaderUsesRecordCountOfHeader() throws IOException {
+		var gc = new GameController(GameVariant.PACMAN);
+		long recordCount;
+		try (var writer = new TrajectoryWriter(file, gc.game(), 100)) {
+			var runner = new HeadlessRunner(gc);
+			runner.setTickBudget(1000);
+			runner.run();
+			recordCount = writer.recordCount();
+		}
+		assertTrue(recordCount > 0);
+		// simulate a file that could not be truncated
+		Files.write(file, new byte[10 * TrajectoryRecord.SIZE], StandardOpenOption.APPEND);
+		try (var reader = new TrajectoryReader(file)) {
+			assertEquals(recordCount, reader.numRecords());
+			assertEquals(reader.numRecords(), reader.record(reader.numRecords() - 1).levelTick());
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWriterRejectsObservedGame() throws IOException {
+		var gc = new GameController(GameVariant.PACMAN);
+		gc.game().setLevelUpdateObserver(level -> {
+		});
+		try (var writer = new TrajectoryWriter(file, gc.game())) {
+			writer.recordCount();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNotATrajectoryFile() throws IOException {
+		Files.write(file, new byte[64]);
+		try (var reader = new TrajectoryReader(file)) {
+			reader.numRecords();
+		}
+	}
+}
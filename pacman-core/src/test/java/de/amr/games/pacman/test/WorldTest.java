@@ -5,14 +5,27 @@ import static de.amr.games.pacman.lib.Globals.v2f;
 import static de.amr.games.pacman.lib.Globals.v2i;
 import static java.util.function.Predicate.not;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 
 import org.junit.Test;
 
+import de.amr.games.pacman.lib.SplitMix64Random;
 import de.amr.games.pacman.lib.math.Vector2f;
 import de.amr.games.pacman.lib.math.Vector2i;
+import de.amr.games.pacman.lib.steering.Direction;
 import de.amr.games.pacman.model.GameModel;
 import de.amr.games.pacman.model.actors.Ghost;
+import de.amr.games.pacman.model.world.DistanceTable;
+import de.amr.games.pacman.model.world.Maze;
 import de.amr.games.pacman.model.world.World;
 
 /**
@@ -133,4 +146,242 @@ public class WorldTest {
 		copy[1][1] = (byte) 42;
 		assertNotEquals(map[1][1], copy[1][1]);
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testTileIndex() {
+		var maps = new ArrayList<byte[][]>();
+		maps.add(GameModel.PACMAN_MAP);
+		maps.addAll(List.of(GameModel.MS_PACMAN_MAPS));
+		for (var map : maps) {
+			var world = new World(map);
+			var door = world.house().door();
+			world.tiles().forEach(tile -> {
+				boolean intersection = tile.x() > 0 && tile.x() < world.numCols() - 1 && !world.house().contains(tile)
+						&& tile.neighbors().filter(nb -> world.isWall(nb) || door.occupies(nb)).count() < 2;
+				assertEquals(intersection, world.isIntersection(tile));
+				for (var dir : Direction.values()) {
+					var neighbor = tile.plus(dir.vector());
+					boolean open = world.insideBounds(neighbor) ? !world.isWall(neighbor) && !door.occupies(neighbor)
+							: world.portals().stream().anyMatch(portal -> portal.contains(neighbor));
+					assertEquals(open, world.isOpen(tile, dir));
+				}
+			});
+			for (var portal : world.portals()) {
+				assertTrue(world.belongsToPortal(portal.leftTunnelEnd().minus(1, 0)));
+				assertTrue(world.belongsToPortal(portal.leftTunnelEnd().minus(2, 0)));
+				assertFalse(world.belongsToPortal(portal.leftTunnelEnd().minus(3, 0)));
+				assertTrue(world.belongsToPortal(portal.rightTunnelEnd().plus(1, 0)));
+				assertTrue(world.belongsToPortal(portal.rightTunnelEnd().plus(2, 0)));
+				assertFalse(world.belongsToPortal(portal.rightTunnelEnd().plus(3, 0)));
+			}
+			assertFalse(world.belongsToPortal(v2i(-1, 0)));
+		}
+	}
+
+	@Test
+	public void testDistanceTable() {
+		var world = new World(GameModel.PACMAN_MAP);
+		var distances = world.distances();
+		assertSame(distances, new World(GameModel.PACMAN_MAP).distances());
+		assertNotSame(distances, new World(GameModel.MS_PACMAN_MAPS[0]).distances());
+
+		var start = v2i(13, 26); // Pac-Man start tile
+		assertEquals(0, distances.distance(start, start));
+		assertNull(distances.firstStep(start, start));
+		assertEquals(1, distances.distance(start, v2i(12, 26)));
+		assertEquals(Direction.LEFT, distances.firstStep(start, v2i(12, 26)));
+		assertEquals(DistanceTable.UNREACHABLE, distances.distance(start, v2i(0, 0))); // wall
+		assertEquals(DistanceTable.UNREACHABLE, distances.distance(start, v2i(-1, 17))); // inside portal
+		assertEquals(DistanceTable.UNREACHABLE, distances.distance(start, v2i(13, 17))); // inside ghost house
+
+		// through portal: left tunnel end -> 2 hidden tiles -> right tunnel end
+		var portal = world.portals().get(0);
+		assertEquals(3, distances.distance(portal.leftTunnelEnd(), portal.rightTunnelEnd()));
+		assertEquals(Direction.LEFT, distances.firstStep(portal.leftTunnelEnd(), portal.rightTunnelEnd()));
+		assertEquals(Direction.RIGHT, distances.firstStep(portal.rightTunnelEnd(), portal.leftTunnelEnd()));
+
+		// following the first steps from any tile reaches the target in exactly "distance" steps
+		var target = v2i(1, 4);
+		world.tiles().filter(world::isAccessible).forEach(tile -> {
+			int dist = distances.distance(tile, target);
+			assertEquals(dist, distances.distance(target, tile));
+			if (dist != DistanceTable.UNREACHABLE) {
+				var current = tile;
+				for (int i = 0; i < dist; ++i) {
+					current = current.plus(distances.firstStep(current, target).vector());
+					if (!world.insideBounds(current)) {
+						current = current.x() < 0 ? portal.rightTunnelEnd() : portal.leftTunnelEnd();
+						i += 2;
+					}
+				}
+				assertEquals(target, current);
+			}
+		});
+	}
+
+	@Test
+	public void testDistanceTableCoversPlayableAreaOnly() {
+		var maps = new ArrayList<byte[][]>();
+		maps.add(GameModel.PACMAN_MAP);
+		maps.addAll(List.of(GameModel.MS_PACMAN_MAPS));
+		for (var map : maps) {
+			var world = new World(map);
+			var distances = world.distances();
+			long accessible = world.tiles().filter(world::isAccessible).count();
+			long reachable = world.tiles()
+					.filter(tile -> distances.distance(World.PAC_START_TILE, tile) != DistanceTable.UNREACHABLE).count();
+			// every tile in the table is reachable from the start tile, the rows above and below the maze are not
+			assertEquals(reachable, distances.numTiles());
+			assertTrue(distances.numTiles() < accessible);
+			assertEquals(DistanceTable.UNREACHABLE, distances.distance(World.PAC_START_TILE, v2i(1, 1)));
+		}
+	}
+
+	@Test
+	public void testMazeIsShared() {
+		var world1 = new World(GameModel.PACMAN_MAP);
+		var world2 = new World(GameModel.PACMAN_MAP);
+		assertSame(world1.maze(), world2.maze());
+		assertSame(Maze.of(GameModel.PACMAN_MAP), world1.maze());
+		assertNotSame(world1.maze(), new World(GameModel.MS_PACMAN_MAPS[0]).maze());
+
+		var foodTile = world1.tiles().filter(world1::isFoodTile).findFirst().get();
+		world1.removeFood(foodTile);
+		assertFalse(world1.containsFood(foodTile));
+		assertTrue(world2.containsFood(foodTile));
+		assertEquals(1, world1.eatenFoodCount());
+		assertEquals(0, world2.eatenFoodCount());
+		assertEquals(244, world2.uneatenFoodCount());
+	}
+
+	@Test
+	public void testTileVectorsAreInterned() {
+		var world = new World(GameModel.PACMAN_MAP);
+		assertSame(v2i(3, 4), v2i(3, 4));
+		assertSame(v2i(-2, 17), v2i(0, 17).minus(2, 0));
+		assertSame(world.tile(100), world.tile(100));
+		assertSame(World.tileAt(13.5f * 8, 26 * 8), v2i(13, 26));
+		assertEquals(v2i(1000, 1000), v2i(1000, 1000)); // outside of cache
+
+		var guy = new Ghost(GameModel.RED_GHOST, "Guy");
+		guy.setPosition(-13.0f, 100.0f);
+		assertEquals(guy.tile(), v2i(guy.tileX(), guy.tileY()));
+		assertEquals(guy.offset(), v2f(guy.offsetX(), guy.offsetY()));
+	}
+
+	@Test
+	public void testCoordinateOverloads() {
+		var world = new World(GameModel.PACMAN_MAP);
+		world.removeFood(v2i(1, 4));
+		for (int x = -3; x < world.numCols() + 3; ++x) {
+			for (int y = -1; y < world.numRows() + 1; ++y) {
+				var tile = v2i(x, y);
+				assertEquals(world.isWall(tile), world.isWall(x, y));
+				assertEquals(world.isTunnel(tile), world.isTunnel(x, y));
+				assertEquals(world.isIntersection(tile), world.isIntersection(x, y));
+				assertEquals(world.isAccessible(tile), world.isAccessible(x, y));
+				assertEquals(world.belongsToPortal(tile), world.belongsToPortal(x, y));
+				assertEquals(world.isFoodTile(tile), world.isFoodTile(x, y));
+				assertEquals(world.containsFood(tile), world.containsFood(x, y));
+				assertEquals(world.containsEatenFood(tile), world.containsEatenFood(x, y));
+			}
+		}
+		assertTrue(world.containsEatenFood(1, 4));
+	}
+
+	@Test
+	public void testNearestFoodTiles() {
+		var world = new World(GameModel.MS_PACMAN_MAPS[2]);
+		var distances = world.distances();
+		var random = new SplitMix64Random(42);
+		var result = new ArrayList<Vector2i>();
+		while (world.uneatenFoodCount() > 0) {
+			int x = random.nextInt(world.numCols());
+			int y = random.nextInt(world.numRows());
+			if (world.isAccessible(x, y) && !world.belongsToPortal(x, y)) {
+				boolean skipEnergizers = random.nextBoolean();
+				int dist = world.findNearestFoodTiles(x, y, skipEnergizers, result);
+				// compare with full scan
+				int expectedDist = DistanceTable.UNREACHABLE;
+				var expected = new HashSet<Vector2i>();
+				for (int ty = 0; ty < world.numRows(); ++ty) {
+					for (int tx = 0; tx < world.numCols(); ++tx) {
+						if (!world.containsFood(tx, ty) || skipEnergizers && world.isEnergizerTile(tx, ty)) {
+							continue;
+						}
+						int d = distances.distance(x, y, tx, ty);
+						if (d == DistanceTable.UNREACHABLE) {
+							continue;
+						}
+						if (expectedDist == DistanceTable.UNREACHABLE || d < expectedDist) {
+							expectedDist = d;
+							expected.clear();
+						}
+						if (d == expectedDist) {
+							expected.add(v2i(tx, ty));
+						}
+					}
+				}
+				assertEquals(expectedDist, dist);
+				assertEquals(expected, new HashSet<>(result));
+				assertEquals(expectedDist, world.findNearestFoodTiles(x, y, skipEnergizers, null));
+			}
+			// eat some food
+			int index = random.nextInt(world.numCols() * world.numRows());
+			world.removeFood(world.tile(index));
+			if (random.nextInt(20) == 0) {
+				world.tiles().filter(world::containsFood).limit(1).forEach(world::removeFood);
+			}
+		}
+		assertEquals(DistanceTable.UNREACHABLE, world.findNearestFoodTiles(1, 4, false, result));
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void testFoodBulkOperations() {
+		var world = new World(GameModel.PACMAN_MAP);
+		var random = new SplitMix64Random(4711);
+		for (int i = 0; i < 100; ++i) {
+			world.removeFood(world.tile(random.nextInt(world.numCols() * world.numRows())));
+		}
+		for (int i = 0; i < 200; ++i) {
+			int left = random.nextInt(-2, world.numCols());
+			int top = random.nextInt(-2, world.numRows());
+			int width = random.nextInt(0, 30);
+			int height = random.nextInt(0, 30);
+			int expected = 0;
+			for (int y = top; y < top + height; ++y) {
+				for (int x = left; x < left + width; ++x) {
+					if (world.containsFood(x, y)) {
+						++expected;
+					}
+				}
+			}
+			assertEquals(expected, world.uneatenFoodCount(left, top, width, height));
+		}
+		assertEquals(world.uneatenFoodCount(), world.uneatenFoodCount(0, 0, world.numCols(), world.numRows()));
+		for (int y = 0; y < world.numRows(); ++y) {
+			for (int x = 0; x < world.numCols(); ++x) {
+				int expectedX = -1;
+				for (int tx = x; tx < world.numCols() && expectedX == -1; ++tx) {
+					expectedX = world.containsFood(tx, y) ? tx : -1;
+				}
+				assertEquals(expectedX, world.nextFoodInRow(y, x));
+				int expectedY = -1;
+				for (int ty = y; ty < world.numRows() && expectedY == -1; ++ty) {
+					expectedY = world.containsFood(x, ty) ? ty : -1;
+				}
+				assertEquals(expectedY, world.nextFoodInColumn(x, y));
+			}
+		}
+		long energizers = world.energizerTiles().filter(world::containsFood).count();
+		assertEquals(energizers, world.uneatenEnergizerCount());
+		world.removeAllPellets();
+		assertEquals(energizers, world.uneatenFoodCount());
+		assertEquals(energizers, world.tiles().filter(world::containsFood).count());
+		world.removeAllFood();
+		assertEquals(0, world.uneatenFoodCount());
+		assertEquals(0, world.uneatenEnergizerCount());
+		assertEquals(world.maze().totalFoodCount(), world.eatenFoodCount());
+	}
+}